@@ -57,6 +57,25 @@ java {
     }
 }
 
+// --- MESURES ---
+// Classes main() de src/bench/java, compilées contre le code du jeu mais hors de son jar
+val bench: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+configurations["benchImplementation"].extendsFrom(configurations.implementation.get())
+configurations["benchRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
+// ./gradlew bench -Pbench=CaveBench [-Dmc.xxx=...] [--args="..."]
+tasks.register<JavaExec>("bench") {
+    group = "verification"
+    description = "Lance une mesure de src/bench/java (-Pbench=NomDeLaClasse)"
+    classpath = bench.runtimeClasspath
+    mainClass.set(providers.gradleProperty("bench").map { "ovh.paulem.mc.bench.$it" })
+    // Réglages -Dmc.xxx de la ligne de commande transmis à la JVM de la mesure
+    systemProperties(System.getProperties().filterKeys { it.toString().startsWith("mc.") }.mapKeys { it.key.toString() })
+}
+
 tasks.register<Jar>("fatJar") {
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
     from(sourceSets.main.get().output)
@@ -0,0 +1,123 @@
+package ovh.paulem.mc.bench;
+
+import org.joml.Vector3f;
+import ovh.paulem.mc.engine.render.texture.TintType;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.ChunkIO;
+import ovh.paulem.mc.world.World;
+
+/**
+ * Coût d'une teinte de colonne, comme la demandent le mesher et les particules : biome du chunk puis
+ * {@code Biome.getByTint} (un Vector3f par appel), biome d'une position monde ({@code World.getBiomeAt}) hors des
+ * chunks chargés, et lecture dans la table de teintes du chunk. Vérifie aussi que la table survit à une sauvegarde
+ * suivie d'un rechargement et que les teintes se raccordent d'un chunk à l'autre.
+ * Lancement : ./gradlew bench -Pbench=BiomeTintBench
+ */
+public class BiomeTintBench {
+    private static final int SIDE = 4;
+    private static final int ORIGIN = 500;
+    private static final int ROUNDS = 200;
+    private static final TintType[] TINT_TYPES = TintType.values();
+
+    public static void main(String[] args) {
+        World world = new World();
+        world.getGenerator().resetStageTimes();
+        BaseChunk[] chunks = new BaseChunk[SIDE * SIDE];
+        for (int i = 0; i < chunks.length; i++) chunks[i] = world.generateDetached(ORIGIN + i % SIDE, ORIGIN + i / SIDE, 1);
+        System.out.println("par étape : " + world.getGenerator().describeStageTimes());
+
+        int lookups = ROUNDS * chunks.length * BaseChunk.CHUNK_X * BaseChunk.CHUNK_Z;
+        float sink = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long t0 = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                for (BaseChunk chunk : chunks) {
+                    for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                        for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                            Vector3f color = chunk.getBiome(x, z).getByTint(TINT_TYPES[(x ^ z) & 1]);
+                            sink += color.x;
+                        }
+                    }
+                }
+            }
+            long t1 = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                for (BaseChunk chunk : chunks) {
+                    for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                        for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                            int tint = chunk.getTint(TINT_TYPES[(x ^ z) & 1], x, z);
+                            sink += ((tint >> 16) & 0xFF) / 255.0f;
+                        }
+                    }
+                }
+            }
+            long t2 = System.nanoTime();
+            // Particules hors des chunks chargés : biome recalculé depuis le bruit à chaque appel
+            int worldLookups = lookups / ROUNDS;
+            for (int i = 0; i < worldLookups; i++) {
+                int x = ORIGIN * BaseChunk.CHUNK_X + i % (SIDE * BaseChunk.CHUNK_X);
+                int z = ORIGIN * BaseChunk.CHUNK_Z + i / (SIDE * BaseChunk.CHUNK_X);
+                sink += world.getBiomeAt(x, z).getByTint(TINT_TYPES[(x ^ z) & 1]).x;
+            }
+            long t3 = System.nanoTime();
+            if (pass == 1) {
+                System.out.printf("getBiome + getByTint : %.2f ns, getTint : %.2f ns, World.getBiomeAt + getByTint : %.1f ns par colonne%n",
+                        (t1 - t0) / (double) lookups, (t2 - t1) / (double) lookups, (t3 - t2) / (double) worldLookups);
+            }
+        }
+
+        // Colonnes des bords de chunk : moyenne des couleurs de biome du carré autour d'elles, recalculée ici
+        // depuis World.getBiomeAt (les chunks générés ne sont pas chargés dans le monde)
+        int edgeMismatches = 0;
+        int edgeColumns = 0;
+        for (BaseChunk chunk : chunks) {
+            for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                    if (x != 0 && z != 0 && x != BaseChunk.CHUNK_X - 1 && z != BaseChunk.CHUNK_Z - 1) continue;
+                    edgeColumns++;
+                    for (TintType type : TINT_TYPES) {
+                        if (chunk.getTint(type, x, z) != expectedTint(world, chunk.getOriginX() + x, chunk.getOriginZ() + z, type)) edgeMismatches++;
+                    }
+                }
+            }
+        }
+        System.out.printf("Bords de chunk : %d écarts sur %d colonnes%n", edgeMismatches, edgeColumns);
+
+        // Sauvegarde puis relecture
+        ChunkIO chunkIO = world.getChunkIO();
+        long bytesBefore = chunkIO.getBytesWritten();
+        int mismatches = 0;
+        for (BaseChunk chunk : chunks) {
+            chunkIO.saveChunkNow(chunk);
+            BaseChunk loaded = chunkIO.loadChunk(chunk.getOriginX() / BaseChunk.CHUNK_X, chunk.getOriginZ() / BaseChunk.CHUNK_Z);
+            for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                    if (loaded.getBiome(x, z) != chunk.getBiome(x, z)) mismatches++;
+                    for (TintType type : TINT_TYPES) {
+                        if (loaded.getTint(type, x, z) != chunk.getTint(type, x, z)) mismatches++;
+                    }
+                }
+            }
+            loaded.release();
+        }
+        System.out.printf("Relecture : %d écarts, %.1f Kio par chunk écrit%n", mismatches,
+                (chunkIO.getBytesWritten() - bytesBefore) / 1024.0 / chunks.length);
+        System.out.printf("(somme de contrôle %.0f)%n", sink);
+        world.shutdown();
+        System.exit(mismatches == 0 && edgeMismatches == 0 ? 0 : 1);
+    }
+
+    // Moyenne arrondie des couleurs de biome du carré de 9x9 colonnes centré sur (x, z)
+    private static int expectedTint(World world, int x, int z, TintType type) {
+        int red = 0, green = 0, blue = 0;
+        for (int dz = -4; dz <= 4; dz++) {
+            for (int dx = -4; dx <= 4; dx++) {
+                int rgb = world.getBiomeAt(x + dx, z + dz).getTintRGB(type);
+                red += (rgb >> 16) & 0xFF;
+                green += (rgb >> 8) & 0xFF;
+                blue += rgb & 0xFF;
+            }
+        }
+        return ((red + 40) / 81) << 16 | ((green + 40) / 81) << 8 | (blue + 40) / 81;
+    }
+}
@@ -0,0 +1,81 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.World;
+
+import java.io.*;
+import java.util.BitSet;
+
+/**
+ * Débit de génération (chunks par seconde, un seul thread) et forme des caves creusées.
+ * Le masque des blocs d'air sous la surface, dans la tranche des caves, est écrit dans le fichier passé en
+ * argument ; si ce fichier existe déjà (produit par une autre version du générateur, même graine), le masque
+ * lui est comparé : proportion d'air de chaque côté et recouvrement (intersection sur union).
+ * Lancement : ./gradlew bench -Pbench=CaveBench [--args="caves.bin"]
+ */
+public class CaveBench {
+    private static final int SIDE = 8;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        World world = new World();
+        // Chauffe
+        for (int i = 0; i < SIDE * SIDE; i++) world.generateDetached(-50 - i % SIDE, -50 - i / SIDE, 1);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            world.getGenerator().resetStageTimes();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < SIDE * SIDE; i++) world.generateDetached(200 + round * SIDE + i % SIDE, 200 + i / SIDE, 1);
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("Génération : %.1f chunks/s (%.2f ms par chunk)%n",
+                    SIDE * SIDE / seconds, seconds * 1000 / (SIDE * SIDE));
+            System.out.println("  par étape : " + world.getGenerator().describeStageTimes());
+        }
+
+        int band = Values.MAX_CAVE_HEIGHT - Values.MIN_CAVE_HEIGHT;
+        int perChunk = BaseChunk.CHUNK_X * BaseChunk.CHUNK_Z * band;
+        BitSet air = new BitSet(SIDE * SIDE * perChunk);
+        BitSet underground = new BitSet(SIDE * SIDE * perChunk);
+        for (int i = 0; i < SIDE * SIDE; i++) {
+            BaseChunk chunk = world.generateDetached(i % SIDE, i / SIDE, 1);
+            for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                    int top = chunk.getHighestBlockY(x, z);
+                    for (int y = Values.MIN_CAVE_HEIGHT; y < Values.MAX_CAVE_HEIGHT && y < top; y++) {
+                        int bit = i * perChunk + ((x * BaseChunk.CHUNK_Z + z) * band + y - Values.MIN_CAVE_HEIGHT);
+                        underground.set(bit);
+                        if (chunk.getBlockId(x, y, z) == 0) air.set(bit);
+                    }
+                }
+            }
+        }
+        System.out.printf("Air sous la surface : %.2f %% de %d blocs%n",
+                100.0 * air.cardinality() / underground.cardinality(), underground.cardinality());
+
+        if (args.length > 0) {
+            File file = new File(args[0]);
+            if (file.exists()) {
+                BitSet reference;
+                try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    reference = (BitSet) in.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+                BitSet inter = (BitSet) air.clone();
+                inter.and(reference);
+                BitSet union = (BitSet) air.clone();
+                union.or(reference);
+                System.out.printf("Référence : %d blocs d'air, ici : %d ; recouvrement %.1f %%%n",
+                        reference.cardinality(), air.cardinality(), 100.0 * inter.cardinality() / union.cardinality());
+            } else {
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                    out.writeObject(air);
+                }
+                System.out.println("Masque écrit dans " + file);
+            }
+        }
+        world.shutdown();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,54 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.ChunkCache;
+import ovh.paulem.mc.world.World;
+
+/**
+ * Allers-retours du joueur de part et d'autre du rayon de conservation : chargements servis par le cache
+ * des chunks déchargés, chargements depuis le disque ou par génération, évictions et mémoire résidente.
+ * Budget réglable : ./gradlew bench -Pbench=ChunkCacheBench -Dmc.chunkCacheMB=64
+ */
+public class ChunkCacheBench {
+    private static final int DISTANCE_CHUNKS = 12;
+    private static final int ROUND_TRIPS = 3;
+    private static final int FRAMES_PER_CHUNK = 10;
+    private static final int SETTLE_FRAMES = 240;
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        for (int i = 0; i < SETTLE_FRAMES; i++) frame(world, 0);
+        ChunkCache cache = world.getChunkCache();
+        long hits0 = cache.getHits(), misses0 = cache.getMisses();
+
+        int steps = DISTANCE_CHUNKS * FRAMES_PER_CHUNK;
+        long t0 = System.nanoTime();
+        for (int trip = 0; trip < ROUND_TRIPS; trip++) {
+            for (int i = 0; i < 2 * steps; i++) {
+                frame(world, (i <= steps ? i : 2 * steps - i) * (float) BaseChunk.CHUNK_X / FRAMES_PER_CHUNK);
+            }
+        }
+        for (int i = 0; i < SETTLE_FRAMES; i++) frame(world, 0);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+
+        long hits = cache.getHits() - hits0, misses = cache.getMisses() - misses0;
+        long residentBytes = 0;
+        for (BaseChunk chunk : world.getReadyChunks()) residentBytes += ChunkCache.footprint(chunk);
+        System.out.printf("Budget : %d Mo, %d allers-retours de %d chunks en %.1f s%n",
+                Values.CHUNK_CACHE_BUDGET_BYTES >> 20, ROUND_TRIPS, DISTANCE_CHUNKS, seconds);
+        System.out.printf("Chargements : %d depuis le cache, %d depuis le disque ou générés (%.0f %% servis par le cache)%n",
+                hits, misses, 100.0 * hits / Math.max(1, hits + misses));
+        System.out.printf("Évictions : %d ; en mémoire : %d chunks publiés (%.1f Mo) + %d en cache (%.1f Mo)%n",
+                cache.getEvictions(), world.getReadyChunks().length, residentBytes / 1e6,
+                cache.getCachedChunks(), cache.getCachedBytes() / 1e6);
+
+        world.shutdown();
+        System.exit(0);
+    }
+
+    private static void frame(World world, float x) throws InterruptedException {
+        world.update(x, 16);
+        Thread.sleep(16);
+    }
+}
@@ -0,0 +1,91 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.Chunk;
+import ovh.paulem.mc.world.ChunkIndex;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Compare le coût d'une recherche de chunk par coordonnées monde :
+ * l'ancienne ConcurrentHashMap<Long, Future<BaseChunk>> (boxing + Future.get) contre le {@link ChunkIndex}.
+ * Les coordonnées suivent un motif proche d'un maillage (voisins d'un bloc dans la zone chargée).
+ * Lancement : ./gradlew bench -Pbench=ChunkIndexBench
+ */
+public class ChunkIndexBench {
+    private static final int LOOKUPS = 20_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int radius = Values.RENDER_RADIUS + 2;
+        Map<Long, Future<BaseChunk>> map = new ConcurrentHashMap<>();
+        ChunkIndex index = new ChunkIndex();
+        for (int cx = -radius; cx <= radius; cx++) {
+            for (int cz = -radius; cz <= radius; cz++) {
+                BaseChunk chunk = new Chunk(null, cx * BaseChunk.CHUNK_X, cz * BaseChunk.CHUNK_Z);
+                map.put(key(cx, cz), CompletableFuture.completedFuture(chunk));
+                index.put(cx, cz, chunk);
+            }
+        }
+
+        // Positions monde pré-tirées pour ne mesurer que la recherche
+        int extent = radius * BaseChunk.CHUNK_X;
+        int[] xs = new int[1 << 16];
+        int[] zs = new int[1 << 16];
+        Random random = new Random(42L);
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(2 * extent) - extent;
+            zs[i] = random.nextInt(2 * extent) - extent;
+        }
+
+        System.out.println("Chunks: " + index.size() + ", recherches par tour: " + LOOKUPS);
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            long sumMap = lookupMap(map, xs, zs);
+            long t1 = System.nanoTime();
+            long sumIndex = lookupIndex(index, xs, zs);
+            long t2 = System.nanoTime();
+            if (sumMap != sumIndex) throw new IllegalStateException("Résultats différents");
+            System.out.printf("Tour %d : ConcurrentHashMap %.2f ns/recherche, ChunkIndex %.2f ns/recherche%n",
+                    round, (t1 - t0) / (double) LOOKUPS, (t2 - t1) / (double) LOOKUPS);
+        }
+    }
+
+    private static long key(int cx, int cz) {
+        return (((long) cx) << 32) ^ (cz & 0xffffffffL);
+    }
+
+    // Reproduit l'ancien chemin de World.getBlock / isOccluding
+    private static long lookupMap(Map<Long, Future<BaseChunk>> map, int[] xs, int[] zs) {
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int j = i & (xs.length - 1);
+            int cx = Math.floorDiv(xs[j], Chunk.CHUNK_X);
+            int cz = Math.floorDiv(zs[j], Chunk.CHUNK_Z);
+            Future<BaseChunk> f = map.get(key(cx, cz));
+            if (f == null) continue;
+            try {
+                BaseChunk c = f.get();
+                if (c != null) sum += c.getOriginX();
+            } catch (Exception e) {
+                // ignoré, comme dans World
+            }
+        }
+        return sum;
+    }
+
+    private static long lookupIndex(ChunkIndex index, int[] xs, int[] zs) {
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int j = i & (xs.length - 1);
+            BaseChunk c = index.get(xs[j] >> Chunk.CHUNK_SHIFT, zs[j] >> Chunk.CHUNK_SHIFT);
+            if (c != null) sum += c.getOriginX();
+        }
+        return sum;
+    }
+}
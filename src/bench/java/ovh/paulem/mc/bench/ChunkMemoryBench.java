@@ -0,0 +1,66 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.math.PerlinNoise;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.Chunk;
+import ovh.paulem.mc.world.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mesure la mémoire occupée par chunk chargé (stockage par sections palettisées)
+ * comparée aux anciens tableaux plats (1 octet par bloc + 1 nibble de lumière).
+ * Lancement : ./gradlew bench -Pbench=ChunkMemoryBench
+ */
+public class ChunkMemoryBench {
+    private static final long FLAT_BYTES = (long) BaseChunk.CHUNK_X * BaseChunk.CHUNK_Y * BaseChunk.CHUNK_Z
+            + (BaseChunk.CHUNK_X * BaseChunk.CHUNK_Y * BaseChunk.CHUNK_Z + 1) / 2;
+
+    public static void main(String[] args) {
+        int radius = args.length > 0 ? Integer.parseInt(args[0]) : Values.RENDER_RADIUS;
+        PerlinNoise noise = new PerlinNoise(42L);
+
+        long heapBefore = usedHeap();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int cx = -radius; cx <= radius; cx++) {
+            for (int cz = -radius; cz <= radius; cz++) {
+                chunks.add(buildTypicalChunk(noise, cx, cz));
+            }
+        }
+        long heapAfter = usedHeap();
+
+        long estimated = 0;
+        for (Chunk chunk : chunks) estimated += chunk.estimateMemoryBytes();
+        int n = chunks.size();
+        System.out.println("Chunks: " + n);
+        System.out.printf("Tableaux plats      : %,d octets/chunk (%,.1f Mo au total)%n", FLAT_BYTES, FLAT_BYTES * n / 1048576.0);
+        System.out.printf("Sections (estimé)   : %,d octets/chunk (%,.1f Mo au total)%n", estimated / n, estimated / 1048576.0);
+        System.out.printf("Sections (tas mesuré): %,d octets/chunk%n", (heapAfter - heapBefore) / n);
+        System.out.printf("Économie            : %,d octets/chunk%n", FLAT_BYTES - estimated / n);
+    }
+
+    // Colonne typique de la génération : pierre, 3 couches de terre, herbe puis air
+    private static Chunk buildTypicalChunk(PerlinNoise noise, int cx, int cz) {
+        Chunk chunk = new Chunk(null, cx * BaseChunk.CHUNK_X, cz * BaseChunk.CHUNK_Z);
+        for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+            for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                double n = noise.noise((chunk.getOriginX() + x) * 0.05, (chunk.getOriginZ() + z) * 0.05);
+                int h = (int) ((n + 1.0) * 0.5 * 48.0 + 40.0);
+                for (int y = 0; y <= h; y++) {
+                    if (y == h) chunk.setBlock(x, y, z, Blocks.GRASS_BLOCK);
+                    else if (y > h - 4) chunk.setBlock(x, y, z, Blocks.DIRT);
+                    else chunk.setBlock(x, y, z, Blocks.STONE);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
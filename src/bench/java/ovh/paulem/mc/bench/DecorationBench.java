@@ -0,0 +1,85 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Génération d'une région avec ses arbres (qui débordent d'un chunk à l'autre), deux fois depuis un monde neuf :
+ * sur un thread ligne par ligne, puis sur tous les cœurs dans un ordre mélangé. Les deux passes doivent donner
+ * des chunks identiques, bloc pour bloc.
+ * Lancement : ./gradlew bench -Pbench=DecorationBench
+ */
+public class DecorationBench {
+    private static final int SIDE = 8;
+    private static final int ORIGIN = 300;
+
+    public static void main(String[] args) throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        List<Integer> rowOrder = new ArrayList<>();
+        for (int i = 0; i < SIDE * SIDE; i++) rowOrder.add(i);
+        List<Integer> shuffled = new ArrayList<>(rowOrder);
+        Collections.shuffle(shuffled, new Random(42));
+
+        long[] sequential = run("1 thread, ligne par ligne", 1, rowOrder);
+        long[] parallel = run(threads + " threads, ordre mélangé", threads, shuffled);
+
+        int same = 0;
+        for (int i = 0; i < sequential.length; i++) {
+            if (sequential[i] == parallel[i]) same++;
+        }
+        System.out.printf("Chunks identiques : %d / %d%n", same, sequential.length);
+        System.exit(same == sequential.length ? 0 : 1);
+    }
+
+    // Empreinte de chaque chunk de la région, indexée comme l'ordre ligne par ligne
+    private static long[] run(String label, int threads, List<Integer> order) throws Exception {
+        World world = new World();
+        // Chauffe, hors de la région mesurée
+        for (int i = 0; i < SIDE; i++) world.generateDetached(-ORIGIN - i, -ORIGIN, 1);
+        world.getGenerator().resetStageTimes();
+
+        BaseChunk[] chunks = new BaseChunk[SIDE * SIDE];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long t0 = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i : order) {
+            futures.add(pool.submit(() -> {
+                chunks[i] = world.generateDetached(ORIGIN + i % SIDE, ORIGIN + i / SIDE, 1);
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+
+        long[] hashes = new long[chunks.length];
+        long logs = 0;
+        long leaves = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            long h = 1;
+            for (int y = 0; y < BaseChunk.CHUNK_Y; y++) {
+                for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                    for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                        byte id = chunks[i].getBlockId(x, y, z);
+                        h = h * 31 + id;
+                        if (id == Blocks.LOG.getId()) logs++;
+                        else if (id == Blocks.LEAVES.getId()) leaves++;
+                    }
+                }
+            }
+            hashes[i] = h;
+        }
+        System.out.printf("%s : %.1f chunks/s, %d troncs, %d feuilles%n", label, chunks.length / seconds, logs, leaves);
+        System.out.println("  par étape : " + world.getGenerator().describeStageTimes());
+        world.shutdown();
+        return hashes;
+    }
+}
@@ -0,0 +1,61 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.ChunkListener;
+import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.block.Blocks;
+import ovh.paulem.mc.world.block.types.Block;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remplit un cube de 64x64x64 blocs (à cheval sur 9 chunks) puis le vide, d'abord bloc par bloc avec
+ * World.setBlock, puis avec World.fill. Affiche le temps d'édition et le nombre de notifications
+ * « chunk modifié » (chacune déclenche un remaillage côté rendu).
+ * Lancement : ./gradlew bench -Pbench=FillBench
+ */
+public class FillBench {
+    private static final int SIZE = 64;
+    private static final int X0 = 16, Y0 = 120, Z0 = 16;
+
+    public static void main(String[] args) {
+        World world = new World();
+        for (int cx = -1; cx <= 3; cx++) {
+            for (int cz = -1; cz <= 3; cz++) {
+                world.update(X0 + SIZE / 2f, Z0 + SIZE / 2f);
+                world.awaitChunk(cx, cz);
+            }
+        }
+        AtomicInteger changed = new AtomicInteger();
+        world.addChunkListener(new ChunkListener() {
+            @Override
+            public void onChunkChanged(BaseChunk chunk) {
+                changed.incrementAndGet();
+            }
+        });
+
+        for (int round = 0; round < 3; round++) {
+            for (Block block : new Block[]{Blocks.STONE, Blocks.AIR}) {
+                changed.set(0);
+                long t0 = System.nanoTime();
+                for (int y = Y0; y < Y0 + SIZE; y++)
+                    for (int z = Z0; z < Z0 + SIZE; z++)
+                        for (int x = X0; x < X0 + SIZE; x++)
+                            world.setBlock(x, y, z, block);
+                long t1 = System.nanoTime();
+                System.out.printf("Tour %d, setBlock %-5s : %7.1f ms, %,d notifications%n",
+                        round, block.getName(), (t1 - t0) / 1e6, changed.get());
+            }
+            for (Block block : new Block[]{Blocks.STONE, Blocks.AIR}) {
+                changed.set(0);
+                long t0 = System.nanoTime();
+                int count = world.fill(X0, Y0, Z0, X0 + SIZE - 1, Y0 + SIZE - 1, Z0 + SIZE - 1, block);
+                long t1 = System.nanoTime();
+                System.out.printf("Tour %d, fill     %-5s : %7.1f ms, %,d notifications (%,d blocs)%n",
+                        round, block.getName(), (t1 - t0) / 1e6, changed.get(), count);
+            }
+        }
+        world.shutdown();
+        System.exit(0);
+    }
+}
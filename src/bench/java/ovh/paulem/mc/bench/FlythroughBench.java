@@ -0,0 +1,78 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.SlabPool;
+import ovh.paulem.mc.world.World;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Vol en ligne droite à vitesse constante (chargements, générations, éclairages et déchargements en continu) :
+ * pauses du GC, débit d'allocation sur le tas et état de la réserve de slabs hors tas.
+ * Comparer les deux stockages des sections :
+ * ./gradlew bench -Pbench=FlythroughBench
+ * ./gradlew bench -Pbench=FlythroughBench -Dmc.offHeapChunks=true
+ */
+public class FlythroughBench {
+    private static final int DISTANCE_CHUNKS = 40;
+    private static final int FRAMES_PER_CHUNK = 10;
+    private static final int SETTLE_FRAMES = 240;
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        for (int i = 0; i < SETTLE_FRAMES; i++) frame(world, 0);
+
+        long gcCount0 = gcCount(), gcMillis0 = gcMillis();
+        long allocated0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        int frames = DISTANCE_CHUNKS * FRAMES_PER_CHUNK;
+        for (int i = 0; i <= frames; i++) {
+            frame(world, i * (float) BaseChunk.CHUNK_X / FRAMES_PER_CHUNK);
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        long allocated = allocatedBytes() - allocated0;
+
+        System.out.printf("Stockage : %s, vol de %d chunks en %.1f s%n",
+                Values.OFF_HEAP_CHUNKS ? "hors tas (slabs)" : "tas", DISTANCE_CHUNKS, seconds);
+        System.out.printf("Changements de LoD : %d%n", world.getLodTransitionCount());
+        System.out.printf("GC : %d collections, %d ms de pause cumulée%n",
+                gcCount() - gcCount0, gcMillis() - gcMillis0);
+        System.out.printf("Allocation sur le tas : %.1f Mo/s (%.0f Mo au total)%n",
+                allocated / 1e6 / seconds, allocated / 1e6);
+        SlabPool pool = SlabPool.SHARED;
+        System.out.printf("Slabs : %d allouées, %d réutilisées, %.1f Mo prêtés, %.1f Mo en réserve%n",
+                pool.getAllocatedSlabs(), pool.getReusedSlabs(), pool.getLiveBytes() / 1e6, pool.getPooledBytes() / 1e6);
+
+        world.shutdown();
+        System.exit(0);
+    }
+
+    private static void frame(World world, float x) throws InterruptedException {
+        world.update(x, 16);
+        Thread.sleep(16);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += gc.getCollectionCount();
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) millis += gc.getCollectionTime();
+        return millis;
+    }
+
+    // Octets alloués sur le tas par tous les threads vivants (générateurs, lumière, sauvegarde compris)
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,72 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.engine.render.Render;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.World;
+
+/**
+ * Mémoire (stockage des blocs et heightmaps) et sommets par anneau de LoD pour un rayon de 32 chunks, estimés sur un
+ * échantillon de chunks de chaque anneau générés hors du monde, et comparés au seul niveau 2 d'avant.
+ * Les chunks sont maillés isolés : les faces de bordure sont comptées, comme si les voisins manquaient.
+ * Lancement : ./gradlew bench -Pbench=LodBench
+ */
+public class LodBench {
+    private static final int RADIUS = 32;
+    private static final int SAMPLES_PER_RING = 12;
+
+    public static void main(String[] args) {
+        World world = new World();
+        Render render = new Render();
+        render.setWorld(world);
+
+        int[] factors = {1, 2, 4, 8, 16};
+        long totalBytes = 0, totalVertices = 0, flatBytes = 0, flatVertices = 0;
+        for (int factor : factors) {
+            // Chunks du disque de rayon RADIUS qui tombent dans cet anneau
+            int count = 0, innerSq = Integer.MAX_VALUE, outerSq = 0;
+            for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+                for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+                    int dsq = dx * dx + dz * dz;
+                    if (dsq > RADIUS * RADIUS || World.lodFactorFor(dx, dz) != factor) continue;
+                    count++;
+                    innerSq = Math.min(innerSq, dsq);
+                    outerSq = Math.max(outerSq, dsq);
+                }
+            }
+            if (count == 0) continue;
+            // Échantillon réparti autour de l'anneau, à mi-rayon
+            double r = (Math.sqrt(innerSq) + Math.sqrt(outerSq)) * 0.5;
+            long bytes = 0, vertices = 0, baseBytes = 0, baseVertices = 0, nanos = 0;
+            for (int i = 0; i < SAMPLES_PER_RING; i++) {
+                double angle = 2 * Math.PI * i / SAMPLES_PER_RING;
+                int cx = (int) Math.round(r * Math.cos(angle));
+                int cz = (int) Math.round(r * Math.sin(angle));
+                long t0 = System.nanoTime();
+                BaseChunk chunk = world.generateDetached(cx, cz, factor);
+                nanos += System.nanoTime() - t0;
+                bytes += chunk.estimateMemoryBytes() + chunk.estimateHeightmapBytes();
+                vertices += factor == 1 ? render.buildSectionMeshData(chunk, BaseChunk.ALL_SECTIONS) : render.buildGreedyMeshData(chunk);
+                if (factor > Values.LOD_LEVELS[0]) {
+                    // Avant : tous les chunks lointains au facteur 2
+                    BaseChunk base = world.generateDetached(cx, cz, Values.LOD_LEVELS[0]);
+                    baseBytes += base.estimateMemoryBytes() + base.estimateHeightmapBytes();
+                    baseVertices += render.buildGreedyMeshData(base);
+                }
+            }
+            long ringBytes = bytes * count / SAMPLES_PER_RING;
+            long ringVertices = vertices * count / SAMPLES_PER_RING;
+            totalBytes += ringBytes;
+            totalVertices += ringVertices;
+            flatBytes += baseBytes == 0 ? ringBytes : baseBytes * count / SAMPLES_PER_RING;
+            flatVertices += baseVertices == 0 ? ringVertices : baseVertices * count / SAMPLES_PER_RING;
+            System.out.printf("Facteur %2d : %4d chunks, %8.1f Kio/chunk, %7.0f sommets/chunk, génération %5.2f ms/chunk -> anneau %8.1f Mio, %,11d sommets%n",
+                    factor, count, bytes / 1024.0 / SAMPLES_PER_RING, vertices / (double) SAMPLES_PER_RING,
+                    nanos / 1e6 / SAMPLES_PER_RING, ringBytes / 1048576.0, ringVertices);
+        }
+        System.out.printf("Total rayon %d : %.1f Mio, %,d sommets (facteur 2 partout : %.1f Mio, %,d sommets)%n",
+                RADIUS, totalBytes / 1048576.0, totalVertices, flatBytes / 1048576.0, flatVertices);
+        world.shutdown();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,69 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.World;
+
+import java.util.Arrays;
+
+/**
+ * Déplacement du joueur en ligne droite puis retour : changements de niveau de détail appliqués, durée de
+ * World.update() sur le thread principal, et chunks proches encore à résolution réduite une fois le joueur arrêté.
+ * Lancement : ./gradlew bench -Pbench=LodTransitionBench
+ */
+public class LodTransitionBench {
+    private static final int DISTANCE_CHUNKS = 12;
+    private static final int FRAMES_PER_CHUNK = 20;
+    private static final int SETTLE_FRAMES = 120;
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        frames(world, 0, SETTLE_FRAMES * 4);
+
+        long t0 = System.nanoTime();
+        // Aller puis retour à vitesse constante (un chunk toutes les FRAMES_PER_CHUNK frames de 16 ms)
+        int steps = DISTANCE_CHUNKS * FRAMES_PER_CHUNK;
+        int frames = 2 * steps + 1;
+        double[] updateMs = new double[frames];
+        for (int i = 0; i < frames; i++) {
+            float x = (i <= steps ? i : 2 * steps - i) * (float) BaseChunk.CHUNK_X / FRAMES_PER_CHUNK;
+            updateMs[i] = frame(world, x);
+        }
+        Arrays.sort(updateMs);
+        double walkSeconds = (System.nanoTime() - t0) / 1e9;
+        long walked = world.getLodTransitionCount();
+        frames(world, 0, SETTLE_FRAMES);
+
+        System.out.printf("Trajet : %d frames en %.1f s, update() médiane %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                frames, walkSeconds, updateMs[frames / 2], updateMs[frames * 99 / 100], updateMs[frames - 1]);
+        System.out.printf("Changements de LoD : %d pendant le trajet, %d après l'arrêt%n",
+                walked, world.getLodTransitionCount() - walked);
+        // Plus fins que leur anneau : marge avant réduction ; plus grossiers : chunks restés en LoD à tort
+        int coarser = 0, finer = 0, total = 0;
+        for (BaseChunk chunk : world.getReadyChunks()) {
+            int dx = Math.floorDiv(chunk.getOriginX(), BaseChunk.CHUNK_X);
+            int dz = Math.floorDiv(chunk.getOriginZ(), BaseChunk.CHUNK_Z);
+            int target = World.lodFactorFor(dx, dz);
+            total++;
+            if (chunk.getLodFactor() > target) coarser++;
+            if (chunk.getLodFactor() < target) finer++;
+        }
+        System.out.printf("Après l'arrêt : %d chunks, %d plus grossiers que leur anneau, %d plus fins (marge)%n",
+                total, coarser, finer);
+
+        world.shutdown();
+        System.exit(0);
+    }
+
+    private static void frames(World world, float x, int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) frame(world, x);
+    }
+
+    // Une frame de 16 ms : renvoie la durée de update() en millisecondes
+    private static double frame(World world, float x) throws InterruptedException {
+        long t0 = System.nanoTime();
+        world.update(x, 16);
+        double ms = (System.nanoTime() - t0) / 1e6;
+        Thread.sleep(16);
+        return ms;
+    }
+}
@@ -0,0 +1,88 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.math.PerlinNoise;
+import ovh.paulem.mc.world.World;
+
+/**
+ * Bruit de Perlin point par point contre les remplissages par grille (fill2D / fill3D), sur les grilles
+ * qu'utilise la génération : écart maximal entre les deux (doit être nul) et temps par échantillon.
+ * Puis temps de génération d'un chunk complet.
+ * L'implémentation du gradient est fixée pour toute la JVM : comparer les deux avec
+ * ./gradlew bench -Pbench=NoiseBench -Dmc.noise=scalar
+ * ./gradlew bench -Pbench=NoiseBench -Dmc.noise=branchless
+ */
+public class NoiseBench {
+    private static final int ROUNDS = 5;
+    private static final long TARGET_SAMPLES = 20_000_000L;
+    private static final int GENERATED_CHUNKS = 64;
+
+    public static void main(String[] args) {
+        PerlinNoise noise = new PerlinNoise(12345L);
+        System.out.println("Gradient : " + PerlinNoise.getBackend());
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("--- Tour %d%n", round);
+            grid2D(noise, "Biome 34x34 (pas 0.003)", 0.003, 34, 34);
+            grid2D(noise, "Plancher 32x32 (pas 0.8)", 0.8, 32, 32);
+            grid3D(noise, "Colonne de cave 1x58x1", 1, 58, 1, 0.05);
+            grid3D(noise, "Bloc 32x64x32 (pas 0.05)", 32, 64, 32, 0.05);
+        }
+
+        World world = new World();
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < GENERATED_CHUNKS; i++) world.generateDetached(100 + i, 100 + round, 1);
+            double millis = (System.nanoTime() - t0) / 1e6 / GENERATED_CHUNKS;
+            System.out.printf("Génération : %.2f ms par chunk (%.0f chunks/s)%n", millis, 1000 / millis);
+        }
+        world.shutdown();
+        System.exit(0);
+    }
+
+    private static void grid2D(PerlinNoise noise, String label, double step, int countX, int countY) {
+        double x0 = -517.3, y0 = 211.9;
+        double[] points = new double[countX * countY];
+        double[] grid = new double[countX * countY];
+        int repeats = (int) Math.max(1, TARGET_SAMPLES / points.length);
+
+        long t0 = System.nanoTime();
+        for (int r = 0; r < repeats; r++) {
+            for (int j = 0; j < countY; j++) {
+                for (int i = 0; i < countX; i++) points[j * countX + i] = noise.noise(x0 + i * step, y0 + j * step);
+            }
+        }
+        long t1 = System.nanoTime();
+        for (int r = 0; r < repeats; r++) noise.fill2D(grid, x0, y0, step, countX, countY);
+        long t2 = System.nanoTime();
+        report(label, points, grid, (double) repeats * points.length, t1 - t0, t2 - t1);
+    }
+
+    private static void grid3D(PerlinNoise noise, String label, int countX, int countY, int countZ, double step) {
+        double x0 = 73.1, y0 = 0.1, z0 = -29.7;
+        double[] points = new double[countX * countY * countZ];
+        double[] grid = new double[points.length];
+        int repeats = (int) Math.max(1, TARGET_SAMPLES / points.length);
+
+        long t0 = System.nanoTime();
+        for (int r = 0; r < repeats; r++) {
+            for (int k = 0; k < countZ; k++) {
+                for (int j = 0; j < countY; j++) {
+                    for (int i = 0; i < countX; i++) {
+                        points[(k * countY + j) * countX + i] = noise.noise(x0 + i * step, y0 + j * step, z0 + k * step);
+                    }
+                }
+            }
+        }
+        long t1 = System.nanoTime();
+        for (int r = 0; r < repeats; r++) noise.fill3D(grid, x0, y0, z0, step, step, step, countX, countY, countZ);
+        long t2 = System.nanoTime();
+        report(label, points, grid, (double) repeats * points.length, t1 - t0, t2 - t1);
+    }
+
+    private static void report(String label, double[] points, double[] grid, double samples, long pointNanos, long gridNanos) {
+        double maxDiff = 0;
+        for (int i = 0; i < points.length; i++) maxDiff = Math.max(maxDiff, Math.abs(points[i] - grid[i]));
+        System.out.printf("%-26s : point %5.2f ns (%5.1f M/s), grille %5.2f ns (%5.1f M/s, x%.1f), écart max %.1e%n", label,
+                pointNanos / samples, samples * 1e3 / pointNanos, gridNanos / samples, samples * 1e3 / gridNanos,
+                (double) pointNanos / gridNanos, maxDiff);
+    }
+}
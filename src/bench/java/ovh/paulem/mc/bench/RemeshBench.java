@@ -0,0 +1,99 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.engine.render.Render;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.block.Blocks;
+import ovh.paulem.mc.world.block.types.Block;
+
+/**
+ * Coût CPU du remaillage après la casse / la pose d'un bloc en surface (sans upload GPU) :
+ * sections dont la version a changé, avant puis après le recalcul de la lumière, comparé au
+ * remaillage du chunk entier (et du voisin pour un bloc en bordure) fait auparavant.
+ * Lancement : ./gradlew bench -Pbench=RemeshBench
+ */
+public class RemeshBench {
+    private static final int EDITS = 40;
+    private static final int WARMUP = 20;
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        for (int cx = -2; cx <= 2; cx++) {
+            for (int cz = -2; cz <= 2; cz++) {
+                world.update(16, 16);
+                world.awaitChunk(cx, cz);
+            }
+        }
+        // Laisse l'éclairage initial se terminer
+        for (int i = 0; i < 30; i++) {
+            world.update(16, 16);
+            Thread.sleep(16);
+        }
+        Render render = new Render();
+        render.setWorld(world);
+        BaseChunk chunk = world.getChunk(0, 0);
+        BaseChunk west = world.getChunk(-1, 0);
+
+        for (int i = 0; i < WARMUP; i++) render.buildSectionMeshData(chunk, BaseChunk.ALL_SECTIONS);
+        long t0 = System.nanoTime();
+        int fullVertices = 0;
+        for (int i = 0; i < WARMUP; i++) fullVertices = render.buildSectionMeshData(chunk, BaseChunk.ALL_SECTIONS);
+        double fullMs = (System.nanoTime() - t0) / 1e6 / WARMUP;
+        System.out.printf("Chunk entier            : %6.2f ms, %,d sommets%n", fullMs, fullVertices);
+
+        run(world, render, chunk, null, 16, 16, "Bloc au centre", fullMs);
+        run(world, render, chunk, west, 0, 16, "Bloc en bordure", 2 * fullMs);
+
+        world.shutdown();
+        System.exit(0);
+    }
+
+    private static void run(World world, Render render, BaseChunk chunk, BaseChunk neighbour,
+                            int localX, int localZ, String label, double oldMs) throws InterruptedException {
+        int x = chunk.getOriginX() + localX;
+        int z = chunk.getOriginZ() + localZ;
+        int y = world.getSurfaceY(x, z);
+        Block original = world.getBlock(x, y, z);
+        long editNanos = 0, lightNanos = 0;
+        int editSections = 0, lightSections = 0;
+        for (int i = 0; i < EDITS; i++) {
+            int[] before = versions(chunk, neighbour);
+            long t0 = System.nanoTime();
+            world.setBlock(x, y, z, i % 2 == 0 ? Blocks.AIR : original);
+            int[] afterEdit = versions(chunk, neighbour);
+            editSections += remesh(render, chunk, neighbour, before, afterEdit);
+            editNanos += System.nanoTime() - t0;
+
+            // Recalcul de la lumière (asynchrone) puis remaillage des sections qu'il a invalidées
+            world.getLightEngine().processLightQueue();
+            Thread.sleep(40);
+            long t1 = System.nanoTime();
+            lightSections += remesh(render, chunk, neighbour, afterEdit, versions(chunk, neighbour));
+            lightNanos += System.nanoTime() - t1;
+        }
+        System.out.printf("%-16s : édition %5.2f ms (%.1f sections), lumière %5.2f ms (%.1f sections), avant : %6.2f ms%n",
+                label, editNanos / 1e6 / EDITS, editSections / (double) EDITS,
+                lightNanos / 1e6 / EDITS, lightSections / (double) EDITS, oldMs);
+    }
+
+    // Versions des sections du chunk puis de son voisin
+    private static int[] versions(BaseChunk chunk, BaseChunk neighbour) {
+        int[] out = new int[2 * BaseChunk.SECTION_COUNT];
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            out[sy] = chunk.getSectionVersion(sy);
+            if (neighbour != null) out[BaseChunk.SECTION_COUNT + sy] = neighbour.getSectionVersion(sy);
+        }
+        return out;
+    }
+
+    private static int remesh(Render render, BaseChunk chunk, BaseChunk neighbour, int[] before, int[] after) {
+        int own = 0, other = 0;
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            if (before[sy] != after[sy]) own |= 1 << sy;
+            if (before[BaseChunk.SECTION_COUNT + sy] != after[BaseChunk.SECTION_COUNT + sy]) other |= 1 << sy;
+        }
+        if (own != 0) render.buildSectionMeshData(chunk, own);
+        if (other != 0) render.buildSectionMeshData(neighbour, other);
+        return Integer.bitCount(own) + Integer.bitCount(other);
+    }
+}
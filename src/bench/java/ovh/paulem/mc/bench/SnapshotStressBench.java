@@ -0,0 +1,129 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.Chunk;
+import ovh.paulem.mc.world.ChunkSection;
+import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.block.Blocks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lectures concurrentes d'un chunk pendant des éditions : le thread principal réécrit sans arrêt une section
+ * bloc par bloc (un id et un niveau de lumière par passe, la palette grandit d'une passe à l'autre) et prend
+ * un instantané entre deux passes. Des workers vérifient que chaque instantané ne contient qu'une passe ;
+ * un autre lit le chunk vivant pour comparaison. Mesure aussi le coût d'un instantané et de la recopie qui suit.
+ * Lancement : ./gradlew bench -Pbench=SnapshotStressBench
+ */
+public class SnapshotStressBench {
+    private static final long DURATION_MILLIS = 4000;
+    private static final int READERS = 3;
+    private static final int SECTION = 2;
+    private static final int COST_ITERATIONS = 100_000;
+    private static final byte[] IDS = {
+            (byte) Blocks.STONE.getId(), (byte) Blocks.DIRT.getId(), (byte) Blocks.GRASS_BLOCK.getId(),
+            (byte) Blocks.LOG.getId(), (byte) Blocks.LEAVES.getId()
+    };
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        Chunk chunk = new Chunk(world, 0, 0);
+        BlockingQueue<BaseChunk> snapshots = new ArrayBlockingQueue<>(64);
+        AtomicLong checked = new AtomicLong();
+        AtomicLong torn = new AtomicLong();
+        AtomicLong liveReads = new AtomicLong();
+        AtomicLong liveTorn = new AtomicLong();
+        running = true;
+
+        Thread[] readers = new Thread[READERS];
+        for (int i = 0; i < READERS; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    while (running || !snapshots.isEmpty()) {
+                        BaseChunk view = snapshots.poll(10, TimeUnit.MILLISECONDS);
+                        if (view == null) continue;
+                        if (!isConsistent(view)) torn.incrementAndGet();
+                        checked.incrementAndGet();
+                        view.release();
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+            readers[i].start();
+        }
+        Thread live = new Thread(() -> {
+            while (running) {
+                if (!isConsistent(chunk)) liveTorn.incrementAndGet();
+                liveReads.incrementAndGet();
+            }
+        });
+        live.start();
+
+        long passes = 0;
+        long end = System.currentTimeMillis() + DURATION_MILLIS;
+        while (System.currentTimeMillis() < end) {
+            byte id = IDS[(int) (passes % IDS.length)];
+            byte light = (byte) (passes % 16);
+            int minY = SECTION * ChunkSection.SECTION_HEIGHT;
+            for (int y = minY; y < minY + ChunkSection.SECTION_HEIGHT; y++) {
+                for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                    for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                        chunk.setBlockId(x, y, z, id);
+                        chunk.setLightLevel(x, y, z, light);
+                    }
+                }
+            }
+            BaseChunk view = chunk.snapshot();
+            passes++;
+            // Lecteurs en retard : l'instantané le plus ancien est abandonné
+            while (!snapshots.offer(view)) {
+                BaseChunk dropped = snapshots.poll();
+                if (dropped != null) dropped.release();
+            }
+        }
+        running = false;
+        for (Thread reader : readers) reader.join();
+        live.join();
+
+        System.out.printf("Passes d'écriture : %d (%d blocs chacune)%n", passes, ChunkSection.VOLUME);
+        System.out.printf("Instantanés vérifiés : %d, incohérents : %d%n", checked.get(), torn.get());
+        System.out.printf("Lectures du chunk vivant : %d, incohérentes : %d%n", liveReads.get(), liveTorn.get());
+
+        // Coût hors contention : instantané seul, puis instantané suivi d'une écriture (recopie d'une section)
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < COST_ITERATIONS; i++) chunk.snapshot().release();
+            long t1 = System.nanoTime();
+            for (int i = 0; i < COST_ITERATIONS; i++) {
+                chunk.snapshot().release();
+                chunk.setBlockId(1, SECTION * ChunkSection.SECTION_HEIGHT, 1, IDS[i % IDS.length]);
+            }
+            long t2 = System.nanoTime();
+            System.out.printf("Instantané : %.2f µs, instantané + écriture (recopie) : %.2f µs%n",
+                    (t1 - t0) / 1e3 / COST_ITERATIONS, (t2 - t1) / 1e3 / COST_ITERATIONS);
+        }
+
+        world.shutdown();
+        System.exit(torn.get() == 0 ? 0 : 1);
+    }
+
+    private static volatile boolean running;
+
+    // Tous les blocs et niveaux de lumière de la section viennent de la même passe
+    private static boolean isConsistent(BaseChunk chunk) {
+        int minY = SECTION * ChunkSection.SECTION_HEIGHT;
+        byte id = chunk.getBlockId(0, minY, 0);
+        byte light = chunk.getLightLevel(0, minY, 0);
+        for (int y = minY; y < minY + ChunkSection.SECTION_HEIGHT; y++) {
+            for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                    if (chunk.getBlockId(x, y, z) != id || chunk.getLightLevel(x, y, z) != light) return false;
+                }
+            }
+        }
+        return true;
+    }
+}
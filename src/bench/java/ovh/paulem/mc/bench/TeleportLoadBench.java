@@ -0,0 +1,56 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.world.ChunkLoadScheduler;
+import ovh.paulem.mc.world.World;
+
+/**
+ * Temps avant que tous les chunks à moins de 2 chunks du joueur soient prêts après une téléportation,
+ * avec une boucle principale simulée (World.update toutes les ~16 ms, sans rendu).
+ * Lancement : ./gradlew bench -Pbench=TeleportLoadBench
+ */
+public class TeleportLoadBench {
+    private static final int TELEPORTS = 5;
+    private static final int READY_RADIUS = 2;
+    private static final long FRAME_MS = 16;
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        waitReady(world, 0, 0);
+        for (int i = 1; i <= TELEPORTS; i++) {
+            float x = i * 4096f;
+            float z = -i * 2048f;
+            long t0 = System.nanoTime();
+            long worstFrame = waitReady(world, x, z);
+            System.out.printf("Téléportation %d : rayon %d prêt en %.0f ms (World : %d ms, pire World.update %.1f ms)%n",
+                    i, READY_RADIUS, (System.nanoTime() - t0) / 1e6, world.getLastTeleportReadyMillis(), worstFrame / 1e6);
+        }
+        ChunkLoadScheduler scheduler = world.getChunkScheduler();
+        System.out.printf("File de chargement : pic %d, abandonnées %d, refusées %d%n",
+                scheduler.getPeakQueueDepth(), scheduler.getDroppedCount(), scheduler.getRejectedCount());
+        world.shutdown();
+        System.exit(0);
+    }
+
+    // Boucle « frame » jusqu'à ce que le rayon soit prêt ; renvoie le pire temps de World.update
+    private static long waitReady(World world, float x, float z) throws InterruptedException {
+        int pcx = Math.floorDiv((int) Math.floor(x), 32);
+        int pcz = Math.floorDiv((int) Math.floor(z), 32);
+        long worst = 0;
+        while (true) {
+            long t0 = System.nanoTime();
+            world.update(x, z);
+            worst = Math.max(worst, System.nanoTime() - t0);
+            if (isReady(world, pcx, pcz)) return worst;
+            Thread.sleep(FRAME_MS);
+        }
+    }
+
+    private static boolean isReady(World world, int pcx, int pcz) {
+        for (int dx = -READY_RADIUS; dx <= READY_RADIUS; dx++) {
+            for (int dz = -READY_RADIUS; dz <= READY_RADIUS; dz++) {
+                if (world.getChunk(pcx + dx, pcz + dz) == null) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package ovh.paulem.mc.bench;
+
+import org.joml.Vector3f;
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.engine.Player;
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.WorldCursor;
+
+/**
+ * Mesure les requêtes de blocs des boucles chaudes sur un vrai monde généré (sans rendu) :
+ * - le motif du maillage (6 voisins de chaque bloc non-air des chunks proches) via World.isOccluding
+ *   puis via un {@link WorldCursor} ;
+ * - un pas de physique complet (Player.simulate) en marchant autour du point d'apparition.
+ * Lancement : ./gradlew bench -Pbench=WorldAccessBench
+ */
+public class WorldAccessBench {
+    private static final int[][] DIRECTIONS = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+    private static final int ROUNDS = 5;
+    private static final int PHYSICS_STEPS = 200_000;
+
+    public static void main(String[] args) {
+        World world = new World();
+        int radius = Values.LOD_NEAR_RADIUS;
+        world.update(0, 0);
+        for (int cx = -radius; cx <= radius; cx++) {
+            for (int cz = -radius; cz <= radius; cz++) {
+                world.awaitChunk(cx, cz);
+            }
+        }
+
+        WorldCursor cursor = new WorldCursor(world);
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            long viaWorld = meshQueries(world, null, radius);
+            long t1 = System.nanoTime();
+            long viaCursor = meshQueries(world, cursor, radius);
+            long t2 = System.nanoTime();
+            if (viaWorld != viaCursor) throw new IllegalStateException("Résultats différents");
+            System.out.printf("Maillage tour %d : World %.2f ms, WorldCursor %.2f ms (%,d faces visibles)%n",
+                    round, (t1 - t0) / 1e6, (t2 - t1) / 1e6, viaWorld);
+        }
+
+        int spawnY = world.getSurfaceY(8, 8);
+        for (int round = 0; round < ROUNDS; round++) {
+            Player.State state = new Player.State(new Vector3f(8.5f, spawnY + 1, 8.5f), new Vector3f(), true);
+            Vector3f wish = new Vector3f();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < PHYSICS_STEPS; i++) {
+                double angle = i * 0.001;
+                wish.set((float) Math.cos(angle), 0, (float) Math.sin(angle));
+                state = Player.simulate(world, 1f / 60f, wish, (i & 63) == 0, state);
+            }
+            long t1 = System.nanoTime();
+            System.out.printf("Physique tour %d : %.1f ns/pas (position finale %.1f, %.1f, %.1f)%n",
+                    round, (t1 - t0) / (double) PHYSICS_STEPS, state.position.x, state.position.y, state.position.z);
+        }
+
+        world.shutdown();
+        System.exit(0);
+    }
+
+    // Reproduit le test de visibilité des faces des meshers
+    private static long meshQueries(World world, WorldCursor cursor, int radius) {
+        long visible = 0;
+        for (int cx = -radius; cx <= radius; cx++) {
+            for (int cz = -radius; cz <= radius; cz++) {
+                BaseChunk chunk = world.getChunk(cx, cz);
+                if (chunk == null) continue;
+                for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                    for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                        int top = chunk.getHighestBlockY(x, z);
+                        for (int y = 0; y <= top; y++) {
+                            if (chunk.getBlockId(x, y, z) == 0) continue;
+                            int wx = chunk.getOriginX() + x;
+                            int wz = chunk.getOriginZ() + z;
+                            for (int[] d : DIRECTIONS) {
+                                boolean occluded = cursor != null
+                                        ? cursor.isOccluding(wx + d[0], y + d[1], wz + d[2])
+                                        : world.isOccluding(wx + d[0], y + d[1], wz + d[2]);
+                                if (!occluded) visible++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return visible;
+    }
+}
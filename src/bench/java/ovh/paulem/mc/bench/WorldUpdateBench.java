@@ -0,0 +1,55 @@
+package ovh.paulem.mc.bench;
+
+import ovh.paulem.mc.world.World;
+
+/**
+ * Coût de World.update par frame, sans rendu : joueur immobile une fois la zone chargée,
+ * puis vol en ligne droite (environ 40 blocs/s à 60 images/s).
+ * Lancement : ./gradlew bench -Pbench=WorldUpdateBench
+ */
+public class WorldUpdateBench {
+    private static final int IDLE_FRAMES = 300;
+    private static final int FLY_FRAMES = 900;
+    private static final float FLY_SPEED_PER_FRAME = 0.66f;
+    private static final long FRAME_MS = 16;
+
+    public static void main(String[] args) throws Exception {
+        World world = new World();
+        // Laisse la zone de départ se charger entièrement
+        for (int i = 0; i < 600 && (i < 60 || world.getPendingChunkLoads() > 0); i++) {
+            world.update(0, 0);
+            Thread.sleep(FRAME_MS);
+        }
+
+        long total = 0;
+        long worst = 0;
+        for (int i = 0; i < IDLE_FRAMES; i++) {
+            long t0 = System.nanoTime();
+            world.update(0, 0);
+            long dt = System.nanoTime() - t0;
+            total += dt;
+            worst = Math.max(worst, dt);
+            Thread.sleep(FRAME_MS);
+        }
+        System.out.printf("Immobile : %.3f ms/frame en moyenne, pire %.3f ms (%d chunks)%n",
+                total / 1e6 / IDLE_FRAMES, worst / 1e6, world.getReadyChunks().length);
+
+        total = 0;
+        worst = 0;
+        float x = 0;
+        for (int i = 0; i < FLY_FRAMES; i++) {
+            x += FLY_SPEED_PER_FRAME;
+            long t0 = System.nanoTime();
+            world.update(x, 0, 1, 0);
+            long dt = System.nanoTime() - t0;
+            total += dt;
+            worst = Math.max(worst, dt);
+            Thread.sleep(FRAME_MS);
+        }
+        System.out.printf("En vol   : %.3f ms/frame en moyenne, pire %.3f ms (%d chunks)%n",
+                total / 1e6 / FLY_FRAMES, worst / 1e6, world.getReadyChunks().length);
+
+        world.shutdown();
+        System.exit(0);
+    }
+}
@@ -122,9 +122,13 @@ public class MC {
 
         world = new World();
         render.setWorld(world);
+        world.loadSpawnArea();
 
         player = new Player(world, render.getCamera());
-        player.setPosition(8, 120, 8);
+        // Apparition juste au-dessus du sol (le chunk d'origine est programmé par loadSpawnArea)
+        world.awaitChunk(0, 0);
+        int spawnY = world.getSurfaceY(8, 8);
+        player.setPosition(8, spawnY >= 0 ? spawnY + 1 : 120, 8);
 
         soundPlayer = new SoundPlayer();
         lastTimeNanos = System.nanoTime();
@@ -153,7 +157,11 @@ public class MC {
                 glfwSetWindowTitle(window, "MC Clone - " + currentFps + " FPS | Dir: " + player.getLookingDirection() +
                         " | X:" + String.format("%.1f", position.x) +
                         " Y:" + String.format("%.1f", position.y) +
-                        " Z:" + String.format("%.1f", position.z));
+                        " Z:" + String.format("%.1f", position.z) +
+                        " | Chunks en attente: " + world.getPendingChunkLoads() +
+                        " | Cache: " + world.getChunkCache().getHits() + "/" + world.getChunkCache().getMisses() +
+                        " | Remaillage: " + String.format("%.1f ms", render.getLastEditLatencyMillis()) +
+                        (world.getLastTeleportReadyMillis() >= 0 ? " | Téléportation: " + world.getLastTeleportReadyMillis() + " ms" : ""));
             }
 
             // Inputs clavier (capturés à la frame pour toutes les steps logiques à suivre)
@@ -209,7 +217,9 @@ public class MC {
             cam.setPosition(pos.x, pos.y + 1.65f, pos.z);
 
             // Génération / update monde
-            world.update(pos.x, pos.z);
+            // Direction horizontale du regard : les chunks devant le joueur sont chargés en priorité
+            double yaw = Math.toRadians(cam.getRotation().y);
+            world.update(pos.x, pos.z, (float) Math.sin(yaw), (float) -Math.cos(yaw));
 
             // Rendu (peut utiliser interpolation si plus tard on stocke states N/N+1)
             render.render(windowWrapper, dt);
@@ -0,0 +1,151 @@
+package ovh.paulem.mc;
+
+import ovh.paulem.mc.world.BaseChunk;
+import ovh.paulem.mc.world.ChunkIO;
+import ovh.paulem.mc.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pré-génération du monde sans fenêtre ni OpenGL : chaque chunk d'une zone est généré à pleine résolution et
+ * sauvegardé sur le disque, sur tous les cœurs. Les chunks qui ont déjà une sauvegarde à pleine résolution sont
+ * sautés : une pré-génération interrompue reprend là où elle s'était arrêtée (les fichiers sont écrits puis
+ * renommés, un chunk est entièrement sauvegardé ou pas du tout).
+ * <p>
+ * Zone : un disque de {@code rayon} chunks autour de (cx, cz), ou le rectangle de chunks x0..x1, z0..z1 (bornes
+ * incluses). Les chunks sont traités en spirale depuis le centre de la zone : une pré-génération interrompue
+ * laisse une zone pleine autour du centre, et les chunks voisins (qui partagent leurs arbres) se suivent.
+ * <p>
+ * Lancement : java -cp Minecraft-Clone.jar ovh.paulem.mc.PreGenerate rayon [cx cz] | x0 z0 x1 z1
+ * Nombre de threads : -Dmc.pregen.threads=N (par défaut, le nombre de cœurs)
+ */
+public class PreGenerate {
+    private static final long PROGRESS_INTERVAL_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] area = parseArea(args);
+        if (area == null) {
+            System.err.println("Usage : PreGenerate rayon [cx cz] | x0 z0 x1 z1");
+            System.exit(2);
+            return;
+        }
+        int threads = Integer.getInteger("mc.pregen.threads", Runtime.getRuntime().availableProcessors());
+        List<int[]> order = spiral(area);
+
+        World world = new World();
+        ChunkIO chunkIO = world.getChunkIO();
+        world.getGenerator().resetStageTimes();
+        long bytesBefore = chunkIO.getBytesWritten();
+        System.out.printf("Pré-génération de %d chunks sur %d threads%n", order.size(), threads);
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        LongAdder generated = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        LongAdder saveNanos = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < order.size()) {
+                    int cx = order.get(i)[0];
+                    int cz = order.get(i)[1];
+                    if (chunkIO.hasFullResolutionSave(cx, cz)) {
+                        skipped.increment();
+                    } else {
+                        BaseChunk chunk = world.generateDetached(cx, cz, 1);
+                        long t0 = System.nanoTime();
+                        chunkIO.saveChunkNow(chunk);
+                        saveNanos.add(System.nanoTime() - t0);
+                        chunk.release();
+                        generated.increment();
+                    }
+                    done.incrementAndGet();
+                }
+            }, "PreGenerate-" + t);
+            workers[t].start();
+        }
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        long lastGenerated = 0;
+        while (!allFinished(workers, PROGRESS_INTERVAL_NANOS / 1_000_000)) {
+            long now = System.nanoTime();
+            long count = generated.sum();
+            System.out.printf("  %d / %d chunks (%.1f %%), %.1f chunks/s%n", done.get(), order.size(),
+                    100.0 * done.get() / order.size(), (count - lastGenerated) / ((now - lastReport) / 1e9));
+            lastReport = now;
+            lastGenerated = count;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long count = generated.sum();
+        long bytes = chunkIO.getBytesWritten() - bytesBefore;
+        System.out.printf("Terminé en %.1f s : %d chunks générés (%.1f chunks/s), %d déjà sauvegardés%n",
+                seconds, count, count / seconds, skipped.sum());
+        System.out.println("  par étape : " + world.getGenerator().describeStageTimes()
+                + String.format(", écriture %.2f ms", count == 0 ? 0 : saveNanos.sum() / 1e6 / count));
+        System.out.printf("  écrit : %.1f Mio (%.1f Kio par chunk)%n",
+                bytes / (1024.0 * 1024.0), count == 0 ? 0 : bytes / 1024.0 / count);
+        world.shutdown();
+        System.exit(0);
+    }
+
+    // {x0, z0, x1, z1, rayon} : rayon à -1 pour un rectangle, null si les arguments ne sont pas valides
+    private static int[] parseArea(String[] args) {
+        try {
+            if (args.length == 1 || args.length == 3) {
+                int radius = Integer.parseInt(args[0]);
+                int cx = args.length == 3 ? Integer.parseInt(args[1]) : 0;
+                int cz = args.length == 3 ? Integer.parseInt(args[2]) : 0;
+                if (radius < 0) return null;
+                return new int[] { cx - radius, cz - radius, cx + radius, cz + radius, radius };
+            }
+            if (args.length == 4) {
+                int x0 = Integer.parseInt(args[0]);
+                int z0 = Integer.parseInt(args[1]);
+                int x1 = Integer.parseInt(args[2]);
+                int z1 = Integer.parseInt(args[3]);
+                return new int[] { Math.min(x0, x1), Math.min(z0, z1), Math.max(x0, x1), Math.max(z0, z1), -1 };
+            }
+        } catch (NumberFormatException ignored) {}
+        return null;
+    }
+
+    // Chunks de la zone, anneau par anneau (carrés concentriques parcourus dans l'ordre) depuis son centre
+    private static List<int[]> spiral(int[] area) {
+        int x0 = area[0], z0 = area[1], x1 = area[2], z1 = area[3], radius = area[4];
+        int cx = Math.floorDiv(x0 + x1, 2);
+        int cz = Math.floorDiv(z0 + z1, 2);
+        int rings = Math.max(Math.max(cx - x0, x1 - cx), Math.max(cz - z0, z1 - cz));
+        List<int[]> order = new ArrayList<>();
+        add(order, area, cx, cz, radius, cx, cz);
+        for (int r = 1; r <= rings; r++) {
+            for (int x = cx - r; x < cx + r; x++) add(order, area, cx, cz, radius, x, cz - r);
+            for (int z = cz - r; z < cz + r; z++) add(order, area, cx, cz, radius, cx + r, z);
+            for (int x = cx + r; x > cx - r; x--) add(order, area, cx, cz, radius, x, cz + r);
+            for (int z = cz + r; z > cz - r; z--) add(order, area, cx, cz, radius, cx - r, z);
+        }
+        return order;
+    }
+
+    private static void add(List<int[]> order, int[] area, int cx, int cz, int radius, int x, int z) {
+        if (x < area[0] || z < area[1] || x > area[2] || z > area[3]) return;
+        // Disque et non carré en mode rayon, comme le chargement autour du joueur
+        if (radius >= 0 && (long) (x - cx) * (x - cx) + (long) (z - cz) * (z - cz) > (long) radius * radius) return;
+        order.add(new int[] { x, z });
+    }
+
+    private static boolean allFinished(Thread[] workers, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining > 0) worker.join(remaining);
+            if (worker.isAlive()) return false;
+        }
+        return true;
+    }
+}
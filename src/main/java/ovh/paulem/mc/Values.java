@@ -1,19 +1,24 @@
 package ovh.paulem.mc;
 
 public class Values {
-    // Rayon de rendu des chunks autour du joueur
-    public static final int RENDER_RADIUS = 8;
+    // Rayon de rendu des chunks autour du joueur : au-delà de LOD_RING_RADII[1], les niveaux 8 et 16 de la pyramide
+    public static final int RENDER_RADIUS = 32;
     // Rayon proche avec chunks détaillés (pleine fidélité); au-delà, stockage compressé/LOD (GreedyChunk)
     public static final int LOD_NEAR_RADIUS = 2;
-    // Facteurs de LOD pour les chunks lointains (taille des macro-voxels)
-    public static final int LOD_FACTOR_XZ = 2; // groupe 2x2 en X/Z
-    public static final int LOD_FACTOR_Y = 2;  // groupe 2 en Y
+    // Facteurs de LOD pour les chunks lointains (taille des macro-voxels sur chaque axe), du plus fin au plus grossier
+    public static final int[] LOD_LEVELS = {2, 4, 8, 16};
+    // Rayon extérieur (en chunks) de l'anneau de chaque niveau ; au-delà du dernier, niveau le plus grossier
+    public static final int[] LOD_RING_RADII = {4, 8, 16};
     // Taille maximale de la lumière (0 = obscurité, 15 = lumière maximale)
     public static final byte MAX_LIGHT = 15;
     // Budget de chunks à traiter par frame
     public static final int LIGHT_PER_FRAME_BUDGET = RENDER_RADIUS*10;
     public static final int MESHES_PER_FRAME_BUDGET = RENDER_RADIUS/4;
     public static final float GREEDY_DIST = 80.0f;
+    // Blocs et lumière des chunks détaillés dans des slabs hors tas réutilisées (-Dmc.offHeapChunks=true)
+    public static final boolean OFF_HEAP_CHUNKS = Boolean.getBoolean("mc.offHeapChunks");
+    // Budget mémoire des chunks publiés et du cache des chunks déchargés, en Mo (-Dmc.chunkCacheMB=...)
+    public static final long CHUNK_CACHE_BUDGET_BYTES = Long.getLong("mc.chunkCacheMB", 256) << 20;
 
     // Configuration des caves
     public static double BASE_CAVE_SCALE = 0.05; // Échelle de base du bruit pour les caves
@@ -9,7 +9,7 @@ import java.util.List;
  * Gère la barre de sélection des blocs (hotbar) du joueur
  */
 public class Hotbar {
-    public static final List<Block> BLOCKS = Blocks.blocks.values()
+    public static final List<Block> BLOCKS = Blocks.all()
             .stream().filter(Block::isBlock).toList();
 
     // Index de l'emplacement sélectionné (0-8)
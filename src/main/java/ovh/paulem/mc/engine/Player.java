@@ -3,6 +3,7 @@ package ovh.paulem.mc.engine;
 import lombok.Getter;
 import ovh.paulem.mc.world.BaseChunk;
 import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.WorldCursor;
 import org.joml.Vector3f;
 
 import java.util.List;
@@ -102,16 +103,18 @@ public class Player {
             onGroundLocal = false;
         }
 
-        // Déplacement avec résolution de collision par axe
-        pos.x = moveAxis(world, pos.x, pos.y, pos.z, vel.x * dt, Axis.X, vel);
-        pos.y = moveAxis(world, pos.x, pos.y, pos.z, vel.y * dt, Axis.Y, vel);
-        pos.z = moveAxis(world, pos.x, pos.y, pos.z, vel.z * dt, Axis.Z, vel);
+        // Déplacement avec résolution de collision par axe (curseur du thread : toutes les requêtes
+        // d'un pas tombent quasiment toujours dans le même chunk)
+        WorldCursor cursor = world.getCursor();
+        pos.x = moveAxis(cursor, pos.x, pos.y, pos.z, vel.x * dt, Axis.X, vel);
+        pos.y = moveAxis(cursor, pos.x, pos.y, pos.z, vel.y * dt, Axis.Y, vel);
+        pos.z = moveAxis(cursor, pos.x, pos.y, pos.z, vel.z * dt, Axis.Z, vel);
 
         // Après le mouvement Y, si on touche le sol, on est au sol
-        if (vel.y <= 0 && collidedBelow(world, pos)) {
+        if (vel.y <= 0 && collidedBelow(cursor, pos)) {
             onGroundLocal = true;
             vel.y = 0;
-        } else if (vel.y > 0 && collidedAbove(world, pos)) {
+        } else if (vel.y > 0 && collidedAbove(cursor, pos)) {
             vel.y = 0;
         } else {
             onGroundLocal = false;
@@ -139,7 +142,7 @@ public class Player {
 
     private enum Axis { X, Y, Z }
 
-    private static float moveAxis(World world, float x, float y, float z, float delta, Axis axis, Vector3f vel) {
+    private static float moveAxis(WorldCursor cursor, float x, float y, float z, float delta, Axis axis, Vector3f vel) {
         if (delta == 0) return axis == Axis.X ? x : axis == Axis.Y ? y : z;
         float nx = x, ny = y, nz = z;
         if (axis == Axis.X) nx += delta;
@@ -165,7 +168,7 @@ public class Player {
         for (int bx = startX; bx <= endX; bx++) {
             for (int by = startY; by <= endY; by++) {
                 for (int bz = startZ; bz <= endZ; bz++) {
-                    if (!world.isPassable(bx, by, bz)) {
+                    if (!cursor.isPassable(bx, by, bz)) {
                         collided = true;
                     }
                 }
@@ -211,21 +214,21 @@ public class Player {
         }
     }
 
-    private static boolean collidedBelow(World world, Vector3f position) {
+    private static boolean collidedBelow(WorldCursor cursor, Vector3f position) {
         float x = position.x;
         float y = position.y - 0.05f;
         float z = position.z;
-        return aabbIntersectsSolid(world, x, y, z);
+        return aabbIntersectsSolid(cursor, x, y, z);
     }
 
-    private static boolean collidedAbove(World world, Vector3f position) {
+    private static boolean collidedAbove(WorldCursor cursor, Vector3f position) {
         float x = position.x;
         float y = position.y;
         float z = position.z;
-        return aabbIntersectsSolid(world, x, y, z);
+        return aabbIntersectsSolid(cursor, x, y, z);
     }
 
-    private static boolean aabbIntersectsSolid(World world, float x, float y, float z) {
+    private static boolean aabbIntersectsSolid(WorldCursor cursor, float x, float y, float z) {
         float minX = x - WIDTH / 2f;
         float maxX = x + WIDTH / 2f;
         float maxY = y + HEIGHT;
@@ -240,7 +243,7 @@ public class Player {
         for (int bx = startX; bx <= endX; bx++)
             for (int by = startY; by <= endY; by++)
                 for (int bz = startZ; bz <= endZ; bz++)
-                    if (!world.isPassable(bx, by, bz)) return true;
+                    if (!cursor.isPassable(bx, by, bz)) return true;
         return false;
     }
 
@@ -3,6 +3,7 @@ package ovh.paulem.mc.engine;
 import org.joml.Vector3f;
 import ovh.paulem.mc.world.RaycastResult;
 import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.WorldCursor;
 
 /**
  * Allocation-free DDA raycaster using integer arithmetic.
@@ -11,6 +12,8 @@ import ovh.paulem.mc.world.World;
 public class Raycaster {
     
     private final RaycastResult result = new RaycastResult();
+    // Curseur propre au raycaster : le rayon reste dans un ou deux chunks
+    private WorldCursor cursor;
     
     /**
      * Cast a ray through the world using DDA algorithm.
@@ -22,6 +25,9 @@ public class Raycaster {
      */
     public RaycastResult raycast(World world, Vector3f start, Vector3f dir, float maxDistance) {
         result.reset();
+        if (cursor == null || cursor.getWorld() != world) {
+            cursor = new WorldCursor(world);
+        }
         
         // Current voxel coordinates
         int x = (int) Math.floor(start.x);
@@ -49,7 +55,7 @@ public class Raycaster {
         // DDA loop
         while (distance < maxDistance) {
             // Check if current voxel is solid
-            if (!world.isPassable(x, y, z)) {
+            if (!cursor.isPassable(x, y, z)) {
                 result.setHit(x, y, z, face);
                 return result;
             }
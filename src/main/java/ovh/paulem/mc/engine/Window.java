@@ -1,6 +1,8 @@
 package ovh.paulem.mc.engine;
 
 import org.joml.Matrix4f;
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.world.BaseChunk;
 
 public class Window {
 
@@ -40,7 +42,8 @@ public class Window {
         float fovRad = (float) Math.toRadians(fov);
         float aspectRatio = (float) width / (float) height;
         float near = 0.01f;
-        float far = 1000.0f;
+        // Au moins jusqu'au bord du rayon de rendu
+        float far = Math.max(1000.0f, (Values.RENDER_RADIUS + 2) * BaseChunk.CHUNK_X);
         projectionMatrix = new Matrix4f().perspective(fovRad, aspectRatio, near, far);
     }
 
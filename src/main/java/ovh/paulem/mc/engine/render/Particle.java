@@ -36,7 +36,7 @@ public class Particle {
         int ny = (int)Math.floor(nextPos.y);
         int nz = (int)Math.floor(nextPos.z);
         boolean collided = false;
-        if (world != null && !world.isPassable(nx, ny, nz)) {
+        if (world != null && !world.getCursor().isPassable(nx, ny, nz)) {
             // Collision détectée, stoppe la particule (ou rebond simple)
             velocity.x *= 0.5f;
             velocity.y *= -0.2f; // petit rebond
@@ -51,7 +51,7 @@ public class Particle {
             int lx = (int)Math.floor(position.x);
             int ly = (int)Math.floor(position.y);
             int lz = (int)Math.floor(position.z);
-            BaseChunk chunk = world.getChunkAt(lx, lz);
+            BaseChunk chunk = world.getCursor().getChunkAt(lx, lz);
             if (ly >= BaseChunk.CHUNK_Y) {
                 lightLevel = 1.0f; // plein ciel
             } else if (chunk != null) {
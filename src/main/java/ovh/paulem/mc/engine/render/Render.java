@@ -1,6 +1,7 @@
 package ovh.paulem.mc.engine.render;
 
 import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
 import ovh.paulem.mc.MC;
 import ovh.paulem.mc.Values;
 import ovh.paulem.mc.engine.Camera;
@@ -14,15 +15,18 @@ import ovh.paulem.mc.world.Biome;
 import ovh.paulem.mc.world.block.Face;
 import ovh.paulem.mc.world.block.types.Block;
 import ovh.paulem.mc.world.Chunk;
+import ovh.paulem.mc.world.ChunkListener;
+import ovh.paulem.mc.world.ChunkSection;
 import ovh.paulem.mc.world.World;
+import ovh.paulem.mc.world.WorldCursor;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
 import org.lwjgl.opengl.GL;
 import ovh.paulem.mc.world.block.Blocks;
-import ovh.paulem.mc.world.block.types.Tintable;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL46.*;
@@ -41,6 +45,8 @@ public class Render {
             new Vector3f( 0, 1, 0), new Vector3f( 0,-1, 0),
             new Vector3f( 0, 0, 1), new Vector3f( 0, 0,-1)
     };
+    // Couleur passée aux faces des blocs non teintés (le shader ne l'applique qu'aux textures teintées)
+    private static final int DEFAULT_TINT = Biome.NORMAL.getTintRGB(TintType.GRASS);
 
     public record MeshBatch(Mesh mesh, Texture texture, String texturePath) {
     }
@@ -52,8 +58,24 @@ public class Render {
     private HotbarRenderer hotbarRenderer;
     private Hotbar hotbar;
 
-    // Cache meshes per chunk for multi-chunk rendering
-    private record ChunkMesh(List<MeshBatch> list, boolean greedy, int version) {}
+    // Cache meshes per chunk for multi-chunk rendering.
+    // Hors greedy, un mesh par section : une édition ne remaille et ne renvoie au GPU que les sections modifiées.
+    // En greedy (chunks lointains, fusion des faces sur toute la hauteur), un seul mesh rangé en section 0.
+    private static final class ChunkMesh {
+        final boolean greedy;
+        final List<List<MeshBatch>> sections = new ArrayList<>(BaseChunk.SECTION_COUNT);
+        final int[] sectionVersions = new int[BaseChunk.SECTION_COUNT];
+        int version;
+
+        ChunkMesh(boolean greedy) {
+            this.greedy = greedy;
+            for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) sections.add(List.of());
+        }
+
+        void cleanup() {
+            for (List<MeshBatch> batches : sections) cleanupBatches(batches);
+        }
+    }
     private final Map<BaseChunk, ChunkMesh> meshCache = new HashMap<>();
 
     // Queue of chunks that need mesh (re)build; processed with small budget per frame to avoid spikes
@@ -62,7 +84,46 @@ public class Render {
     // Ajout d'un ExecutorService pour le meshing parallèle
     private final ExecutorService meshExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
     // Map temporaire pour stocker les résultats de meshing asynchrone
-    private final Map<BaseChunk, Future<MeshBuildResult>> meshFutures = new ConcurrentHashMap<>();
+    private final Map<BaseChunk, MeshTask> meshFutures = new ConcurrentHashMap<>();
+    // Mesh en cours et l'instantané qu'il maille. L'instantané est rendu par celui qui réclame la tâche en premier :
+    // le worker qui la démarre (dans son finally) ou processChunkEvents qui l'annule avant son démarrage
+    private record MeshTask(Future<MeshBuildResult> future, BaseChunk view, AtomicBoolean claimed) {}
+
+    // Événements de chunks reçus du monde (threads de génération), traités au début de chaque frame
+    // (changedAt : instant de la modification, 0 pour un chargement ou un déchargement)
+    // (replaced : chunk remplacé par celui-ci lors d'un changement de niveau de détail)
+    private record ChunkEvent(BaseChunk chunk, @Nullable BaseChunk replaced, boolean unloaded, long changedAt) {}
+    private final Queue<ChunkEvent> chunkEvents = new ConcurrentLinkedQueue<>();
+    private final ChunkListener chunkListener = new ChunkListener() {
+        @Override
+        public void onChunkLoaded(BaseChunk chunk) {
+            chunkEvents.add(new ChunkEvent(chunk, null, false, 0));
+        }
+
+        @Override
+        public void onChunkUnloaded(BaseChunk chunk) {
+            chunkEvents.add(new ChunkEvent(chunk, null, true, 0));
+        }
+
+        @Override
+        public void onChunkReplaced(BaseChunk previous, BaseChunk chunk) {
+            chunkEvents.add(new ChunkEvent(chunk, previous, false, 0));
+        }
+
+        @Override
+        public void onChunkChanged(BaseChunk chunk) {
+            chunkEvents.add(new ChunkEvent(chunk, null, false, System.nanoTime()));
+        }
+    };
+
+    // Latence édition -> mesh à jour sur le GPU : instant et version du chunk à la première modification
+    // pas encore affichée
+    private record PendingEdit(long changedAt, int version) {}
+    private final Map<BaseChunk, PendingEdit> pendingEdits = new HashMap<>();
+    @Getter
+    private volatile double lastEditLatencyMillis;
+    // Matrice modèle réutilisée pour chaque chunk dessiné
+    private final Matrix4f modelMatrix = new Matrix4f();
 
     private ParticleSystem particleSystem = new ParticleSystem();
     private Shader particleShader;
@@ -110,7 +171,7 @@ public class Render {
         glEnableVertexAttribArray(3);
         glBindVertexArray(0);
 
-        Blocks.blocks.forEach((integer, block) -> block.serveTextures(Textures.textureCache));
+        Blocks.all().forEach(block -> block.serveTextures(Textures.textureCache));
 
         // Build texture atlas after loading individual textures
         textureAtlas.buildAtlas();
@@ -121,8 +182,63 @@ public class Render {
     }
 
     public void setWorld(World world) {
+        if (this.world != null) this.world.removeChunkListener(chunkListener);
         this.world = world;
         this.meshCache.clear();
+        this.chunkEvents.clear();
+        this.pendingEdits.clear();
+        if (world != null) world.addChunkListener(chunkListener);
+    }
+
+    // Applique les événements de chunks sur le thread GL : libère les meshes des chunks déchargés
+    // et met en file ceux des chunks arrivés ou modifiés
+    private void processChunkEvents() {
+        ChunkEvent event;
+        while ((event = chunkEvents.poll()) != null) {
+            BaseChunk c = event.chunk();
+            if (event.unloaded()) {
+                meshBuildQueue.remove(c);
+                pendingEdits.remove(c);
+                MeshTask pending = meshFutures.remove(c);
+                if (pending != null) cancelMeshTask(pending);
+                ChunkMesh cm = meshCache.remove(c);
+                if (cm != null) cm.cleanup();
+                continue;
+            }
+            if (event.replaced() != null) {
+                // Changement de niveau de détail : l'ancien mesh reste affiché jusqu'à ce que le nouveau soit prêt
+                BaseChunk previous = event.replaced();
+                meshBuildQueue.remove(previous);
+                pendingEdits.remove(previous);
+                MeshTask pending = meshFutures.remove(previous);
+                if (pending != null) cancelMeshTask(pending);
+                ChunkMesh cm = meshCache.remove(previous);
+                if (cm != null) {
+                    cm.version = -1;
+                    Arrays.fill(cm.sectionVersions, -1);
+                    meshCache.put(c, cm);
+                }
+                meshBuildQueue.remove(c);
+                if (!meshFutures.containsKey(c)) meshBuildQueue.addFirst(c);
+                continue;
+            }
+            if (event.changedAt() != 0) {
+                pendingEdits.putIfAbsent(c, new PendingEdit(event.changedAt(), c.getVersion()));
+                // Une modification passe devant les chunks qui attendent leur premier mesh
+                meshBuildQueue.remove(c);
+                if (!meshFutures.containsKey(c)) meshBuildQueue.addFirst(c);
+            } else if (!meshBuildQueue.contains(c) && !meshFutures.containsKey(c)) {
+                meshBuildQueue.addLast(c);
+            }
+        }
+    }
+
+    // Tâche déjà démarrée : son résultat est simplement ignoré et le worker rend l'instantané
+    private static void cancelMeshTask(MeshTask task) {
+        if (task.claimed().compareAndSet(false, true)) {
+            task.future().cancel(false);
+            task.view().release();
+        }
     }
 
     public void setHotbar(Hotbar hotbar) {
@@ -148,6 +264,7 @@ public class Render {
         frustum.extractPlanes(projectionView);
 
         if (world != null) {
+            processChunkEvents();
             // Rebuild up to a small number of chunk meshes per frame to avoid spikes
             int rebuilt = 0;
             while (rebuilt < Values.MESHES_PER_FRAME_BUDGET && !meshBuildQueue.isEmpty()) {
@@ -159,27 +276,56 @@ public class Render {
                 float qdx = camera.getPosition().x - qccx;
                 float qdz = camera.getPosition().z - qccz;
                 float qdist = (float)Math.sqrt(qdx * qdx + qdz * qdz);
-                boolean qGreedy = qdist > Values.GREEDY_DIST;
+                boolean qGreedy = useGreedyMesh(qc, qdist);
+                // Versions lues avant l'instantané (pris plus bas, seulement si un mesh est lancé) : au pire plus
+                // anciennes que les données maillées, soit un remaillage de trop
                 int qver = qc.getVersion();
-                // Lancer la génération du mesh en tâche asynchrone si pas déjà en cours
+                int[] qSectionVersions = new int[BaseChunk.SECTION_COUNT];
+                for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) qSectionVersions[sy] = qc.getSectionVersion(sy);
+                // Sections à remailler : toutes pour un nouveau mesh ou un changement de mode,
+                // sinon celles dont la version a changé depuis le dernier mesh
+                ChunkMesh current = meshCache.get(qc);
+                int qMask = BaseChunk.ALL_SECTIONS;
+                if (current != null && !qGreedy && !current.greedy) {
+                    qMask = 0;
+                    for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+                        if (current.sectionVersions[sy] != qSectionVersions[sy]) qMask |= 1 << sy;
+                    }
+                    if (qMask == 0) {
+                        current.version = qver;
+                        continue;
+                    }
+                }
+                int mask = qMask;
+                // Lancer la génération du mesh en tâche asynchrone si pas déjà en cours. Le worker maille un
+                // instantané (pris seulement ici, quand un mesh est lancé) : sans verrou ni mesh à moitié modifié
                 if (!meshFutures.containsKey(qc)) {
-                    meshFutures.put(qc, meshExecutor.submit(() -> {
-                        RawMeshData raw = qGreedy ? buildChunkMeshesGreedyRaw(qc) : buildChunkMeshesNonGreedyRaw(qc);
-                        return new MeshBuildResult(raw, qGreedy, qver);
-                    }));
+                    BaseChunk qView = qc.snapshot();
+                    AtomicBoolean claimed = new AtomicBoolean();
+                    Future<MeshBuildResult> future = meshExecutor.submit(() -> {
+                        // Tâche annulée avant son démarrage : l'instantané a déjà été rendu
+                        if (!claimed.compareAndSet(false, true)) return null;
+                        try {
+                            RawMeshData[] raw = qGreedy
+                                    ? new RawMeshData[]{buildChunkMeshesGreedyRaw(qView)}
+                                    : buildSectionMeshesRaw(qView, mask);
+                            return new MeshBuildResult(raw, qGreedy, qver, qSectionVersions, mask);
+                        } finally {
+                            qView.release();
+                        }
+                    });
+                    meshFutures.put(qc, new MeshTask(future, qView, claimed));
                 }
                 rebuilt++;
             }
             // Récupérer les résultats terminés et les placer dans le cache principal
-            Iterator<Map.Entry<BaseChunk, Future<MeshBuildResult>>> it = meshFutures.entrySet().iterator();
+            Iterator<Map.Entry<BaseChunk, MeshTask>> it = meshFutures.entrySet().iterator();
             while (it.hasNext()) {
-                Map.Entry<BaseChunk, Future<MeshBuildResult>> entry = it.next();
-                Future<MeshBuildResult> future = entry.getValue();
+                Map.Entry<BaseChunk, MeshTask> entry = it.next();
+                Future<MeshBuildResult> future = entry.getValue().future();
                 if (future.isDone()) {
                     try {
-                        MeshBuildResult result = future.get();
-                        List<MeshBatch> batches = buildMeshBatchesFromRaw(result.raw);
-                        meshCache.put(entry.getKey(), new ChunkMesh(batches, result.greedy, result.version));
+                        applyMeshResult(entry.getKey(), future.get());
                     } catch (Exception e) {
                         // Remplacer par un logger si besoin
                         System.err.println("Erreur lors de la génération du mesh : " + e.getMessage());
@@ -189,7 +335,8 @@ public class Render {
             }
 
             // Render all loaded chunks with per-chunk model transform
-            Collection<BaseChunk> chunks = world.getChunks();
+            // (instantané stable des chunks prêts : ni allocation ni attente sur la génération)
+            BaseChunk[] chunks = world.getReadyChunks();
             float camX = camera.getPosition().x;
             float camZ = camera.getPosition().z;
             for (BaseChunk c : chunks) {
@@ -205,7 +352,7 @@ public class Render {
                 float dx = camX - chunkCenterX;
                 float dz = camZ - chunkCenterZ;
                 float dist = (float) Math.sqrt(dx * dx + dz * dz);
-                boolean useGreedy = dist > Values.GREEDY_DIST;
+                boolean useGreedy = useGreedyMesh(c, dist);
 
                 ChunkMesh cm = meshCache.get(c);
                 int ver = c.getVersion();
@@ -220,18 +367,29 @@ public class Render {
                     // nothing to render yet
                     continue;
                 }
-                Matrix4f model = new Matrix4f().translation(c.getOriginX(), 0, c.getOriginZ());
-                shader.setUniformMat4("model", model);
+                shader.setUniformMat4("model", modelMatrix.translation(c.getOriginX(), 0, c.getOriginZ()));
                 
                 // Bind texture atlases for all batches in this chunk
                 textureAtlas.bind(0);           // Base textures to unit 0
                 textureAtlas.bindOverlay(1);    // Overlay textures to unit 1
                 
-                for (MeshBatch batch : cm.list) {
-                    int mode = getMode(batch);
-                    shader.setUniform("mode", mode);
-                    // Atlas textures are already bound to units 0 and 1
-                    if (batch.mesh != null) batch.mesh.render();
+                for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+                    List<MeshBatch> batches = cm.sections.get(sy);
+                    if (batches.isEmpty()) continue;
+                    // Meshes par section : celles hors du champ de vision ne sont pas dessinées
+                    if (!cm.greedy) {
+                        int minY = sy * ChunkSection.SECTION_HEIGHT;
+                        if (frustum.isOutside(c.getOriginX(), minY, c.getOriginZ(),
+                                c.getOriginX() + BaseChunk.CHUNK_X, minY + ChunkSection.SECTION_HEIGHT, c.getOriginZ() + BaseChunk.CHUNK_Z)) {
+                            continue;
+                        }
+                    }
+                    for (MeshBatch batch : batches) {
+                        int mode = getMode(batch);
+                        shader.setUniform("mode", mode);
+                        // Atlas textures are already bound to units 0 and 1
+                        if (batch.mesh != null) batch.mesh.render();
+                    }
                 }
                 // reset mode
                 shader.setUniform("mode", 0);
@@ -288,13 +446,18 @@ public class Render {
 
                 boolean isOverlay = false;
                 Vector3f overlayColor = null;
+                // Teintes lues dans la table du chunk sous la particule de référence
+                int refX = (int) Math.floor(ref.position.x);
+                int refZ = (int) Math.floor(ref.position.z);
                 if(texture instanceof OverlayTexture overlayTexture) {
                     isOverlay = true;
-                    overlayColor = world.getBiomeAt((int) ref.position.x, (int) ref.position.z).getByTint(overlayTexture.getOverlay().getTintType());
+                    int tint = world.getTintAt(refX, refZ, overlayTexture.getOverlay().getTintType());
+                    overlayColor = new Vector3f(tintRed(tint), tintGreen(tint), tintBlue(tint));
                 }
                 Vector3f color;
                 if(texture instanceof TintTexture tintTexture) {
-                    color = world.getBiomeAt((int) ref.position.x, (int) ref.position.z).getByTint(tintTexture.getTintType());
+                    int tint = world.getTintAt(refX, refZ, tintTexture.getTintType());
+                    color = new Vector3f(tintRed(tint), tintGreen(tint), tintBlue(tint));
                 } else color = new Vector3f(1);
 
                 float[] data = new float[group.size() * 8];
@@ -416,12 +579,21 @@ public class Render {
         Map<String, Acc> accs = new HashMap<>();
 
         // Pré-calcul des tailles pour chaque face
-        final int sizeX = Chunk.CHUNK_X;
-        final int sizeY = Chunk.CHUNK_Y;
-        final int sizeZ = Chunk.CHUNK_Z;
+        // Curseur du thread de maillage : les voisins testés sont presque tous dans ce chunk
+        WorldCursor cursor = world != null ? world.getCursor() : null;
+        // Chunk LoD : on maille la grille de cellules (u, v, w en cellules de step blocs), pas les blocs
+        final int step = chunk.getLodFactor();
+        final int sizeX = Chunk.CHUNK_X / step;
+        // Rien à mailler au-dessus du plus haut bloc du chunk (heightmap)
+        final int maxBlockY = chunk.getMaxBlockY();
+        if (maxBlockY < 0) return convertAccsToRawMeshData(accs);
+        final int sizeY = maxBlockY / step + 1;
+        final int sizeZ = Chunk.CHUNK_Z / step;
         // Réutilisation des masques pour limiter les allocations
-        String[][] mask = new String[Math.max(sizeY, sizeZ)][Math.max(sizeY, sizeZ)];
+        // Indice de texture de la face visible (Blocks.getFaceTextureId), -1 sans face
+        int[][] mask = new int[Math.max(sizeY, sizeZ)][Math.max(sizeY, sizeZ)];
         boolean[][] used = new boolean[mask.length][mask.length];
+        byte[] sectionKinds = classifySections(chunk);
 
         for (int f = 0; f < 6; f++) {
             Vector3f normal = NORMALS[f];
@@ -438,15 +610,19 @@ public class Render {
                     break;
             }
             for (int w = 0; w < wSize; w++) {
+                // Faces Y : une tranche entière dans une section vide ou pleine ne produit rien
+                if (step == 1 && (f == 2 || f == 3) && isGreedyRowHidden(sectionKinds, f, w, w)) continue;
                 // Réinitialisation des masques sans recréer les tableaux
                 for (int v = 0; v < vSize; v++) {
                     for (int u = 0; u < uSize; u++) {
-                        mask[u][v] = null;
+                        mask[u][v] = -1;
                         used[u][v] = false;
                     }
                 }
-                // Fill mask with texture name when the face at (u,v,w) is visible
+                // Fill mask with texture id when the face at (u,v,w) is visible
                 for (int v = 0; v < vSize; v++) {
+                    // Faces X/Z : v est la hauteur, on saute les lignes sans face possible (masque déjà à -1)
+                    if (step == 1 && f != 2 && f != 3 && isGreedyRowHidden(sectionKinds, f, v, w)) continue;
                     for (int u = 0; u < uSize; u++) {
                         // Map (u,v,w) to chunk-local (x,y,z)
                         int x, y, z;
@@ -466,21 +642,22 @@ public class Render {
                         }
                         // Bounds safeguard (should be within chunk)
                         if (x >= sizeX || z >= sizeZ) {
-                            mask[u][v] = null;
+                            mask[u][v] = -1;
                             continue;
                         }
-                        Block blk = chunk.getBlock(x, y, z);
-                        if (!blk.isBlock()) { mask[u][v] = null; continue; }
-                        // Compute neighbor position in world coords to test visibility
-                        int wx = chunk.getOriginX() + x;
-                        int wy = y;
-                        int wz = chunk.getOriginZ() + z;
-                        int nwx = wx + DIRECTIONS[f][0];
-                        int nwy = wy + DIRECTIONS[f][1];
-                        int nwz = wz + DIRECTIONS[f][2];
-                        boolean neighborSolid = (world != null) && world.isOccluding(nwx, nwy, nwz);
-                        if (neighborSolid) { mask[u][v] = null; continue; }
-                        mask[u][v] = blk.getFaceTextureName(f);
+                        // Cellule -> bloc (coin inférieur de la cellule)
+                        x *= step;
+                        y *= step;
+                        z *= step;
+                        byte id = chunk.getBlockId(x, y, z);
+                        int texture = Blocks.getFaceTextureId(id, f);
+                        if (texture < 0) { mask[u][v] = -1; continue; }
+                        // Voisin à une cellule de distance, lu dans ce chunk ou via le curseur au-delà
+                        int nx = x + DIRECTIONS[f][0] * step;
+                        int ny = y + DIRECTIONS[f][1] * step;
+                        int nz = z + DIRECTIONS[f][2] * step;
+                        if (isOccludingFrom(chunk, cursor, nx, ny, nz)) { mask[u][v] = -1; continue; }
+                        mask[u][v] = texture;
                     }
                 }
 
@@ -488,17 +665,17 @@ public class Render {
                 for (int v = 0; v < vSize; v++) {
                     for (int u = 0; u < uSize; u++) {
                         if (used[u][v]) continue;
-                        String tex = mask[u][v];
-                        if (tex == null) { used[u][v] = true; continue; }
+                        int texId = mask[u][v];
+                        if (texId < 0) { used[u][v] = true; continue; }
                         // Find maximum width
                         int width = 1;
-                        while (u + width < uSize && !used[u + width][v] && tex.equals(mask[u + width][v])) width++;
+                        while (u + width < uSize && !used[u + width][v] && mask[u + width][v] == texId) width++;
                         // Find maximum height while all cells in the next row match
                         int height = 1;
                         outer:
                         while (v + height < vSize) {
                             for (int du = 0; du < width; du++) {
-                                if (used[u + du][v + height] || !tex.equals(mask[u + du][v + height])) {
+                                if (used[u + du][v + height] || mask[u + du][v + height] != texId) {
                                     break outer;
                                 }
                             }
@@ -509,96 +686,80 @@ public class Render {
                             for (int du = 0; du < width; du++) used[u + du][v + dv] = true;
                         }
                         // Emit one quad for this merged rect
+                        String tex = Blocks.getTextureName(texId);
                         Acc acc = accs.computeIfAbsent(tex, k -> new Acc());
                         // Convert (u..u+width, v..v+height, w) back to block-space rect corners for face f
                         // On va générer un quad avec 4 coins en 3D selon la face et garantir le winding CCW
                         float[] biomeColor = new float[]{-1f, -1f, -1f};
-                        Block blkForBiome;
+                        byte idForBiome;
                         switch (f) {
                             case 0: case 1: // X faces
-                                blkForBiome = chunk.getBlock(w, v, u);
+                                idForBiome = chunk.getBlockId(w * step, v * step, u * step);
                                 break;
                             case 2: case 3: // Y faces
-                                blkForBiome = chunk.getBlock(u, w, v);
+                                idForBiome = chunk.getBlockId(u * step, w * step, v * step);
                                 break;
                             default: // Z faces
-                                blkForBiome = chunk.getBlock(u, v, w);
+                                idForBiome = chunk.getBlockId(u * step, v * step, w * step);
                                 break;
                         }
                         // Appliquer la couleur biome si overlay grass_block_side_overlay ou face top (greedy ou non-greedy)
-                        if (blkForBiome instanceof Tintable tintable) {
+                        if (Blocks.isTintable(idForBiome)) {
                             if (world != null) {
-                                int wx, wz;
-                                wz = switch (f) {
-                                    case 0, 1 -> { wx = chunk.getOriginX() + w; yield chunk.getOriginZ() + u; }
-                                    case 2, 3 -> { wx = chunk.getOriginX() + u; yield chunk.getOriginZ() + v; }
-                                    default -> { wx = chunk.getOriginX() + u; yield chunk.getOriginZ() + w; }
+                                // Teinte de la colonne lue dans la table du chunk (coordonnées locales)
+                                int lx, lz;
+                                lz = switch (f) {
+                                    case 0, 1 -> { lx = w * step; yield u * step; }
+                                    case 2, 3 -> { lx = u * step; yield v * step; }
+                                    default -> { lx = u * step; yield w * step; }
                                 };
-                                Biome biome = world.getBiomeAt(wx, wz);
-                                Vector3f color = biome.getByTint(tintable.getTintType());
+                                int tint = chunk.getTint(Blocks.getTintType(idForBiome), lx, lz);
                                 biomeColor = new float[]{
-                                        color.x, color.y, color.z
+                                        tintRed(tint), tintGreen(tint), tintBlue(tint)
                                 };
                             }
                         }
                         // --- LOGIQUE LUMIÈRE GREEDY ---
                         float[] lightLevels = new float[]{1.0f, 1.0f, 1.0f, 1.0f};
                         // --- FIN LOGIQUE LUMIÈRE GREEDY ---
-                        // Génération des quads selon la face
+                        // Génération des quads selon la face (rectangle de cellules ramené en blocs)
                         float[][] atlasUVs = getAtlasUVs(tex);
+                        float u0 = u * step, u1 = (u + width) * step;
+                        float v0 = v * step, v1 = (v + height) * step;
+                        float w0 = w * step, w1 = (w + 1) * step;
                         switch (f) {
-                            case 0: { // +X at x=w, u=z, v=y
-                                float x0 = w + 1; // face sits at +X side
-                                float y1 = v + height;
-                                float z1 = u + width;
+                            case 0: // +X at x=w, u=z, v=y (face côté +X de la cellule)
                                 addQuadWithUVs(acc.verts, acc.inds,
-                                        new float[]{x0, (float) v, z1}, new float[]{x0, (float) v, (float) u}, new float[]{x0, y1, (float) u}, new float[]{x0, y1, z1},
+                                        new float[]{w1, v0, u1}, new float[]{w1, v0, u0}, new float[]{w1, v1, u0}, new float[]{w1, v1, u1},
                                         normal, acc.indexOffset, lightLevels, biomeColor, atlasUVs);
-                                acc.indexOffset += 4;
-                                break; }
-                            case 1: { // -X at x=w, u=z, v=y
-                                float y1 = v + height;
-                                float z1 = u + width;
+                                break;
+                            case 1: // -X at x=w, u=z, v=y
                                 addQuadWithUVs(acc.verts, acc.inds,
-                                        new float[]{(float) w, (float) v, (float) u}, new float[]{(float) w, (float) v, z1}, new float[]{(float) w, y1, z1}, new float[]{(float) w, y1, (float) u},
+                                        new float[]{w0, v0, u0}, new float[]{w0, v0, u1}, new float[]{w0, v1, u1}, new float[]{w0, v1, u0},
                                         normal, acc.indexOffset, lightLevels, biomeColor, atlasUVs);
-                                acc.indexOffset += 4;
-                                break; }
-                            case 2: { // +Y at y=w, u=x, v=z
-                                float y0 = w + 1; // top face at +Y side
-                                float x1 = u + width;
-                                float z1 = v + height;
+                                break;
+                            case 2: // +Y at y=w, u=x, v=z (face du dessus)
                                 addQuadWithUVs(acc.verts, acc.inds,
-                                        new float[]{(float) u, y0, (float) v}, new float[]{(float) u, y0, z1}, new float[]{x1, y0, z1}, new float[]{x1, y0, (float) v},
+                                        new float[]{u0, w1, v0}, new float[]{u0, w1, v1}, new float[]{u1, w1, v1}, new float[]{u1, w1, v0},
                                         normal, acc.indexOffset, lightLevels, biomeColor, atlasUVs);
-                                acc.indexOffset += 4;
-                                break; }
-                            case 3: { // -Y at y=w, u=x, v=z
-                                float x1 = u + width;
-                                float z1 = v + height;
+                                break;
+                            case 3: // -Y at y=w, u=x, v=z
                                 addQuadWithUVs(acc.verts, acc.inds,
-                                        new float[]{(float) u, (float) w, (float) v}, new float[]{x1, (float) w, (float) v}, new float[]{x1, (float) w, z1}, new float[]{(float) u, (float) w, z1},
+                                        new float[]{u0, w0, v0}, new float[]{u1, w0, v0}, new float[]{u1, w0, v1}, new float[]{u0, w0, v1},
                                         normal, acc.indexOffset, lightLevels, biomeColor, atlasUVs);
-                                acc.indexOffset += 4;
-                                break; }
-                            case 4: { // +Z at z=w, u=x, v=y
-                                float z0 = w + 1; // front face at +Z side
-                                float x1 = u + width;
-                                float y1 = v + height;
+                                break;
+                            case 4: // +Z at z=w, u=x, v=y (face avant)
                                 addQuadWithUVs(acc.verts, acc.inds,
-                                        new float[]{(float) u, (float) v, z0}, new float[]{x1, (float) v, z0}, new float[]{x1, y1, z0}, new float[]{(float) u, y1, z0},
+                                        new float[]{u0, v0, w1}, new float[]{u1, v0, w1}, new float[]{u1, v1, w1}, new float[]{u0, v1, w1},
                                         normal, acc.indexOffset, lightLevels, biomeColor, atlasUVs);
-                                acc.indexOffset += 4;
-                                break; }
-                            default: { // 5: -Z at z=w, u=x, v=y
-                                float x1 = u + width;
-                                float y1 = v + height;
+                                break;
+                            default: // 5: -Z at z=w, u=x, v=y
                                 addQuadWithUVs(acc.verts, acc.inds,
-                                        new float[]{x1, (float) v, (float) w}, new float[]{(float) u, (float) v, (float) w}, new float[]{(float) u, y1, (float) w}, new float[]{x1, y1, (float) w},
+                                        new float[]{u1, v0, w0}, new float[]{u0, v0, w0}, new float[]{u0, v1, w0}, new float[]{u1, v1, w0},
                                         normal, acc.indexOffset, lightLevels, biomeColor, atlasUVs);
-                                acc.indexOffset += 4;
-                                break; }
+                                break;
                         }
+                        acc.indexOffset += 4;
                     }
                 }
             }
@@ -607,8 +768,46 @@ public class Render {
         return convertAccsToRawMeshData(accs);
     }
 
-    // Structure pour le résultat intermédiaire
-    private record MeshBuildResult(RawMeshData raw, boolean greedy, int version) {
+    // Structure pour le résultat intermédiaire : raw[sy] pour chaque section du masque (raw[0] seul en greedy),
+    // avec les versions lues avant le maillage
+    private record MeshBuildResult(RawMeshData[] raw, boolean greedy, int version, int[] sectionVersions, int sectionMask) {
+    }
+
+    // Remplace (thread GL) les meshes des sections reconstruites et libère les anciens buffers
+    private void applyMeshResult(BaseChunk chunk, MeshBuildResult result) {
+        ChunkMesh cm = meshCache.get(chunk);
+        if (cm == null || cm.greedy != result.greedy) {
+            // Un remaillage partiel suppose le mesh précédent : sinon la boucle de rendu redemandera tout
+            if (result.sectionMask != BaseChunk.ALL_SECTIONS) return;
+            if (cm != null) cm.cleanup();
+            cm = new ChunkMesh(result.greedy);
+            meshCache.put(chunk, cm);
+        }
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            if ((result.sectionMask & (1 << sy)) == 0) continue;
+            cleanupBatches(cm.sections.get(sy));
+            RawMeshData raw = sy < result.raw.length ? result.raw[sy] : null;
+            cm.sections.set(sy, raw != null ? buildMeshBatchesFromRaw(raw) : List.of());
+            cm.sectionVersions[sy] = result.sectionVersions[sy];
+        }
+        cm.version = result.version;
+
+        PendingEdit edit = pendingEdits.get(chunk);
+        if (edit != null && result.version - edit.version() >= 0) {
+            pendingEdits.remove(chunk);
+            lastEditLatencyMillis = (System.nanoTime() - edit.changedAt()) / 1e6;
+        }
+    }
+
+    // Fusion des faces au loin, et toujours pour un chunk à résolution réduite (ses blocs sont des cellules)
+    private static boolean useGreedyMesh(BaseChunk chunk, float distance) {
+        return distance > Values.GREEDY_DIST || chunk.getLodFactor() > 1;
+    }
+
+    private static void cleanupBatches(List<MeshBatch> batches) {
+        for (MeshBatch batch : batches) {
+            if (batch.mesh != null) batch.mesh.cleanup();
+        }
     }
 
     // Arrêt du thread pool à la fermeture
@@ -623,23 +822,29 @@ public class Render {
         int indexOffset = 0;
     }
 
-    private Map<String, Acc> buildChunkFaces(BaseChunk chunk) {
+    // Faces d'une section (coordonnées locales au chunk, y absolu)
+    private Map<String, Acc> buildSectionFaces(BaseChunk chunk, int sy, byte[] sectionKinds, WorldCursor cursor) {
         Map<String, Acc> accs = new HashMap<>();
-
+        int topSection = (chunk.getMaxBlockY() >> ChunkSection.SECTION_SHIFT) + 1;
+        // Section vide ou au-dessus du plus haut bloc : aucune face à émettre
+        if (sy >= topSection || sectionKinds[sy] == SECTION_EMPTY) return accs;
+        boolean solid = sectionKinds[sy] == SECTION_SOLID;
+        int minY = sy * ChunkSection.SECTION_HEIGHT;
         for (int x = 0; x < Chunk.CHUNK_X; x++) {
-            for (int y = Chunk.MIN_CHUNK_Y; y < Chunk.CHUNK_Y; y++) {
-                for (int z = 0; z < Chunk.CHUNK_Z; z++) {
-                    Block block = chunk.getBlock(x, y, z);
-                    if (!block.isBlock()) continue;
+            for (int y = minY; y < minY + ChunkSection.SECTION_HEIGHT; y++) {
+                // Section pleine uniforme : les blocs intérieurs sont entourés du même bloc opaque,
+                // seule l'enveloppe de la section peut avoir des faces visibles
+                boolean interior = solid && x > 0 && x < Chunk.CHUNK_X - 1 && y > minY && y < minY + ChunkSection.SECTION_HEIGHT - 1;
+                int zStep = interior ? Chunk.CHUNK_Z - 1 : 1;
+                for (int z = 0; z < Chunk.CHUNK_Z; z += zStep) {
+                    if (y > chunk.getHighestBlockY(x, z)) continue;
+                    byte id = chunk.getBlockId(x, y, z);
+                    if (id == 0) continue;
                     for (int f = 0; f < 6; f++) {
-                        int wx = chunk.getOriginX() + x;
-                        int wz = chunk.getOriginZ() + z;
-                        int nwx = wx + DIRECTIONS[f][0];
-                        int nwy = y + DIRECTIONS[f][1];
-                        int nwz = wz + DIRECTIONS[f][2];
-                        boolean neighborSolid = (world != null) && world.isOccluding(nwx, nwy, nwz);
-                        if (neighborSolid) continue;
-                        String texName = block.getFaceTextureName(f);
+                        // Voisin lu dans le chunk maillé (l'instantané) tant qu'il est à l'intérieur
+                        if (isOccludingFrom(chunk, cursor, x + DIRECTIONS[f][0], y + DIRECTIONS[f][1], z + DIRECTIONS[f][2])) continue;
+                        String texName = Blocks.getFaceTextureName(id, f);
+                        if (texName == null) continue;
                         Acc acc = accs.computeIfAbsent(texName, k -> new Acc());
                         float[] lightLevels = switch (f) {
                             case 0 -> new float[]{
@@ -681,11 +886,11 @@ public class Render {
                         };
                         // --- Ajout couleur biome pour tintable ---
                         float[][] atlasUVs = getAtlasUVs(texName);
-                        if (block instanceof Tintable tintable) {
-                            Biome biome = world.getBiomeAt(wx, wz);
-                            addFaceWithUVs(acc.verts, acc.inds, x, y, z, f, NORMALS[f], acc.indexOffset, lightLevels, biome.getByTint(tintable.getTintType()), atlasUVs);
+                        if (Blocks.isTintable(id)) {
+                            // Teinte lissée de la colonne, lue dans la table du chunk
+                            addFaceWithUVs(acc.verts, acc.inds, x, y, z, f, NORMALS[f], acc.indexOffset, lightLevels, chunk.getTint(Blocks.getTintType(id), x, z), atlasUVs);
                         } else {
-                            addFaceWithUVs(acc.verts, acc.inds, x, y, z, f, NORMALS[f], acc.indexOffset, lightLevels, Biome.NORMAL.getByTint(TintType.GRASS), atlasUVs);
+                            addFaceWithUVs(acc.verts, acc.inds, x, y, z, f, NORMALS[f], acc.indexOffset, lightLevels, DEFAULT_TINT, atlasUVs);
                         }
                         acc.indexOffset += 4;
                     }
@@ -696,6 +901,51 @@ public class Render {
         return accs;
     }
 
+    // Voisin opaque en coordonnées locales au chunk : lu directement dans le chunk, via le curseur au-delà
+    private static boolean isOccludingFrom(BaseChunk chunk, @Nullable WorldCursor cursor, int x, int y, int z) {
+        if (y < BaseChunk.MIN_CHUNK_Y || y >= BaseChunk.CHUNK_Y) return false;
+        if (x >= 0 && x < BaseChunk.CHUNK_X && z >= 0 && z < BaseChunk.CHUNK_Z) {
+            return Blocks.isOpaque(chunk.getBlockId(x, y, z));
+        }
+        return cursor != null && cursor.isOccluding(chunk.getOriginX() + x, y, chunk.getOriginZ() + z);
+    }
+
+    // Nature de chaque section pour les raccourcis du mesher
+    private static final byte SECTION_MIXED = 0;
+    private static final byte SECTION_EMPTY = 1;
+    private static final byte SECTION_SOLID = 2; // uniforme et opaque
+
+    private static byte[] classifySections(BaseChunk chunk) {
+        byte[] kinds = new byte[BaseChunk.SECTION_COUNT];
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            if (chunk.isSectionEmpty(sy)) {
+                kinds[sy] = SECTION_EMPTY;
+            } else if (chunk.isSectionUniform(sy)) {
+                if (Blocks.isOpaque(chunk.getSectionUniformId(sy))) kinds[sy] = SECTION_SOLID;
+            }
+        }
+        return kinds;
+    }
+
+    /**
+     * Vrai si aucune face f ne peut être visible sur la ligne (y, w) du mesher greedy :
+     * section vide, ou section pleine dont le voisin dans la direction f reste dans la même section.
+     */
+    private static boolean isGreedyRowHidden(byte[] sectionKinds, int f, int y, int w) {
+        byte kind = sectionKinds[y >> ChunkSection.SECTION_SHIFT];
+        if (kind == SECTION_EMPTY) return true;
+        if (kind != SECTION_SOLID) return false;
+        int ly = y & (ChunkSection.SECTION_HEIGHT - 1);
+        return switch (f) {
+            case 0 -> w + 1 < Chunk.CHUNK_X;
+            case 1 -> w > 0;
+            case 2 -> ly + 1 < ChunkSection.SECTION_HEIGHT;
+            case 3 -> ly > 0;
+            case 4 -> w + 1 < Chunk.CHUNK_Z;
+            default -> w > 0;
+        };
+    }
+
     // Nouvelle méthode pour créer les MeshBatch à partir de RawMeshData (thread principal)
     private List<MeshBatch> buildMeshBatchesFromRaw(RawMeshData raw) {
         List<MeshBatch> out = new ArrayList<>();
@@ -710,11 +960,38 @@ public class Render {
         return out;
     }
 
-    // Idem pour buildChunkMeshesNonGreedy
-    private RawMeshData buildChunkMeshesNonGreedyRaw(BaseChunk chunk) {
-        Map<String, Acc> accs = buildChunkFaces(chunk);
+    // Meshes non greedy des sections du masque (null pour les autres)
+    private RawMeshData[] buildSectionMeshesRaw(BaseChunk chunk, int sectionMask) {
+        RawMeshData[] out = new RawMeshData[BaseChunk.SECTION_COUNT];
+        WorldCursor cursor = world != null ? world.getCursor() : null;
+        byte[] sectionKinds = classifySections(chunk);
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            if ((sectionMask & (1 << sy)) == 0) continue;
+            out[sy] = convertAccsToRawMeshData(buildSectionFaces(chunk, sy, sectionKinds, cursor));
+        }
+        return out;
+    }
 
-        return convertAccsToRawMeshData(accs);
+    /**
+     * Construit sans OpenGL les données de mesh (non greedy) des sections du masque et renvoie le nombre
+     * de sommets produits. Sert à mesurer le coût d'un remaillage hors du jeu.
+     */
+    public int buildSectionMeshData(BaseChunk chunk, int sectionMask) {
+        int vertices = 0;
+        for (RawMeshData raw : buildSectionMeshesRaw(chunk, sectionMask)) {
+            if (raw == null) continue;
+            for (int[] indices : raw.indicesByTexture.values()) vertices += indices.length / 6 * 4;
+        }
+        return vertices;
+    }
+
+    /**
+     * Idem avec le mesher greedy (celui des chunks lointains), sur tout le chunk
+     */
+    public int buildGreedyMeshData(BaseChunk chunk) {
+        int vertices = 0;
+        for (int[] indices : buildChunkMeshesGreedyRaw(chunk).indicesByTexture.values()) vertices += indices.length / 6 * 4;
+        return vertices;
     }
 
     // Helper method to get atlas UV coordinates for a texture
@@ -753,14 +1030,20 @@ public class Render {
     }
 
     // Ajoute une face de cube à la liste
-    private static void addFace(List<Float> verts, List<Integer> inds, int x, int y, int z, int f, Vector3f normal, int indexOffset, float[] lightLevels, Vector3f biomeColor) {
+    private static void addFace(List<Float> verts, List<Integer> inds, int x, int y, int z, int f, Vector3f normal, int indexOffset, float[] lightLevels, int biomeColor) {
         // For backward compatibility, use default UVs
         float[][] uvs = new float[][]{{0,0},{1,0},{1,1},{0,1}};
         addFaceWithUVs(verts, inds, x, y, z, f, normal, indexOffset, lightLevels, biomeColor, uvs);
     }
 
     // Ajoute une face de cube avec des UVs personnalisées
-    private static void addFaceWithUVs(List<Float> verts, List<Integer> inds, int x, int y, int z, int f, Vector3f normal, int indexOffset, float[] lightLevels, Vector3f biomeColor, float[][] uvs) {
+    // Composantes d'une teinte 0xRRGGBB, entre 0 et 1
+    private static float tintRed(int rgb) { return ((rgb >> 16) & 0xFF) / 255.0f; }
+    private static float tintGreen(int rgb) { return ((rgb >> 8) & 0xFF) / 255.0f; }
+    private static float tintBlue(int rgb) { return (rgb & 0xFF) / 255.0f; }
+
+    // biomeColor : teinte en 0xRRGGBB (voir BaseChunk.getTint)
+    private static void addFaceWithUVs(List<Float> verts, List<Integer> inds, int x, int y, int z, int f, Vector3f normal, int indexOffset, float[] lightLevels, int biomeColor, float[][] uvs) {
         float[][] corners = switch (f) {
             case 0 ->
                     new float[][]{{(float) x + 1, (float) y, (float) z + 1}, {(float) x + 1, (float) y, (float) z}, {(float) x + 1, (float) y + 1, (float) z}, {(float) x + 1, (float) y + 1, (float) z + 1}};
@@ -775,27 +1058,29 @@ public class Render {
             default ->
                     new float[][]{{(float) x + 1, (float) y, (float) z}, {(float) x, (float) y, (float) z}, {(float) x, (float) y + 1, (float) z}, {(float) x + 1, (float) y + 1, (float) z}};
         };
-        float[] color = new float[]{biomeColor.x, biomeColor.y, biomeColor.z}; // Couleur du biome
+        float red = tintRed(biomeColor), green = tintGreen(biomeColor), blue = tintBlue(biomeColor); // Couleur du biome
         for (int i = 0; i < 4; i++) {
             float[] c = corners[i];
             verts.add(c[0]); verts.add(c[1]); verts.add(c[2]);
             verts.add(uvs[i][0]); verts.add(uvs[i][1]);
             verts.add(normal.x); verts.add(normal.y); verts.add(normal.z);
             verts.add(lightLevels[i]);
-            verts.add(color[0]); verts.add(color[1]); verts.add(color[2]); // couleur biome ou -1
+            verts.add(red); verts.add(green); verts.add(blue); // couleur biome
         }
         inds.add(indexOffset); inds.add(indexOffset + 1); inds.add(indexOffset + 2);
         inds.add(indexOffset + 2); inds.add(indexOffset + 3); inds.add(indexOffset);
     }
 
     // Utilitaire pour éviter les ArrayIndexOutOfBounds lors de l'accès à la lumière
+    // Bloc courant et ses 6 voisins, moyennés pour lisser la lumière des sommets
+    private static final int[][] LIGHT_SAMPLE_OFFSETS = {{0,0,0},{1,0,0},{-1,0,0},{0,1,0},{0,-1,0},{0,0,1},{0,0,-1}};
+
     public static float safeGetLightLevel(BaseChunk chunk, int x, int y, int z) {
         if (y >= BaseChunk.CHUNK_Y) return 1.0f; // ciel
         if (x < 0 || y < 0 || z < 0) return 0.0f; // hors chunk
         float sum = 0.0f;
         int count = 0;
-        int[][] dirs = {{0,0,0},{1,0,0},{-1,0,0},{0,1,0},{0,-1,0},{0,0,1},{0,0,-1}};
-        for (int[] d : dirs) {
+        for (int[] d : LIGHT_SAMPLE_OFFSETS) {
             int nx = x + d[0];
             int ny = y + d[1];
             int nz = z + d[2];
@@ -806,7 +1091,7 @@ public class Render {
                 if (chunk.getWorld() == null) continue;
                 int wx = chunk.getOriginX() + nx;
                 int wz = chunk.getOriginZ() + nz;
-                refChunk = chunk.getWorld().getChunkAt(wx, wz);
+                refChunk = chunk.getWorld().getCursor().getChunkAt(wx, wz);
                 if (refChunk == null) continue;
                 cx = (wx % BaseChunk.CHUNK_X + BaseChunk.CHUNK_X) % BaseChunk.CHUNK_X;
                 cz = (wz % BaseChunk.CHUNK_Z + BaseChunk.CHUNK_Z) % BaseChunk.CHUNK_Z;
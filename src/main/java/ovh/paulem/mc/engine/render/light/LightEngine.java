@@ -4,6 +4,9 @@ import lombok.Getter;
 import ovh.paulem.mc.Values;
 import ovh.paulem.mc.world.BaseChunk;
 import ovh.paulem.mc.world.Chunk;
+import ovh.paulem.mc.world.ChunkSection;
+import ovh.paulem.mc.world.block.Blocks;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.Set;
@@ -16,6 +19,8 @@ public class LightEngine {
     private final Queue<BaseChunk> lightQueue = new ConcurrentLinkedQueue<>();
     // Chunks déjà en cours de traitement pour éviter les doublons (ensemble concurrent)
     private final Set<BaseChunk> processing = ConcurrentHashMap.newKeySet();
+    // Chunks modifiés pendant leur calcul : à recalculer une fois celui-ci publié
+    private final Set<BaseChunk> rerun = ConcurrentHashMap.newKeySet();
     // Thread pool pour la lumière
     @Getter
     private final ExecutorService lightExecutor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
@@ -25,17 +30,23 @@ public class LightEngine {
         // Initialisation du moteur de lumière
     }
 
-    // À appeler à chaque frame (depuis World ou Render)
+    // À appeler à chaque frame depuis le thread qui modifie les blocs (World.update) : l'instantané des
+    // blocs lu par le calcul est pris ici
     public void processLightQueue() {
         int processed = 0;
         while (processed < Values.LIGHT_PER_FRAME_BUDGET) {
             BaseChunk chunk = lightQueue.poll();
             if (chunk == null) break;
+            // Les modifications faites jusqu'ici sont dans l'instantané
+            rerun.remove(chunk);
+            BaseChunk blocks = chunk.snapshot();
             lightExecutor.submit(() -> {
                 try {
-                    propagateSkyLightSync(chunk);
+                    propagateSkyLightSync(chunk, blocks);
                 } finally {
+                    blocks.release();
                     processing.remove(chunk);
+                    if (rerun.remove(chunk)) propagateSkyLight(chunk);
                 }
             });
             processed++;
@@ -78,26 +89,122 @@ public class LightEngine {
         }
     }
 
-    // Appel synchrone (interne, ne pas utiliser directement)
-    private void propagateSkyLightSync(BaseChunk chunk) {
-        // 1. Propagation verticale (remplir la colonne d'air)
+    /**
+     * Lumière en cours de calcul, par thread : nibbles empaquetés par section comme dans {@link ChunkSection}.
+     * Le calcul lit les blocs d'un instantané et écrit ici ; les sections vivantes ne reçoivent que le
+     * résultat, d'un bloc par section, et les lecteurs (mesh, sauvegarde) ne voient jamais de lumière à moitié calculée.
+     */
+    private static final class LightBuffer {
+        final byte[][] nibbles = new byte[BaseChunk.SECTION_COUNT][ChunkSection.VOLUME / 2];
+
+        byte get(int x, int y, int z) {
+            int index = index(x, y, z);
+            byte b = nibbles[y >> ChunkSection.SECTION_SHIFT][index >> 1];
+            return (byte) ((index & 1) == 0 ? (b >> 4) & 0xF : b & 0xF);
+        }
+
+        void set(int x, int y, int z, byte level) {
+            int index = index(x, y, z);
+            byte[] section = nibbles[y >> ChunkSection.SECTION_SHIFT];
+            byte b = section[index >> 1];
+            section[index >> 1] = (byte) ((index & 1) == 0 ? (b & 0x0F) | ((level & 0xF) << 4) : (b & 0xF0) | (level & 0xF));
+        }
+
+        void fill(int sectionY, byte level) {
+            Arrays.fill(nibbles[sectionY], packNibbles(level));
+        }
+
+        // Niveau commun à toute la section, -1 si elle n'est pas uniforme
+        int uniformLevel(int sectionY) {
+            byte[] section = nibbles[sectionY];
+            byte first = section[0];
+            if (((first >> 4) & 0xF) != (first & 0xF)) return -1;
+            for (byte b : section) {
+                if (b != first) return -1;
+            }
+            return first & 0xF;
+        }
+
+        private static int index(int x, int y, int z) {
+            return x + BaseChunk.CHUNK_X * (z + BaseChunk.CHUNK_Z * (y & (ChunkSection.SECTION_HEIGHT - 1)));
+        }
+
+        private static byte packNibbles(byte level) {
+            return (byte) (((level & 0xF) << 4) | (level & 0xF));
+        }
+    }
+
+    private final ThreadLocal<LightBuffer> lightBuffer = ThreadLocal.withInitial(LightBuffer::new);
+
+    // Appel synchrone (interne, ne pas utiliser directement) : calcul sur l'instantané, puis publication
+    // dans le chunk vivant des seules sections dont la lumière a changé
+    private void propagateSkyLightSync(BaseChunk chunk, BaseChunk blocks) {
+        // Pas de lumière par voxel hors des chunks à sections (LoD)
+        if (!(chunk instanceof Chunk sectioned)) return;
+        LightBuffer light = lightBuffer.get();
+        if (!relight(blocks, light)) return;
+        int changed = 0;
+        int top = ChunkSection.SECTION_HEIGHT - 1;
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            ChunkSection section = sectioned.getSection(sy);
+            byte[] computed = light.nibbles[sy];
+            if (section.lightEquals(computed, 0, top)) continue;
+            changed |= 1 << sy;
+            // La lumière lissée des sommets lit une couche au-delà de la section
+            if (sy > 0 && !section.lightEquals(computed, 0, 0)) changed |= 1 << (sy - 1);
+            if (sy < BaseChunk.SECTION_COUNT - 1 && !section.lightEquals(computed, top, top)) changed |= 1 << (sy + 1);
+            int uniform = light.uniformLevel(sy);
+            if (uniform >= 0) {
+                section.fillLight((byte) uniform);
+            } else {
+                section.setLight(computed);
+            }
+        }
+        // Après la publication : un mesh qui voit les nouvelles versions voit aussi la nouvelle lumière
+        chunk.invalidateSections(changed);
+    }
+
+    // Calcule la lumière des blocs dans light ; false si le calcul a été abandonné (file trop longue)
+    private boolean relight(BaseChunk chunk, LightBuffer light) {
+        // 0. Sections uniformes : le ciel vide au-dessus du terrain est plein jour, et tout ce qui se
+        // trouve sous une section opaque uniforme reste dans le noir (la lumière ne peut pas traverser
+        // une couche pleine de 32x16x32). Ces sections sont remplies d'un coup, sans visiter les voxels.
+        int top = BaseChunk.SECTION_COUNT;
+        while (top > 0 && chunk.isSectionEmpty(top - 1)) {
+            top--;
+            light.fill(top, Values.MAX_LIGHT);
+        }
+        int bottom = 0;
+        for (int sy = top - 1; sy >= 0; sy--) {
+            if (chunk.isSectionUniform(sy) && isOpaque(chunk.getSectionUniformId(sy))) {
+                for (int dark = sy; dark >= 0; dark--) {
+                    light.fill(dark, (byte) 0);
+                }
+                bottom = sy + 1;
+                break;
+            }
+        }
+        int maxY = top * ChunkSection.SECTION_HEIGHT;
+        int minY = bottom * ChunkSection.SECTION_HEIGHT;
+
+        // 1. Propagation verticale : grâce à la heightmap, tout ce qui est au-dessus du plus haut bloc opaque
+        // est en plein jour (sous les feuilles comprises) et tout ce qui est dessous est dans le noir avant la BFS
         IntRingQueue queue = new IntRingQueue(Chunk.CHUNK_X * Chunk.CHUNK_Z * 4);
         for (byte x = 0; x < Chunk.CHUNK_X; x++) {
             for (byte z = 0; z < Chunk.CHUNK_Z; z++) {
-                byte light = Values.MAX_LIGHT;
-                for (int y = Chunk.CHUNK_Y - 1; y >= 0; y--) {
-                    byte blockId = chunk.getBlockId(x, y, z);
-                    if (isOpaque(blockId)) {
-                        light = 0;
-                    }
-                    chunk.setLightLevel(x, y, z, light);
-                    if (light > 0) {
-                        if (queue.size() < MAX_LIGHT_QUEUE_SIZE) {
-                            queue.add(encodePos(x, y, z));
-                        } else {
-                            System.err.println("[LightEngine] Limite de queue atteinte lors de la propagation verticale, arrêt de la propagation.");
-                            return;
-                        }
+                int height = chunk.getHighestOpaqueY(x, z);
+                for (int y = maxY - 1; y >= minY; y--) {
+                    light.set(x, y, z, y > height ? Values.MAX_LIGHT : 0);
+                }
+                // Seuls les blocs éclairés à côté d'une colonne plus haute peuvent encore propager
+                // quelque chose (vers un surplomb ou une grotte voisine) : ce sont les seuls germes de la BFS
+                int seedTop = Math.min(maxY - 1, neighborMaxHeight(chunk, x, z));
+                for (int y = Math.max(height + 1, minY); y <= seedTop; y++) {
+                    if (queue.size() < MAX_LIGHT_QUEUE_SIZE) {
+                        queue.add(encodePos(x, y, z));
+                    } else {
+                        System.err.println("[LightEngine] Limite de queue atteinte lors de la propagation verticale, arrêt de la propagation.");
+                        return false;
                     }
                 }
             }
@@ -110,7 +217,7 @@ public class LightEngine {
             int x = decodeX(pos);
             int y = decodeY(pos);
             int z = decodeZ(pos);
-            byte current = chunk.getLightLevel(x, y, z);
+            byte current = light.get(x, y, z);
             for (byte[] d : dirs) {
                 int nx = x + d[0];
                 int ny = y + d[1];
@@ -119,19 +226,30 @@ public class LightEngine {
                     continue;
                 byte neighborId = chunk.getBlockId(nx, ny, nz);
                 if (isOpaque(neighborId)) continue;
-                byte neighborLight = chunk.getLightLevel(nx, ny, nz);
+                byte neighborLight = light.get(nx, ny, nz);
                 int newLight = (d[1] == -1) ? current : current - 1; // vers le bas : pas d'atténuation
                 if (newLight > 0 && neighborLight < newLight) {
-                    chunk.setLightLevel(nx, ny, nz, (byte) newLight);
+                    light.set(nx, ny, nz, (byte) newLight);
                     if (queue.size() < MAX_LIGHT_QUEUE_SIZE) {
                         queue.add(encodePos(nx, ny, nz));
                     } else {
                         System.err.println("[LightEngine] Limite de queue atteinte lors de la propagation horizontale, arrêt de la propagation.");
-                        return;
+                        return false;
                     }
                 }
             }
         }
+        return true;
+    }
+
+    // Plus haute colonne opaque parmi les 4 voisines (dans le chunk)
+    private int neighborMaxHeight(BaseChunk chunk, int x, int z) {
+        int max = -1;
+        if (x > 0) max = Math.max(max, chunk.getHighestOpaqueY(x - 1, z));
+        if (x < Chunk.CHUNK_X - 1) max = Math.max(max, chunk.getHighestOpaqueY(x + 1, z));
+        if (z > 0) max = Math.max(max, chunk.getHighestOpaqueY(x, z - 1));
+        if (z < Chunk.CHUNK_Z - 1) max = Math.max(max, chunk.getHighestOpaqueY(x, z + 1));
+        return max;
     }
 
     // Encode x, y, z dans un int (8 bits chacun, max 256)
@@ -142,16 +260,28 @@ public class LightEngine {
     private int decodeY(int pos) { return (pos >> 8) & 0xFF; }
     private int decodeZ(int pos) { return (pos >> 16) & 0xFF; }
 
+    // Calcul immédiat sur le thread appelant, sans file ni instantané : réservé aux chunks hors du monde
+    // (génération détachée), que personne d'autre ne modifie pendant le calcul
+    public void propagateSkyLightNow(BaseChunk chunk) {
+        propagateSkyLightSync(chunk, chunk);
+    }
+
     // Propagation améliorée de la lumière du ciel (lumière du soleil)
     public void propagateSkyLight(BaseChunk chunk) {
         if (processing.add(chunk)) {
             lightQueue.add(chunk);
+            return;
+        }
+        // Déjà en file ou en cours : refait après publication, sauf si le calcul s'est terminé entre-temps
+        rerun.add(chunk);
+        if (processing.add(chunk)) {
+            rerun.remove(chunk);
+            lightQueue.add(chunk);
         }
     }
 
-    // Détermine si un bloc est opaque (à adapter selon vos types de blocs)
-    private boolean isOpaque(byte blockId) {
-        // Par défaut, l'air (id 0) n'est pas opaque, les autres le sont
-        return blockId != 0;
+    // Les blocs transparents (feuilles) laissent passer la lumière comme l'air
+    private static boolean isOpaque(byte blockId) {
+        return Blocks.isOpaque(blockId);
     }
 }
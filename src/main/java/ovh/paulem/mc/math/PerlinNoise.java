@@ -1,8 +1,45 @@
 package ovh.paulem.mc.math;
 
+import java.util.Locale;
+
+/**
+ * Bruit de Perlin amélioré (Ken Perlin, 2002), point par point ou par grille.
+ * <p>
+ * Le gradient d'un sommet a deux implémentations, choisies au chargement de la classe par
+ * {@code -Dmc.noise=scalar|branchless} (branchless par défaut) :
+ * <ul>
+ *     <li>{@link Backend#SCALAR} : la formulation d'origine, trois choix selon le hachage ;</li>
+ *     <li>{@link Backend#BRANCHLESS} : le hachage indexe trois tables de coefficients (+1, -1 ou 0) et le
+ *     gradient est un produit scalaire, sans branchement imprévisible dans les boucles de bruit.</li>
+ * </ul>
+ * Les deux donnent les mêmes valeurs ; si la vérification faite au chargement le dément, ou si la propriété est
+ * inconnue, on retombe sur {@link Backend#SCALAR}.
+ */
 public class PerlinNoise {
+    public enum Backend { SCALAR, BRANCHLESS }
+
+    // Coefficients du gradient de chaque hachage (h & 15) sur x, y et z
+    private static final double[] GRAD_X = new double[16];
+    private static final double[] GRAD_Y = new double[16];
+    private static final double[] GRAD_Z = new double[16];
+
+    static {
+        for (int h = 0; h < 16; h++) {
+            GRAD_X[h] = gradScalar(h, 1, 0, 0);
+            GRAD_Y[h] = gradScalar(h, 0, 1, 0);
+            GRAD_Z[h] = gradScalar(h, 0, 0, 1);
+        }
+    }
+
+    private static final Backend BACKEND = selectBackend();
+    // Constante pour le JIT : grad() se réduit à une seule des deux implémentations
+    private static final boolean BRANCHLESS = BACKEND == Backend.BRANCHLESS;
+
     private final int[] p = new int[512];
 
+    // Tableaux de travail des remplissages par grille (un jeu par thread de génération)
+    private static final ThreadLocal<Lattice> lattices = ThreadLocal.withInitial(Lattice::new);
+
     public PerlinNoise(long seed) {
         FastRandom rand = new FastRandom(seed);
         int[] permutation = new int[256];
@@ -17,12 +54,56 @@ public class PerlinNoise {
     private static double fade(double t) { return t * t * t * (t * (t * 6 - 15) + 10); }
     private static double lerp(double t, double a, double b) { return a + t * (b - a); }
     private static double grad(int hash, double x, double y, double z) {
+        return BRANCHLESS ? gradBranchless(hash, x, y, z) : gradScalar(hash, x, y, z);
+    }
+
+    private static double gradScalar(int hash, double x, double y, double z) {
         int h = hash & 15;
         double u = h < 8 ? x : y;
         double v = h < 4 ? y : (h == 12 || h == 14 ? x : z);
         return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
     }
 
+    private static double gradBranchless(int hash, double x, double y, double z) {
+        int h = hash & 15;
+        return GRAD_X[h] * x + GRAD_Y[h] * y + GRAD_Z[h] * z;
+    }
+
+    private static Backend selectBackend() {
+        String name = System.getProperty("mc.noise", "branchless");
+        Backend wanted;
+        try {
+            wanted = Backend.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[PerlinNoise] Implémentation inconnue '" + name + "', retour au calcul scalaire");
+            return Backend.SCALAR;
+        }
+        if (wanted == Backend.BRANCHLESS && !branchlessMatchesScalar()) {
+            System.err.println("[PerlinNoise] Le gradient sans branchement diffère du calcul scalaire, retour au calcul scalaire");
+            return Backend.SCALAR;
+        }
+        return wanted;
+    }
+
+    // Les deux gradients doivent coïncider (au signe du zéro près) pour tous les hachages
+    private static boolean branchlessMatchesScalar() {
+        FastRandom rand = new FastRandom(0x5eedL);
+        for (int i = 0; i < 256; i++) {
+            double x = rand.nextDouble() * 2 - 1;
+            double y = rand.nextDouble() * 2 - 1;
+            double z = rand.nextDouble() * 2 - 1;
+            for (int h = 0; h < 16; h++) {
+                if (gradBranchless(h, x, y, z) != gradScalar(h, x, y, z)) return false;
+            }
+        }
+        return true;
+    }
+
+    // Implémentation du gradient retenue pour cette JVM
+    public static Backend getBackend() {
+        return BACKEND;
+    }
+
     public double noise(double x, double y) {
         return noise(x, y, 0.0);
     }
@@ -44,4 +125,152 @@ public class PerlinNoise {
                 lerp(v, lerp(u, grad(p[AA+1], x, y, z-1), grad(p[BA+1], x-1, y, z-1)),
                         lerp(u, grad(p[AB+1], x, y-1, z-1), grad(p[BB+1], x-1, y-1, z-1))));
     }
-}
\ No newline at end of file
+
+    /**
+     * Remplit {@code out} avec {@code noise(x0 + i * step, y0 + j * step)} pour i &lt; countX, j &lt; countY,
+     * rangé en {@code out[j * countX + i]}. Même résultat que les appels point par point, mais la partie
+     * entière, la fraction et le fade de chaque colonne et de chaque ligne ne sont calculés qu'une fois,
+     * et les hachages de la maille ne sont relus que quand l'échantillon change de maille.
+     */
+    public void fill2D(double[] out, double x0, double y0, double step, int countX, int countY) {
+        Lattice l = lattices.get();
+        l.axis(0, x0, step, countX);
+        l.axis(1, y0, step, countY);
+        for (int j = 0; j < countY; j++) {
+            row2D(out, j * countX, l, j, countX);
+        }
+    }
+
+    public void fill2D(float[] out, double x0, double y0, double step, int countX, int countY) {
+        Lattice l = lattices.get();
+        l.axis(0, x0, step, countX);
+        l.axis(1, y0, step, countY);
+        double[] row = l.row(countX);
+        for (int j = 0; j < countY; j++) {
+            row2D(row, 0, l, j, countX);
+            for (int i = 0; i < countX; i++) out[j * countX + i] = (float) row[i];
+        }
+    }
+
+    /**
+     * Remplit {@code out} avec {@code noise(x0 + i * stepX, y0 + j * stepY, z0 + k * stepZ)},
+     * rangé en {@code out[(k * countY + j) * countX + i]} (x varie le plus vite). Même contrat que
+     * {@link #fill2D(double[], double, double, double, int, int)} ; une colonne verticale
+     * (countX = countZ = 1) ne recalcule que l'axe y.
+     */
+    public void fill3D(double[] out, double x0, double y0, double z0, double stepX, double stepY, double stepZ,
+                       int countX, int countY, int countZ) {
+        Lattice l = lattices.get();
+        l.axis(0, x0, stepX, countX);
+        l.axis(1, y0, stepY, countY);
+        l.axis(2, z0, stepZ, countZ);
+        for (int k = 0; k < countZ; k++) {
+            for (int j = 0; j < countY; j++) {
+                row3D(out, (k * countY + j) * countX, l, j, k, countX);
+            }
+        }
+    }
+
+    public void fill3D(float[] out, double x0, double y0, double z0, double stepX, double stepY, double stepZ,
+                       int countX, int countY, int countZ) {
+        Lattice l = lattices.get();
+        l.axis(0, x0, stepX, countX);
+        l.axis(1, y0, stepY, countY);
+        l.axis(2, z0, stepZ, countZ);
+        double[] row = l.row(countX);
+        for (int k = 0; k < countZ; k++) {
+            for (int j = 0; j < countY; j++) {
+                row3D(row, 0, l, j, k, countX);
+                int base = (k * countY + j) * countX;
+                for (int i = 0; i < countX; i++) out[base + i] = (float) row[i];
+            }
+        }
+    }
+
+    // Une ligne à y fixe et z = 0 : fade(0) = 0, seule la moitié basse du cube contribue (comme noise(x, y))
+    private void row2D(double[] out, int offset, Lattice l, int j, int countX) {
+        final int[] p = this.p;
+        final int[] cx = l.cell[0];
+        final double[] fx = l.frac[0];
+        final double[] ux = l.fade[0];
+        final int Y = l.cell[1][j];
+        final double y = l.frac[1][j];
+        final double v = l.fade[1][j];
+        int lastX = -1;
+        int AA = 0, AB = 0, BA = 0, BB = 0;
+        for (int i = 0; i < countX; i++) {
+            int X = cx[i];
+            if (X != lastX) {
+                lastX = X;
+                int A = p[X] + Y, B = p[X + 1] + Y;
+                AA = p[p[A]]; AB = p[p[A + 1]];
+                BA = p[p[B]]; BB = p[p[B + 1]];
+            }
+            double x = fx[i];
+            double u = ux[i];
+            out[offset + i] = lerp(v, lerp(u, grad(AA, x, y, 0.0), grad(BA, x - 1, y, 0.0)),
+                    lerp(u, grad(AB, x, y - 1, 0.0), grad(BB, x - 1, y - 1, 0.0)));
+        }
+    }
+
+    private void row3D(double[] out, int offset, Lattice l, int j, int k, int countX) {
+        final int[] p = this.p;
+        final int[] cx = l.cell[0];
+        final double[] fx = l.frac[0];
+        final double[] ux = l.fade[0];
+        final int Y = l.cell[1][j];
+        final double y = l.frac[1][j];
+        final double v = l.fade[1][j];
+        final int Z = l.cell[2][k];
+        final double z = l.frac[2][k];
+        final double w = l.fade[2][k];
+        int lastX = -1;
+        int AA = 0, AB = 0, BA = 0, BB = 0;
+        for (int i = 0; i < countX; i++) {
+            int X = cx[i];
+            if (X != lastX) {
+                lastX = X;
+                int A = p[X] + Y, B = p[X + 1] + Y;
+                AA = p[A] + Z; AB = p[A + 1] + Z;
+                BA = p[B] + Z; BB = p[B + 1] + Z;
+            }
+            double x = fx[i];
+            double u = ux[i];
+            out[offset + i] = lerp(w, lerp(v, lerp(u, grad(p[AA], x, y, z), grad(p[BA], x-1, y, z)),
+                            lerp(u, grad(p[AB], x, y-1, z), grad(p[BB], x-1, y-1, z))),
+                    lerp(v, lerp(u, grad(p[AA+1], x, y, z-1), grad(p[BA+1], x-1, y, z-1)),
+                            lerp(u, grad(p[AB+1], x, y-1, z-1), grad(p[BB+1], x-1, y-1, z-1))));
+        }
+    }
+
+    // Maille de chaque échantillon sur les trois axes : partie entière (masquée), fraction et fade
+    private static final class Lattice {
+        int[][] cell = new int[3][0];
+        double[][] frac = new double[3][0];
+        double[][] fade = new double[3][0];
+        double[] row = new double[0];
+
+        void axis(int a, double origin, double step, int count) {
+            if (cell[a].length < count) {
+                cell[a] = new int[count];
+                frac[a] = new double[count];
+                fade[a] = new double[count];
+            }
+            int[] c = cell[a];
+            double[] f = frac[a];
+            double[] d = fade[a];
+            for (int i = 0; i < count; i++) {
+                double t = origin + i * step;
+                double floor = Math.floor(t);
+                c[i] = (int) floor & 255;
+                f[i] = t - floor;
+                d[i] = PerlinNoise.fade(f[i]);
+            }
+        }
+
+        double[] row(int count) {
+            if (row.length < count) row = new double[count];
+            return row;
+        }
+    }
+}
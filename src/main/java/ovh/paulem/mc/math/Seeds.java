@@ -11,4 +11,21 @@ public class Seeds {
         }
         return hash;
     }
+
+    /**
+     * Graine propre au chunk (cx, cz) et à un usage ({@code salt}) : chaque chunk a son propre flux aléatoire,
+     * le même quel que soit l'ordre ou le thread de génération. Mélange de SplitMix64.
+     */
+    public static long forChunk(long worldSeed, int cx, int cz, long salt) {
+        long h = worldSeed ^ salt;
+        h = mix(h + 0x9E3779B97F4A7C15L * (cx & 0xffffffffL));
+        h = mix(h + 0x9E3779B97F4A7C15L * (cz & 0xffffffffL));
+        return h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
 }
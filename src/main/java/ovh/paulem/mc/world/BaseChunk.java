@@ -1,31 +1,157 @@
 package ovh.paulem.mc.world;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import ovh.paulem.mc.engine.render.texture.TintType;
+import ovh.paulem.mc.world.block.Blocks;
 import ovh.paulem.mc.world.block.types.Block;
 
+import java.util.Arrays;
+
 @Getter
 public abstract class BaseChunk {
     public static final byte CHUNK_X = 32;
     public static final byte MIN_CHUNK_Y = 0;
     public static final short CHUNK_Y = 256;
     public static final byte CHUNK_Z = 32;
+    // log2(CHUNK_X) = log2(CHUNK_Z) : passage coordonnée monde -> chunk par décalage
+    public static final int CHUNK_SHIFT = 5;
+    public static final int SECTION_COUNT = CHUNK_Y / ChunkSection.SECTION_HEIGHT;
+    public static final int ALL_SECTIONS = (1 << SECTION_COUNT) - 1;
 
     protected final World world;
     protected final int originX;
     protected final int originZ;
     protected volatile int version = 0;
     protected volatile boolean dirty = false;
+    // Version de chaque section, incrémentée avant la version du chunk (l'écriture volatile de version
+    // publie les compteurs) : le rendu ne remaille que les sections dont la version a changé
+    @Getter(AccessLevel.NONE)
+    private final int[] sectionVersions = new int[SECTION_COUNT];
+
+    // log2 de la taille d'une cellule de stockage (0 à pleine résolution, facteur de LoD sinon)
+    @Getter(AccessLevel.NONE)
+    private final int lodShift;
+
+    // Heightmaps par colonne de cellules (index cx + (CHUNK_X >> lodShift) * cz), -1 pour une colonne vide :
+    // plus haut bloc opaque et plus haut bloc non-air, tenues à jour par setBlockId
+    @Getter(AccessLevel.NONE)
+    private final short[] opaqueHeightmap;
+    @Getter(AccessLevel.NONE)
+    private final short[] blockHeightmap;
+    // Instantané figé (voir snapshot()) : aucune écriture permise
+    private final boolean snapshot;
+    // Biome de chaque colonne (ordinal, index x + CHUNK_X * z), fixé à la génération ou calculé au premier
+    // accès pour un chunk relu du disque ; jamais modifié ensuite, donc partagé avec les instantanés
+    @Getter(AccessLevel.NONE)
+    private volatile byte[] biomes;
+    // Teintes d'herbe et de feuillage lissées de chaque colonne (voir BiomeTints), fixées à la génération
+    // comme les biomes et partagées de la même façon
+    @Getter(AccessLevel.NONE)
+    private volatile int[] tints;
+    private static final Biome[] BIOMES = Biome.values();
+    // Dernière étape de génération terminée (voir ChunkGenerator) ; un chunk relu du disque ou sous-échantillonné
+    // est complet
+    private volatile ChunkStatus status = ChunkStatus.FULL;
 
     public BaseChunk(World world, int originX, int originZ) {
+        this(world, originX, originZ, 1);
+    }
+
+    protected BaseChunk(World world, int originX, int originZ, int lodFactor) {
         this.world = world;
         this.originX = originX;
         this.originZ = originZ;
+        this.lodShift = Integer.numberOfTrailingZeros(lodFactor);
+        int columns = (CHUNK_X >> lodShift) * (CHUNK_Z >> lodShift);
+        this.opaqueHeightmap = new short[columns];
+        this.blockHeightmap = new short[columns];
+        Arrays.fill(opaqueHeightmap, (short) -1);
+        Arrays.fill(blockHeightmap, (short) -1);
+        this.snapshot = false;
     }
 
+    // Instantané : versions relues sous le verrou qui les incrémente, avant les données (voir snapshot())
+    protected BaseChunk(BaseChunk source) {
+        this.world = source.world;
+        this.originX = source.originX;
+        this.originZ = source.originZ;
+        this.lodShift = source.lodShift;
+        synchronized (source) {
+            System.arraycopy(source.sectionVersions, 0, sectionVersions, 0, SECTION_COUNT);
+            this.version = source.version;
+        }
+        this.dirty = source.dirty;
+        this.opaqueHeightmap = source.opaqueHeightmap.clone();
+        this.blockHeightmap = source.blockHeightmap.clone();
+        this.biomes = source.biomes;
+        this.tints = source.tints;
+        this.status = source.status;
+        this.snapshot = true;
+    }
+
+    /**
+     * Vue figée et cohérente du chunk pour les threads de fond (mesh, lumière, sauvegarde), sans verrou
+     * côté écriture : les sections sont partagées et recopiées par le chunk vivant à sa prochaine écriture.
+     * À prendre sur le thread qui modifie les blocs (le thread principal une fois le chunk publié).
+     * Les versions copiées sont celles des données lues, ou plus anciennes : au pire un remaillage de trop.
+     */
+    public abstract BaseChunk snapshot();
+
+    /**
+     * Rend le stockage hors tas éventuel (chunk déchargé ou remplacé, instantané dont on n'a plus besoin).
+     * Un chunk libéré ne doit plus être modifié ; ses lectures restent possibles mais renvoient de l'air.
+     */
+    public void release() {}
+
     public void bumpVersion() {
-        version++;
+        bumpSections(ALL_SECTIONS);
+    }
+
+    /**
+     * Données modifiées dans les sections du masque (bit sy = section sy) : à remailler et à sauvegarder
+     */
+    public void bumpSections(int sectionMask) {
+        advanceSections(sectionMask);
         dirty = true;
     }
+
+    /**
+     * Sections à remailler sans que leurs blocs aient changé (lumière recalculée, bordure d'un voisin modifiée)
+     */
+    public void invalidateSections(int sectionMask) {
+        advanceSections(sectionMask);
+    }
+
+    private synchronized void advanceSections(int sectionMask) {
+        if (sectionMask == 0) return;
+        for (int mask = sectionMask; mask != 0; mask &= mask - 1) {
+            sectionVersions[Integer.numberOfTrailingZeros(mask)]++;
+        }
+        version++;
+    }
+
+    public int getSectionVersion(int sectionY) {
+        return sectionVersions[sectionY];
+    }
+
+    /**
+     * Masque des sections couvrant les hauteurs [minY, maxY] (bornées au chunk)
+     */
+    public static int sectionMask(int minY, int maxY) {
+        int lo = Math.max(minY, MIN_CHUNK_Y) >> ChunkSection.SECTION_SHIFT;
+        int hi = Math.min(maxY, CHUNK_Y - 1) >> ChunkSection.SECTION_SHIFT;
+        if (lo > hi) return 0;
+        return (ALL_SECTIONS >>> (SECTION_COUNT - 1 - hi)) & (ALL_SECTIONS << lo);
+    }
+
+    /**
+     * Sections dont le mesh dépend du bloc à la hauteur y : la sienne, et celle du dessus ou du dessous
+     * quand le bloc est au bord (faces adjacentes, lumière lissée des sommets)
+     */
+    public static int sectionMaskAround(int y) {
+        return sectionMask(y - 1, y + 1);
+    }
     public void setVersion(int version) {
         this.version = version;
         this.dirty = false;
@@ -47,4 +173,180 @@ public abstract class BaseChunk {
     public abstract void setLightLevel(int x, int y, int z, byte level);
 
     public abstract void bakeLight();
+
+    // Informations par section (tranches de SECTION_HEIGHT blocs) permettant de court-circuiter
+    // le mesh, la lumière et la sauvegarde. Par défaut aucune section n'est considérée uniforme.
+    public boolean isSectionEmpty(int sectionY) { return false; }
+    public boolean isSectionUniform(int sectionY) { return false; }
+    public byte getSectionUniformId(int sectionY) { return 0; }
+
+    public void fillSectionLight(int sectionY, byte level) {
+        int minY = sectionY * ChunkSection.SECTION_HEIGHT;
+        for (int y = minY; y < minY + ChunkSection.SECTION_HEIGHT; y++)
+            for (int z = 0; z < CHUNK_Z; z++)
+                for (int x = 0; x < CHUNK_X; x++)
+                    setLightLevel(x, y, z, level);
+    }
+
+    /**
+     * Taille d'une cellule de stockage sur chaque axe : 1 pour un chunk à pleine résolution,
+     * le facteur de LoD pour un chunk lointain
+     */
+    public int getLodFactor() {
+        return 1 << lodShift;
+    }
+
+    // Recompacte le stockage après une écriture massive (génération, chargement)
+    public void compactStorage() {}
+
+    /**
+     * Remplace toute une section par un seul bloc sans passer bloc par bloc (édition en masse).
+     * Les heightmaps ne sont pas mises à jour : appeler {@link #recomputeHeightmaps()} ensuite.
+     * @return nombre de blocs modifiés, ou -1 si ce type de chunk ne le permet pas
+     */
+    int fillSection(int sectionY, byte id) {
+        return -1;
+    }
+
+    void setStatus(ChunkStatus status) {
+        this.status = status;
+    }
+
+    // --- Biomes et teintes ---
+    /**
+     * Biome de la colonne locale (x, z), lu dans le cache du chunk (coordonnées en blocs, quel que soit le LoD)
+     */
+    public Biome getBiome(int x, int z) {
+        byte[] b = biomes;
+        if (b == null) {
+            // Calcul idempotent : deux threads qui se croisent produisent le même tableau
+            b = world.computeBiomes(originX, originZ);
+            biomes = b;
+        }
+        return BIOMES[b[x + CHUNK_X * z]];
+    }
+
+    void setBiomes(byte[] biomes) {
+        this.biomes = biomes;
+    }
+
+    // Biomes de toutes les colonnes, pour la sauvegarde
+    byte[] getBiomeIds() {
+        byte[] b = biomes;
+        if (b == null) {
+            b = world.computeBiomes(originX, originZ);
+            biomes = b;
+        }
+        return b;
+    }
+
+    /**
+     * Teinte lissée (0xRRGGBB) de la colonne locale (x, z) pour ce type de teinte, lue dans la table du chunk
+     * (coordonnées en blocs, quel que soit le LoD)
+     */
+    public int getTint(TintType type, int x, int z) {
+        return getTints()[type.ordinal() * BiomeTints.COLUMNS + x + CHUNK_X * z];
+    }
+
+    // Table de teintes entière, pour la sauvegarde ; calculée au premier accès pour un chunk relu d'une
+    // ancienne sauvegarde qui n'en a pas
+    int[] getTints() {
+        int[] t = tints;
+        if (t == null) {
+            // Calcul idempotent, comme pour les biomes
+            t = world.computeTints(originX, originZ);
+            tints = t;
+        }
+        return t;
+    }
+
+    void setTints(int[] tints) {
+        this.tints = tints;
+    }
+
+    // Reprend les biomes et les teintes d'un autre chunk au même emplacement (sous-échantillonnage)
+    void copyBiomesFrom(BaseChunk source) {
+        this.biomes = source.biomes;
+        this.tints = source.tints;
+    }
+
+    // --- Heightmaps ---
+    public int getHighestOpaqueY(int x, int z) {
+        return opaqueHeightmap[column(x, z)];
+    }
+
+    public int getHighestBlockY(int x, int z) {
+        return blockHeightmap[column(x, z)];
+    }
+
+    private int column(int x, int z) {
+        return (x >> lodShift) + (CHUNK_X >> lodShift) * (z >> lodShift);
+    }
+
+    // Plus haut bloc non-air du chunk, -1 si le chunk est vide
+    public int getMaxBlockY() {
+        int max = -1;
+        for (short h : blockHeightmap) {
+            if (h > max) max = h;
+        }
+        return max;
+    }
+
+    /**
+     * Met à jour les heightmaps après l'écriture de l'id à (x, y, z). Une colonne n'est rescannée
+     * vers le bas que lorsque son bloc le plus haut disparaît.
+     */
+    protected void updateHeightmaps(int x, int y, int z, byte id) {
+        int column = column(x, z);
+        if (id != 0) {
+            if (y > blockHeightmap[column]) blockHeightmap[column] = (short) y;
+        } else if (y == blockHeightmap[column]) {
+            blockHeightmap[column] = (short) scanDown(x, y - 1, z, false);
+        }
+        if (Blocks.isOpaque(id)) {
+            if (y > opaqueHeightmap[column]) opaqueHeightmap[column] = (short) y;
+        } else if (y == opaqueHeightmap[column]) {
+            opaqueHeightmap[column] = (short) scanDown(x, y - 1, z, true);
+        }
+    }
+
+    private int scanDown(int x, int fromY, int z, boolean opaque) {
+        for (int y = fromY; y >= MIN_CHUNK_Y; y--) {
+            byte id = getBlockId(x, y, z);
+            if (opaque ? Blocks.isOpaque(id) : id != 0) return y;
+        }
+        return -1;
+    }
+
+    /**
+     * Reconstruit entièrement les heightmaps (après un chargement qui contourne setBlockId)
+     */
+    public void recomputeHeightmaps() {
+        int top = SECTION_COUNT;
+        while (top > 0 && isSectionEmpty(top - 1)) top--;
+        int startY = top * ChunkSection.SECTION_HEIGHT - 1;
+        int step = getLodFactor();
+        for (int z = 0; z < CHUNK_Z; z += step) {
+            for (int x = 0; x < CHUNK_X; x += step) {
+                int column = column(x, z);
+                blockHeightmap[column] = (short) scanDown(x, startY, z, false);
+                opaqueHeightmap[column] = (short) scanDown(x, blockHeightmap[column], z, true);
+            }
+        }
+    }
+
+    // Mémoire occupée par les deux heightmaps (en octets)
+    public long estimateHeightmapBytes() {
+        return (long) (opaqueHeightmap.length + blockHeightmap.length) * Short.BYTES;
+    }
+
+    // Mémoire occupée par les biomes et les teintes, une fois calculés (en octets)
+    public long estimateBiomeBytes() {
+        byte[] b = biomes;
+        int[] t = tints;
+        return (b == null ? 0 : b.length) + (t == null ? 0 : (long) t.length * Integer.BYTES);
+    }
+
+    // Estimation de la mémoire occupée par le stockage des blocs et de la lumière (en octets)
+    public abstract long estimateMemoryBytes();
 }
@@ -7,9 +7,9 @@ import ovh.paulem.mc.engine.render.texture.TintType;
  * Simple biome definition. Defines colors for grass and foliage (leaves).
  */
 public enum Biome {
-    NORMAL(145, 189, 89, 108, 151, 47, 1.0, 40.0, 48.0, 4, 1.0), // Minecraft plain biome
-    PLAINS(255, 255, 255, 255, 255, 255, 0.5, 38.0, 24.0, 3, 1.0), // Un vert plus clair
-    MOUNTAINS(255, 0, 0, 255, 255, 0, 2.2, 55.0, 80.0, 5, 0.4); // Un vert plus foncé, freq basse pour montagnes larges
+    NORMAL(145, 189, 89, 108, 151, 47, 1.0, 40.0, 48.0, 4, 1.0, 0.5), // Minecraft plain biome
+    PLAINS(255, 255, 255, 255, 255, 255, 0.5, 38.0, 24.0, 3, 1.0, 0.08), // Un vert plus clair
+    MOUNTAINS(255, 0, 0, 255, 255, 0, 2.2, 55.0, 80.0, 5, 0.4, 0.25); // Un vert plus foncé, freq basse pour montagnes larges
 
     private final float grassR;
     private final float grassG;
@@ -19,26 +19,36 @@ public enum Biome {
     private final float foliageG;
     private final float foliageB;
 
+    // Mêmes couleurs en 0xRRGGBB, pour les tables de teintes des chunks (voir BiomeTints)
+    private final int grassRGB;
+    private final int foliageRGB;
+
     // Paramètres de génération du terrain
     public final double relief;
     public final double baseHeight;
     public final double heightScale;
     public final double octaves;
     public final double terrainFrequency;
+    // Probabilité qu'un emplacement d'arbre tiré dans le biome reçoive un arbre
+    public final double treeChance;
 
     Biome(int grassR, int grassG, int grassB, int foliageR, int foliageG, int foliageB,
-          double relief, double baseHeight, double heightScale, double octaves, double terrainFrequency) {
+          double relief, double baseHeight, double heightScale, double octaves, double terrainFrequency,
+          double treeChance) {
         this.grassR = byteToFloat((short)grassR);
         this.grassG = byteToFloat((short)grassG);
         this.grassB = byteToFloat((short)grassB);
         this.foliageR = byteToFloat((short)foliageR);
         this.foliageG = byteToFloat((short)foliageG);
         this.foliageB = byteToFloat((short)foliageB);
+        this.grassRGB = grassR << 16 | grassG << 8 | grassB;
+        this.foliageRGB = foliageR << 16 | foliageG << 8 | foliageB;
         this.relief = relief;
         this.baseHeight = baseHeight;
         this.heightScale = heightScale;
         this.octaves = octaves;
         this.terrainFrequency = terrainFrequency;
+        this.treeChance = treeChance;
     }
 
     public float grassR() { return grassR; }
@@ -56,6 +66,13 @@ public enum Biome {
         };
     }
 
+    public int getTintRGB(TintType tintType) {
+        return switch (tintType) {
+            case GRASS -> grassRGB;
+            case FOLIAGE -> foliageRGB;
+        };
+    }
+
     public static float byteToFloat(short bytes) {
         return ((bytes & 0xFF) / 255.0f);
     }
@@ -0,0 +1,67 @@
+package ovh.paulem.mc.world;
+
+import ovh.paulem.mc.math.PerlinNoise;
+
+/**
+ * Bruit de biome échantillonné sur une grille de {@link #CELL}x{@link #CELL} blocs alignée sur les coordonnées
+ * du monde, puis interpolé bilinéairement pour chaque colonne. Les points de grille d'un bord de chunk sont les
+ * mêmes (mêmes coordonnées, même calcul) pour les deux chunks qui le partagent : pas de couture entre chunks.
+ * Un chunk demande 9x9 échantillons au lieu d'un par colonne.
+ */
+final class BiomeLattice {
+    static final int CELL = 4;
+    private static final int POINTS_X = BaseChunk.CHUNK_X / CELL + 1;
+    private static final int POINTS_Z = BaseChunk.CHUNK_Z / CELL + 1;
+    private static final double INV_CELL = 1.0 / CELL;
+
+    private BiomeLattice() {}
+
+    /**
+     * Bruit {@code noise((x + offsetX) * frequency, (z + offsetZ) * frequency)} interpolé pour les 32x32 colonnes
+     * du chunk d'origine (baseX, baseZ), rangé en {@code [z * CHUNK_X + x]}
+     */
+    static double[] sampleChunk(PerlinNoise noise, int baseX, int baseZ, double frequency, double offsetX, double offsetZ) {
+        double[] lattice = new double[POINTS_X * POINTS_Z];
+        for (int j = 0; j < POINTS_Z; j++) {
+            for (int i = 0; i < POINTS_X; i++) {
+                lattice[j * POINTS_X + i] = point(noise, baseX + i * CELL, baseZ + j * CELL, frequency, offsetX, offsetZ);
+            }
+        }
+        double[] out = new double[BaseChunk.CHUNK_X * BaseChunk.CHUNK_Z];
+        for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+            int j = z / CELL;
+            double fz = (z % CELL) * INV_CELL;
+            for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                int i = x / CELL;
+                double fx = (x % CELL) * INV_CELL;
+                int c = j * POINTS_X + i;
+                out[z * BaseChunk.CHUNK_X + x] = bilerp(lattice[c], lattice[c + 1],
+                        lattice[c + POINTS_X], lattice[c + POINTS_X + 1], fx, fz);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Même valeur que {@link #sampleChunk} pour une seule colonne du monde (4 échantillons)
+     */
+    static double sampleColumn(PerlinNoise noise, int x, int z, double frequency, double offsetX, double offsetZ) {
+        int x0 = Math.floorDiv(x, CELL) * CELL;
+        int z0 = Math.floorDiv(z, CELL) * CELL;
+        double fx = (x - x0) * INV_CELL;
+        double fz = (z - z0) * INV_CELL;
+        return bilerp(point(noise, x0, z0, frequency, offsetX, offsetZ), point(noise, x0 + CELL, z0, frequency, offsetX, offsetZ),
+                point(noise, x0, z0 + CELL, frequency, offsetX, offsetZ), point(noise, x0 + CELL, z0 + CELL, frequency, offsetX, offsetZ),
+                fx, fz);
+    }
+
+    private static double point(PerlinNoise noise, int x, int z, double frequency, double offsetX, double offsetZ) {
+        return noise.noise((x + offsetX) * frequency, (z + offsetZ) * frequency);
+    }
+
+    private static double bilerp(double c00, double c10, double c01, double c11, double fx, double fz) {
+        double top = c00 + fx * (c10 - c00);
+        double bottom = c01 + fx * (c11 - c01);
+        return top + fz * (bottom - top);
+    }
+}
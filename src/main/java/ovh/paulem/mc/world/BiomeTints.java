@@ -0,0 +1,92 @@
+package ovh.paulem.mc.world;
+
+import ovh.paulem.mc.engine.render.texture.TintType;
+
+/**
+ * Teintes d'herbe et de feuillage d'un chunk, lissées entre biomes : chaque colonne prend la moyenne des couleurs
+ * des biomes du carré de {@code 2 * RADIUS + 1} colonnes centré sur elle, voisins compris. Le calcul ne dépend que
+ * des biomes, deux chunks voisins donnent donc les mêmes teintes de part et d'autre de leur bord.
+ * <p>
+ * Table rangée en {@code [tintType.ordinal() * COLUMNS + x + CHUNK_X * z]}, couleurs en 0xRRGGBB.
+ */
+final class BiomeTints {
+    static final int RADIUS = 4;
+    static final int COLUMNS = BaseChunk.CHUNK_X * BaseChunk.CHUNK_Z;
+    private static final Biome[] BIOMES = Biome.values();
+    private static final TintType[] TINT_TYPES = TintType.values();
+    private static final int SIDE = 2 * RADIUS + 1;
+    // Largeur de la zone lue : le chunk et RADIUS colonnes de chaque côté
+    private static final int SPAN_X = BaseChunk.CHUNK_X + 2 * RADIUS;
+
+    private BiomeTints() {}
+
+    /**
+     * Teintes du chunk central de {@code neighbourhood}, les biomes (ordinaux, index x + CHUNK_X * z) des 3x3
+     * chunks autour de lui rangés ligne par ligne en z puis x
+     */
+    static int[] blend(byte[][] neighbourhood) {
+        int[] out = new int[TINT_TYPES.length * COLUMNS];
+        // Sommes glissantes séparables : d'abord le long de x sur les lignes de la zone, puis le long de z
+        int rows = BaseChunk.CHUNK_Z + 2 * RADIUS;
+        int[] rowSums = new int[rows * BaseChunk.CHUNK_X * 3];
+        int[] line = new int[SPAN_X];
+        for (TintType type : TINT_TYPES) {
+            for (int r = 0; r < rows; r++) {
+                int z = r - RADIUS;
+                for (int i = 0; i < SPAN_X; i++) line[i] = BIOMES[biomeAt(neighbourhood, i - RADIUS, z)].getTintRGB(type);
+                int red = 0, green = 0, blue = 0;
+                for (int i = 0; i < SIDE; i++) {
+                    red += (line[i] >> 16) & 0xFF;
+                    green += (line[i] >> 8) & 0xFF;
+                    blue += line[i] & 0xFF;
+                }
+                for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                    int o = (r * BaseChunk.CHUNK_X + x) * 3;
+                    rowSums[o] = red;
+                    rowSums[o + 1] = green;
+                    rowSums[o + 2] = blue;
+                    if (x + 1 < BaseChunk.CHUNK_X) {
+                        int in = line[x + SIDE];
+                        int leaving = line[x];
+                        red += ((in >> 16) & 0xFF) - ((leaving >> 16) & 0xFF);
+                        green += ((in >> 8) & 0xFF) - ((leaving >> 8) & 0xFF);
+                        blue += (in & 0xFF) - (leaving & 0xFF);
+                    }
+                }
+            }
+            int base = type.ordinal() * COLUMNS;
+            int area = SIDE * SIDE;
+            for (int x = 0; x < BaseChunk.CHUNK_X; x++) {
+                int red = 0, green = 0, blue = 0;
+                for (int r = 0; r < SIDE; r++) {
+                    int o = (r * BaseChunk.CHUNK_X + x) * 3;
+                    red += rowSums[o];
+                    green += rowSums[o + 1];
+                    blue += rowSums[o + 2];
+                }
+                for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
+                    // Arrondi au plus proche
+                    out[base + x + BaseChunk.CHUNK_X * z] = ((red + area / 2) / area) << 16
+                            | ((green + area / 2) / area) << 8
+                            | (blue + area / 2) / area;
+                    if (z + 1 < BaseChunk.CHUNK_Z) {
+                        int in = ((z + SIDE) * BaseChunk.CHUNK_X + x) * 3;
+                        int leaving = (z * BaseChunk.CHUNK_X + x) * 3;
+                        red += rowSums[in] - rowSums[leaving];
+                        green += rowSums[in + 1] - rowSums[leaving + 1];
+                        blue += rowSums[in + 2] - rowSums[leaving + 2];
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    // Biome de la colonne (x, z) relative au chunk central, lue dans le chunk voisin qui la contient
+    private static int biomeAt(byte[][] neighbourhood, int x, int z) {
+        int dx = Math.floorDiv(x, BaseChunk.CHUNK_X);
+        int dz = Math.floorDiv(z, BaseChunk.CHUNK_Z);
+        byte[] biomes = neighbourhood[(dz + 1) * 3 + dx + 1];
+        return biomes[(x - dx * BaseChunk.CHUNK_X) + BaseChunk.CHUNK_X * (z - dz * BaseChunk.CHUNK_Z)];
+    }
+}
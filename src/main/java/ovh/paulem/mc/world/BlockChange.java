@@ -0,0 +1,9 @@
+package ovh.paulem.mc.world;
+
+import ovh.paulem.mc.world.block.types.Block;
+
+/**
+ * Modification d'un bloc en coordonnées monde, pour {@link World#setBlocks(java.util.Iterator)}
+ */
+public record BlockChange(int x, int y, int z, Block block) {
+}
@@ -4,11 +4,26 @@ import ovh.paulem.mc.world.block.types.Block;
 import ovh.paulem.mc.world.block.Blocks;
 
 public class Chunk extends BaseChunk {
-    private final byte[] blocks = new byte[CHUNK_X * CHUNK_Y * CHUNK_Z];
-    private final byte[] lightLevels = new byte[(CHUNK_X * CHUNK_Y * CHUNK_Z + 1) / 2];
+    // Découpage vertical en sections de 16 blocs, chacune avec sa propre palette
+    private final ChunkSection[] sections = new ChunkSection[SECTION_COUNT];
 
     public Chunk(World world, int originX, int originZ) {
         super(world, originX, originZ);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sections[i] = new ChunkSection();
+        }
+    }
+
+    private Chunk(Chunk source) {
+        super(source);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sections[i] = source.sections[i].snapshot();
+        }
+    }
+
+    @Override
+    public Chunk snapshot() {
+        return isSnapshot() ? this : new Chunk(this);
     }
 
     @Override
@@ -16,20 +31,19 @@ public class Chunk extends BaseChunk {
         if (x < 0 || x >= CHUNK_X || y < MIN_CHUNK_Y || y >= CHUNK_Y || z < 0 || z >= CHUNK_Z) {
             return 0; // Air par défaut hors limites
         }
-        return blocks[getIndex(x, y, z)];
+        return sections[y >> ChunkSection.SECTION_SHIFT].getBlockId(x, y & (ChunkSection.SECTION_HEIGHT - 1), z);
     }
 
     @Override
     public Block getBlock(int x, int y, int z) {
-        return Blocks.blocks.get(getBlockId(x, y, z));
+        return Blocks.get(getBlockId(x, y, z));
     }
 
     @Override
     public void setBlockId(int x, int y, int z, byte id) {
-        int idx = getIndex(x, y, z);
-        if (blocks[idx] != id) {
-            blocks[idx] = id;
-            bumpVersion();
+        if (sections[y >> ChunkSection.SECTION_SHIFT].setBlockId(x, y & (ChunkSection.SECTION_HEIGHT - 1), z, id)) {
+            updateHeightmaps(x, y, z, id);
+            bumpSections(sectionMaskAround(y));
         }
     }
 
@@ -40,29 +54,88 @@ public class Chunk extends BaseChunk {
 
     @Override
     public byte getLightLevel(int x, int y, int z) {
-        int index = getIndex(x, y, z);
-        int byteIndex = index / 2;
-        boolean highNibble = (index % 2) == 0;
-        byte b = lightLevels[byteIndex];
-        return (byte) (highNibble ? (b >> 4) & 0xF : b & 0xF);
+        return sections[y >> ChunkSection.SECTION_SHIFT].getLightLevel(x, y & (ChunkSection.SECTION_HEIGHT - 1), z);
     }
 
     @Override
     public void setLightLevel(int x, int y, int z, byte level) {
-        int index = getIndex(x, y, z);
-        int byteIndex = index / 2;
-        boolean highNibble = (index % 2) == 0;
-        byte b = lightLevels[byteIndex];
-        if (highNibble) {
-            b = (byte) ((b & 0x0F) | ((level & 0xF) << 4));
-        } else {
-            b = (byte) ((b & 0xF0) | (level & 0xF));
+        sections[y >> ChunkSection.SECTION_SHIFT].setLightLevel(x, y & (ChunkSection.SECTION_HEIGHT - 1), z, level);
+    }
+
+    public ChunkSection getSection(int sectionY) {
+        return sections[sectionY];
+    }
+
+    void setSection(int sectionY, ChunkSection section) {
+        checkMutable();
+        sections[sectionY] = section;
+    }
+
+    @Override
+    public boolean isSectionEmpty(int sectionY) {
+        return sections[sectionY].isEmpty();
+    }
+
+    @Override
+    public boolean isSectionUniform(int sectionY) {
+        return sections[sectionY].isUniform();
+    }
+
+    @Override
+    public byte getSectionUniformId(int sectionY) {
+        return sections[sectionY].getUniformId();
+    }
+
+    @Override
+    int fillSection(int sectionY, byte id) {
+        checkMutable();
+        ChunkSection old = sections[sectionY];
+        int changed = ChunkSection.VOLUME - old.count(id);
+        if (changed == 0) return 0;
+        ChunkSection filled = ChunkSection.uniform(id);
+        // Garder l'ancienne lumière jusqu'au rééclairage pour éviter un flash sombre
+        filled.copyLightFrom(old);
+        sections[sectionY] = filled;
+        old.release();
+        int minY = sectionY << ChunkSection.SECTION_SHIFT;
+        bumpSections(sectionMask(minY - 1, minY + ChunkSection.SECTION_HEIGHT));
+        return changed;
+    }
+
+    @Override
+    public void release() {
+        for (ChunkSection section : sections) {
+            section.release();
         }
-        lightLevels[byteIndex] = b;
+    }
+
+    @Override
+    public void fillSectionLight(int sectionY, byte level) {
+        sections[sectionY].fillLight(level);
+    }
+
+    @Override
+    public void compactStorage() {
+        for (ChunkSection section : sections) {
+            section.compact();
+        }
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        long total = 0;
+        for (ChunkSection section : sections) {
+            total += section.estimateMemoryBytes();
+        }
+        return total;
+    }
+
+    private void checkMutable() {
+        if (isSnapshot()) throw new IllegalStateException("Instantané de chunk en lecture seule");
     }
 
     @Override
     public void bakeLight() {
         world.getLightEngine().propagateSkyLight(this);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package ovh.paulem.mc.world;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Chunks sortis du rayon de conservation mais gardés en mémoire : un joueur qui revient sur ses pas
+ * les retrouve sans relecture du disque ni nouvelle génération.
+ * <p>
+ * La mémoire est bornée par un budget en octets qui couvre les chunks publiés et ceux du cache ; au-delà,
+ * {@link #trim} évince les chunks du cache (jamais les chunks publiés). La victime est la moins récemment
+ * utilisée, pondérée par la distance au joueur : un chunk plus loin d'un chunk compte comme inutilisé depuis
+ * {@link #DISTANCE_WEIGHT_NANOS} de plus. Un chunk évincé part vers {@code evictionSink} (sauvegarde s'il a été
+ * modifié, puis libération de son stockage).
+ * <p>
+ * Les chunks du cache ne sont plus publiés, donc plus modifiés ; appels depuis n'importe quel thread.
+ */
+public class ChunkCache {
+    private static final long DISTANCE_WEIGHT_NANOS = 1_000_000_000L;
+
+    private record Entry(int cx, int cz, BaseChunk chunk, long bytes, long parkedAt) {}
+
+    private final long budgetBytes;
+    private final Consumer<BaseChunk> evictionSink;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long cachedBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ChunkCache(long budgetBytes, Consumer<BaseChunk> evictionSink) {
+        this.budgetBytes = budgetBytes;
+        this.evictionSink = evictionSink;
+    }
+
+    private static long key(int cx, int cz) { return (((long)cx) << 32) ^ (cz & 0xffffffffL); }
+
+    /**
+     * Mémoire occupée par un chunk (blocs, lumière et heightmaps)
+     */
+    public static long footprint(BaseChunk chunk) {
+        return chunk.estimateMemoryBytes() + chunk.estimateHeightmapBytes() + chunk.estimateBiomeBytes();
+    }
+
+    /**
+     * Garde un chunk qui vient d'être retiré du monde ou remplacé par une version moins détaillée.
+     * S'il y a déjà un chunk plus détaillé à cet emplacement, c'est lui qui reste et celui-ci est évincé.
+     */
+    public void park(int cx, int cz, BaseChunk chunk) {
+        BaseChunk dropped;
+        synchronized (this) {
+            long k = key(cx, cz);
+            Entry existing = entries.get(k);
+            if (existing != null && existing.chunk() == chunk) {
+                // Même chunk gardé une seconde fois : rien à évincer
+                return;
+            }
+            if (existing != null && existing.chunk().getLodFactor() < chunk.getLodFactor()) {
+                // Le chunk entrant, moins détaillé, est évincé à la place de celui qui reste
+                dropped = chunk;
+            } else {
+                Entry entry = new Entry(cx, cz, chunk, footprint(chunk), System.nanoTime());
+                entries.put(k, entry);
+                cachedBytes += entry.bytes();
+                if (existing != null) cachedBytes -= existing.bytes();
+                dropped = existing != null ? existing.chunk() : null;
+            }
+            if (dropped != null) evictions++;
+        }
+        if (dropped != null) evictionSink.accept(dropped);
+    }
+
+    /**
+     * Reprend le chunk gardé à cet emplacement s'il est au moins aussi détaillé que {@code maxLodFactor}
+     * (il sera ensuite ramené à son anneau comme tout chunk publié). Un chunk gardé moins détaillé ne sert
+     * plus : il est évincé et l'appel compte comme un échec.
+     */
+    @Nullable
+    public BaseChunk take(int cx, int cz, int maxLodFactor) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(key(cx, cz));
+            if (entry != null) cachedBytes -= entry.bytes();
+            if (entry != null && entry.chunk().getLodFactor() <= maxLodFactor) {
+                hits++;
+                return entry.chunk();
+            }
+            misses++;
+            if (entry != null) evictions++;
+        }
+        if (entry != null) evictionSink.accept(entry.chunk());
+        return null;
+    }
+
+    /**
+     * Évince des chunks du cache jusqu'à rentrer dans le budget, chunks publiés ({@code residentBytes}) compris
+     */
+    public void trim(long residentBytes, int playerCx, int playerCz) {
+        List<BaseChunk> evicted = null;
+        synchronized (this) {
+            long now = System.nanoTime();
+            while (!entries.isEmpty() && residentBytes + cachedBytes > budgetBytes) {
+                Entry victim = null;
+                double worst = -1;
+                for (Entry entry : entries.values()) {
+                    int dx = entry.cx() - playerCx;
+                    int dz = entry.cz() - playerCz;
+                    double score = (now - entry.parkedAt()) + Math.sqrt(dx * dx + dz * dz) * DISTANCE_WEIGHT_NANOS;
+                    if (score > worst) {
+                        worst = score;
+                        victim = entry;
+                    }
+                }
+                entries.remove(key(victim.cx(), victim.cz()));
+                cachedBytes -= victim.bytes();
+                evictions++;
+                if (evicted == null) evicted = new ArrayList<>();
+                evicted.add(victim.chunk());
+            }
+        }
+        if (evicted != null) evicted.forEach(evictionSink);
+    }
+
+    /**
+     * Évince tous les chunks du cache (fermeture du monde)
+     */
+    public void clear() {
+        List<BaseChunk> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) evicted.add(entry.chunk());
+            entries.clear();
+            cachedBytes = 0;
+        }
+        evicted.forEach(evictionSink);
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized int getCachedChunks() {
+        return entries.size();
+    }
+
+    // Chargements servis par le cache, chargements qu'il n'a pas pu servir, chunks évincés
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
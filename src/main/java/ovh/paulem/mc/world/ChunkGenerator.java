@@ -0,0 +1,690 @@
+package ovh.paulem.mc.world;
+
+import org.jetbrains.annotations.Nullable;
+import ovh.paulem.mc.Values;
+import ovh.paulem.mc.math.FastRandom;
+import ovh.paulem.mc.math.PerlinNoise;
+import ovh.paulem.mc.math.Seeds;
+import ovh.paulem.mc.world.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Génération des chunks en étapes successives ({@link ChunkStatus}) : bruit, surface, caves, décorations, teintes,
+ * lumière.
+ * <p>
+ * Chaque chunk en cours de génération a son {@link ProtoChunk}, qui garde d'une étape à l'autre ce qu'elles
+ * partagent (valeurs de biome, hauteurs des colonnes). Une étape qui dépend des voisins les fait d'abord avancer
+ * jusqu'au statut voulu, quel que soit le thread qui les génère ; leurs protos restent en mémoire (dans une
+ * limite de {@link #MAX_PROTOS}) pour servir à la génération de leur propre chunk.
+ * <p>
+ * Appelé depuis les threads de génération : les chunks avancent en parallèle, chaque proto n'exécutant qu'une
+ * étape à la fois sous son propre verrou. Un thread n'attend jamais le verrou d'un voisin en tenant le sien.
+ */
+public class ChunkGenerator {
+    // Fréquence de la carte des biomes et des bruits de transition entre biomes
+    private static final double BIOME_FREQUENCY = 0.003;
+    private static final double BIOME_BLEND_FREQUENCY = 0.01;
+    // Grilles des bruits de caves : cellules de CAVE_CELL_XZ x CAVE_CELL_Y x CAVE_CELL_XZ blocs pour la densité,
+    // de SIZE_CELL blocs de côté pour la variation de taille (bruit trois fois plus fin)
+    private static final int CAVE_CELL_XZ = 4;
+    private static final int CAVE_CELL_Y = 4;
+    private static final int SIZE_CELL = 2;
+    private static final int CAVE_POINTS_XZ = Chunk.CHUNK_X / CAVE_CELL_XZ + 1;
+    private static final int SIZE_POINTS_XZ = Chunk.CHUNK_X / SIZE_CELL + 1;
+    // Protos gardés seulement pour leurs voisins (statut NOISE au plus) au-delà desquels on fait le ménage
+    private static final int MAX_PROTOS = 1024;
+    private static final ChunkStatus[] STATUSES = ChunkStatus.values();
+    private static final Biome[] BIOMES = Biome.values();
+    // Arbres : emplacements tirés par chunk, flux aléatoire dédié, écart minimal entre deux troncs du même chunk
+    private static final int TREE_ATTEMPTS = 12;
+    private static final long TREE_SALT = 0x54524545L;
+    private static final int TREE_SPACING = 3;
+    // Rayon des feuilles autour du tronc : doit rester sous la largeur d'un chunk (voisins immédiats seulement)
+    private static final int TREE_RADIUS = 2;
+
+    private final World world;
+    private final long seed;
+    private final PerlinNoise noise;
+    private final PerlinNoise caveNoise;
+    private final PerlinNoise caveSizeNoise;
+    private final PerlinNoise caveFloorNoise;
+    private final PerlinNoise biomeNoise; // Nouveau bruit de Perlin pour la carte des biomes
+    // Vrai quand la génération en cours sur ce thread n'est plus utile (chunk sorti du rayon de conservation)
+    private final BooleanSupplier cancelled;
+
+    private record ProtoKey(int cx, int cz, int lod) {}
+    private final Map<ProtoKey, ProtoChunk> protos = new ConcurrentHashMap<>();
+
+    // Temps passé dans chaque étape et nombre de passages, indexés par ordinal de ChunkStatus
+    private final LongAdder[] stageNanos = new LongAdder[STATUSES.length];
+    private final LongAdder[] stageRuns = new LongAdder[STATUSES.length];
+
+    public ChunkGenerator(World world, long seed, BooleanSupplier cancelled) {
+        this.world = world;
+        this.seed = seed;
+        this.cancelled = cancelled;
+        noise = new PerlinNoise(seed);
+        caveNoise = new PerlinNoise(seed);
+        caveSizeNoise = new PerlinNoise(seed);
+        caveFloorNoise = new PerlinNoise(seed);
+        biomeNoise = new PerlinNoise(seed + 42L); // bruit indépendant pour la carte des biomes
+        for (int i = 0; i < STATUSES.length; i++) {
+            stageNanos[i] = new LongAdder();
+            stageRuns[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Chunk en cours de génération et données partagées entre ses étapes. Les champs d'une étape sont écrits
+     * avant le statut (volatile) : un thread qui lit le statut d'un voisin voit aussi ses données.
+     */
+    private static final class ProtoChunk {
+        final int cx;
+        final int cz;
+        final int lod;
+        final int baseX;
+        final int baseZ;
+        // Génération demandée pour ce chunk lui-même (et non seulement lu par un voisin)
+        final boolean claimed;
+        // Génération détachée (hors du monde) : lumière calculée sur place, sans passer par la file du moteur
+        boolean detached;
+        volatile ChunkStatus status = ChunkStatus.EMPTY;
+
+        // NOISE : bruit de biome interpolé (index x + CHUNK_X * z), biomes et hauteur de surface de chaque colonne
+        double[] biomeValues;
+        byte[] biomes;
+        int[] heights;
+        // Arbres dont le tronc est dans ce chunk, tirés à la première demande (le chunk ou un voisin) ; le calcul
+        // est le même quel que soit le thread, deux threads qui se croisent produisent la même liste
+        volatile List<Tree> trees;
+        // SURFACE et suivantes
+        BaseChunk chunk;
+
+        ProtoChunk(int cx, int cz, int lod, boolean claimed) {
+            this.cx = cx;
+            this.cz = cz;
+            this.lod = lod;
+            this.baseX = cx * BaseChunk.CHUNK_X;
+            this.baseZ = cz * BaseChunk.CHUNK_Z;
+            this.claimed = claimed;
+        }
+    }
+
+    /**
+     * Génère un chunk au facteur de LoD demandé. Les niveaux grossiers ne relancent pas la génération :
+     * le niveau le plus fin (Values.LOD_LEVELS[0]) est généré, puis sous-échantillonné.
+     * @return null si la génération a été abandonnée (tâche périmée)
+     */
+    @Nullable
+    public BaseChunk generate(int cx, int cz, int lod) {
+        return generate(cx, cz, lod, false);
+    }
+
+    /**
+     * Comme {@link #generate(int, int, int)}, pour un chunk qui ne sera pas chargé dans le monde : la lumière
+     * du ciel est calculée sur le thread appelant au lieu d'être mise en file dans le moteur de lumière,
+     * le chunk rendu est complet et le moteur n'en garde aucune référence
+     */
+    @Nullable
+    public BaseChunk generateDetached(int cx, int cz, int lod) {
+        return generate(cx, cz, lod, true);
+    }
+
+    @Nullable
+    private BaseChunk generate(int cx, int cz, int lod, boolean detached) {
+        int generatedLod = lod == 1 ? 1 : Values.LOD_LEVELS[0];
+        ProtoKey key = new ProtoKey(cx, cz, generatedLod);
+        // Un proto déjà réclamé par une autre génération du même chunk n'est pas partagé : chacune produit son chunk
+        ProtoChunk proto = protos.compute(key, (k, existing) -> existing == null || existing.claimed
+                ? new ProtoChunk(cx, cz, generatedLod, true)
+                : adopt(existing));
+        proto.detached = detached;
+        boolean done = advance(proto, ChunkStatus.FULL);
+        protos.remove(key, proto);
+        if (!done) {
+            if (proto.chunk != null) proto.chunk.release();
+            return null;
+        }
+        if (lod == 1) return proto.chunk;
+        return ((GreedyChunk) proto.chunk).downsampleTo(lod);
+    }
+
+    // Reprend un proto créé pour un voisin : ce qu'il a déjà calculé sert tel quel
+    private static ProtoChunk adopt(ProtoChunk neighbourOnly) {
+        ProtoChunk proto = new ProtoChunk(neighbourOnly.cx, neighbourOnly.cz, neighbourOnly.lod, true);
+        synchronized (neighbourOnly) {
+            proto.biomeValues = neighbourOnly.biomeValues;
+            proto.biomes = neighbourOnly.biomes;
+            proto.heights = neighbourOnly.heights;
+            proto.trees = neighbourOnly.trees;
+            proto.chunk = neighbourOnly.chunk;
+            proto.status = neighbourOnly.status;
+        }
+        return proto;
+    }
+
+    /**
+     * Fait passer le proto par toutes les étapes jusqu'à {@code target}, voisins requis compris
+     * @return false si la génération a été abandonnée
+     */
+    private boolean advance(ProtoChunk proto, ChunkStatus target) {
+        for (int i = proto.status.ordinal() + 1; i <= target.ordinal(); i++) {
+            ChunkStatus stage = STATUSES[i];
+            if (proto.status.isAtLeast(stage)) continue;
+            if (cancelled.getAsBoolean()) return false;
+            // Voisins avancés avant de prendre le verrou de ce proto
+            ProtoChunk[] neighbours = null;
+            if (stage.neighbourRadius > 0) {
+                neighbours = neighbours(proto, stage.neighbourRadius, stage.neighbourStatus);
+                if (neighbours == null) return false;
+            }
+            synchronized (proto) {
+                if (proto.status.isAtLeast(stage)) continue;
+                long start = System.nanoTime();
+                runStage(stage, proto, neighbours);
+                stageNanos[i].add(System.nanoTime() - start);
+                stageRuns[i].increment();
+                if (proto.chunk != null) proto.chunk.setStatus(stage);
+                proto.status = stage;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Protos du carré de rayon {@code radius} autour de {@code proto} (lui compris, rangés ligne par ligne
+     * en z puis x), tous au moins à {@code status}
+     * @return null si la génération a été abandonnée
+     */
+    @Nullable
+    private ProtoChunk[] neighbours(ProtoChunk proto, int radius, ChunkStatus status) {
+        int side = radius * 2 + 1;
+        ProtoChunk[] out = new ProtoChunk[side * side];
+        for (int dz = -radius; dz <= radius; dz++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                ProtoChunk neighbour = dx == 0 && dz == 0 ? proto : neighbourProto(proto.cx + dx, proto.cz + dz, proto.lod);
+                if (neighbour != proto && !advance(neighbour, status)) return null;
+                out[(dz + radius) * side + dx + radius] = neighbour;
+            }
+        }
+        return out;
+    }
+
+    private ProtoChunk neighbourProto(int cx, int cz, int lod) {
+        ProtoChunk proto = protos.computeIfAbsent(new ProtoKey(cx, cz, lod), k -> new ProtoChunk(cx, cz, lod, false));
+        if (protos.size() > MAX_PROTOS) {
+            // Protos de voisins seulement : recalculés à l'identique s'ils resservent
+            protos.values().removeIf(p -> !p.claimed && p != proto);
+        }
+        return proto;
+    }
+
+    private void runStage(ChunkStatus stage, ProtoChunk proto, @Nullable ProtoChunk[] neighbours) {
+        switch (stage) {
+            case NOISE -> sampleNoise(proto);
+            case SURFACE -> buildSurface(proto);
+            case CARVERS -> carveCaves(proto);
+            case FEATURES -> decorate(proto, neighbours);
+            case TINTS -> blendTints(proto, neighbours);
+            case LIGHT -> finish(proto);
+            default -> throw new IllegalStateException("Pas d'étape de génération pour " + stage);
+        }
+    }
+
+    // --- Étapes ---
+
+    private void sampleNoise(ProtoChunk proto) {
+        final int sizeX = Chunk.CHUNK_X;
+        final int sizeZ = Chunk.CHUNK_Z;
+        // Chunk LoD : une seule colonne échantillonnée par cellule
+        final int step = proto.lod;
+        // Bruit de biome sur la grille de 4x4 blocs, interpolé par colonne ; les biomes en sont tirés
+        // et gardés dans le chunk pour la teinte au maillage
+        double[] biomeValues = BiomeLattice.sampleChunk(biomeNoise, proto.baseX, proto.baseZ, BIOME_FREQUENCY, 0, 0);
+        int[] heights = new int[sizeX * sizeZ];
+        for (int x = 0; x < sizeX; x += step) {
+            for (int z = 0; z < sizeZ; z += step) {
+                BiomeParams params = biomeParams(biomeValues[x + sizeX * z]);
+                double wx = (proto.baseX + x) * 0.05 * params.terrainFrequency;
+                double wz = (proto.baseZ + z) * 0.05 * params.terrainFrequency;
+                double amp = 1.0;
+                double freq = 1.0;
+                double sum = 0.0;
+                double ampSum = 0.0;
+                int octaves = (int) params.octaves;
+                for (int o = 0; o < octaves; o++) {
+                    sum += noise.noise(wx * freq, wz * freq) * amp;
+                    ampSum += amp;
+                    amp *= 0.5;
+                    freq *= 2.0;
+                }
+                double n = sum / ampSum;
+                double height = (n * params.relief + 1.0) * 0.5 * params.heightScale + params.baseHeight;
+                int h = (int) height;
+                if (h >= Chunk.CHUNK_Y) h = Chunk.CHUNK_Y - 1;
+                heights[x + sizeX * z] = h;
+            }
+        }
+        proto.biomeValues = biomeValues;
+        proto.biomes = computeBiomes(proto.baseX, proto.baseZ, biomeValues);
+        proto.heights = heights;
+    }
+
+    private void buildSurface(ProtoChunk proto) {
+        BaseChunk chunk = proto.lod == 1
+                ? new Chunk(world, proto.baseX, proto.baseZ)
+                : new GreedyChunk(world, proto.baseX, proto.baseZ, proto.lod);
+        chunk.setStatus(ChunkStatus.NOISE);
+        chunk.setBiomes(proto.biomes);
+        final int step = proto.lod;
+        for (int x = 0; x < Chunk.CHUNK_X; x += step) {
+            for (int z = 0; z < Chunk.CHUNK_Z; z += step) {
+                int h = proto.heights[x + Chunk.CHUNK_X * z];
+                // Le chunk sort du constructeur rempli d'air : inutile d'écrire au-dessus de la surface
+                for (int y = 0; y <= h; y++) {
+                    if (y == h) chunk.setBlock(x, y, z, Blocks.GRASS_BLOCK);
+                    else if (y > h - 4) chunk.setBlock(x, y, z, Blocks.DIRT);
+                    else chunk.setBlock(x, y, z, Blocks.STONE);
+                }
+            }
+        }
+        proto.chunk = chunk;
+    }
+
+    private void carveCaves(ProtoChunk proto) {
+        // Un chunk LoD ignore les écritures d'air : rien à creuser
+        if (proto.lod != 1) return;
+        final BaseChunk chunk = proto.chunk;
+        final int baseX = proto.baseX;
+        final int baseZ = proto.baseZ;
+        final int sizeX = Chunk.CHUNK_X;
+        final int sizeZ = Chunk.CHUNK_Z;
+        // Les bruits 3D ne sont échantillonnés qu'aux sommets de grilles alignées sur le monde, puis interpolés
+        // trilinéairement pour chaque bloc ; les sommets d'un bord sont calculés à l'identique par les deux chunks
+        // qui le partagent
+        double[] floorGrid = new double[sizeX * sizeZ];
+        caveFloorNoise.fill2D(floorGrid, baseX * Values.FLOOR_NOISE_SCALE, baseZ * Values.FLOOR_NOISE_SCALE,
+                Values.FLOOR_NOISE_SCALE, sizeX, sizeZ);
+        double[] caveGrid = sampleCaveGrid(caveNoise, Values.BASE_CAVE_SCALE, CAVE_CELL_XZ, CAVE_CELL_Y, baseX, baseZ, proto.biomeValues);
+        double[] sizeGrid = sampleCaveGrid(caveSizeNoise, Values.SIZE_NOISE_SCALE, SIZE_CELL, SIZE_CELL, baseX, baseZ, proto.biomeValues);
+        double[] caveColumn = new double[cavePointsY(CAVE_CELL_Y)];
+        double[] sizeColumn = new double[cavePointsY(SIZE_CELL)];
+        for (int x = 0; x < sizeX; x++) {
+            for (int z = 0; z < sizeZ; z++) {
+                double floorVariation = floorGrid[z * sizeX + x] * Values.FLOOR_VARIATION_AMPLITUDE;
+                // Pas de cave au-dessus de la surface de la colonne (heightmap)
+                int caveTop = Math.min(Values.MAX_CAVE_HEIGHT, chunk.getHighestBlockY(x, z) + 1);
+                if (caveTop <= Values.MIN_CAVE_HEIGHT) continue;
+                // Interpolation en x/z une fois par colonne, puis en y bloc par bloc
+                bilerpColumns(caveGrid, CAVE_POINTS_XZ, (z / CAVE_CELL_XZ) * CAVE_POINTS_XZ + x / CAVE_CELL_XZ, CAVE_CELL_XZ, x, z, caveColumn);
+                bilerpColumns(sizeGrid, SIZE_POINTS_XZ, (z / SIZE_CELL) * SIZE_POINTS_XZ + x / SIZE_CELL, SIZE_CELL, x, z, sizeColumn);
+                for (int y = Values.MIN_CAVE_HEIGHT; y < caveTop; y++) {
+                    if (chunk.getBlockId(x, y, z) == 0) {
+                        continue;
+                    }
+                    int dy = y - Values.MIN_CAVE_HEIGHT;
+                    double caveValue = lerpColumn(caveColumn, dy, CAVE_CELL_Y);
+                    double sizeVariation = lerpColumn(sizeColumn, dy, SIZE_CELL) * 0.5 + 0.5;
+                    if (carves(y, caveValue, sizeVariation, floorVariation)) {
+                        chunk.setBlock(x, y, z, Blocks.AIR);
+                        if (sizeVariation > 0.7 && y + 1 < Values.MAX_CAVE_HEIGHT && chunk.getBlock(x, y + 1, z).isBlock()) {
+                            chunk.setBlock(x, y + 1, z, Blocks.AIR);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Seuil de cave à la hauteur y, relevé près du fond, et plancher irrégulier sous lequel rien n'est creusé
+    private static boolean carves(int y, double caveValue, double sizeVariation, double floorVariation) {
+        double threshold = Values.CAVE_THRESHOLD;
+        if (y < Values.MIN_CAVE_HEIGHT + Values.TRANSITION_HEIGHT) {
+            double factor = (double)(y - Values.MIN_CAVE_HEIGHT) / Values.TRANSITION_HEIGHT;
+            threshold = Values.CAVE_THRESHOLD + (1.0 - factor) * 0.4;
+        }
+        if (y < Values.MIN_CAVE_HEIGHT + Values.FLOOR_VARIATION_AMPLITUDE) {
+            int adjustedFloorHeight = Values.MIN_CAVE_HEIGHT + (int)floorVariation;
+            if (y < adjustedFloorHeight) {
+                return false;
+            }
+        }
+        double adjustedThreshold = threshold - sizeVariation * Values.SIZE_VARIATION;
+        return caveValue > adjustedThreshold;
+    }
+
+    /**
+     * Vrai si les caves peuvent creuser le bloc de surface (x, h, z) du chunk : par la cave à cette hauteur, ou par
+     * celle du dessous quand elle s'élargit. Mêmes calculs que carveCaves, limités aux sommets de la colonne.
+     */
+    private boolean surfaceCarved(ProtoChunk proto, int x, int z, int h) {
+        if (h >= Values.MAX_CAVE_HEIGHT || h < Values.MIN_CAVE_HEIGHT) return false;
+        double floorVariation = caveFloorNoise.noise(proto.baseX * Values.FLOOR_NOISE_SCALE + x * Values.FLOOR_NOISE_SCALE,
+                proto.baseZ * Values.FLOOR_NOISE_SCALE + z * Values.FLOOR_NOISE_SCALE) * Values.FLOOR_VARIATION_AMPLITUDE;
+        double[] caveColumn = columnAt(proto, caveNoise, Values.BASE_CAVE_SCALE, CAVE_CELL_XZ, CAVE_CELL_Y, x, z);
+        double[] sizeColumn = columnAt(proto, caveSizeNoise, Values.SIZE_NOISE_SCALE, SIZE_CELL, SIZE_CELL, x, z);
+        for (int y = Math.max(h - 1, Values.MIN_CAVE_HEIGHT); y <= h; y++) {
+            int dy = y - Values.MIN_CAVE_HEIGHT;
+            double sizeVariation = lerpColumn(sizeColumn, dy, SIZE_CELL) * 0.5 + 0.5;
+            if (y < h && sizeVariation <= 0.7) continue;
+            if (carves(y, lerpColumn(caveColumn, dy, CAVE_CELL_Y), sizeVariation, floorVariation)) return true;
+        }
+        return false;
+    }
+
+    // Colonne (x, z) d'une grille de sampleCaveGrid, calculée à partir des quatre seules colonnes de sommets voisines
+    private double[] columnAt(ProtoChunk proto, PerlinNoise noise, double scale, int cellXZ, int cellY, int x, int z) {
+        int pointsY = cavePointsY(cellY);
+        int x0 = x - x % cellXZ;
+        int z0 = z - z % cellXZ;
+        double[] corners = new double[4 * pointsY];
+        double[] column = new double[pointsY];
+        for (int c = 0; c < 4; c++) {
+            int lx = x0 + (c & 1) * cellXZ;
+            int lz = z0 + (c >> 1) * cellXZ;
+            sampleCaveColumn(noise, scale, cellY, proto.baseX, proto.baseZ, lx, lz, proto.biomeValues, column);
+            System.arraycopy(column, 0, corners, c * pointsY, pointsY);
+        }
+        // Grille de 2x2 colonnes : mêmes opérations que pour la grille du chunk entier
+        double[] out = new double[pointsY];
+        bilerpColumns(corners, 2, 0, cellXZ, x, z, out);
+        return out;
+    }
+
+    /**
+     * Arbres du chunk et parties des arbres des 8 voisins qui débordent dessus. Les arbres d'un chunk sont tirés de
+     * son propre flux aléatoire et de son seul terrain (statut NOISE) : les blocs qui tombent chez un voisin sont
+     * des décorations en attente, posées par le voisin à sa propre étape FEATURES, sans écrire hors de son chunk.
+     * Toutes les feuilles d'abord (dans l'air), puis tous les troncs (dans l'air ou les feuilles) : le résultat ne
+     * dépend ni de l'ordre des arbres ni de celui des chunks.
+     */
+    private void decorate(ProtoChunk proto, ProtoChunk[] neighbours) {
+        BaseChunk chunk = proto.chunk;
+        for (ProtoChunk origin : neighbours) {
+            for (Tree tree : plannedTrees(origin)) placeLeaves(chunk, origin, tree);
+        }
+        for (ProtoChunk origin : neighbours) {
+            for (Tree tree : plannedTrees(origin)) placeTrunk(chunk, origin, tree);
+        }
+    }
+
+    private static void blendTints(ProtoChunk proto, ProtoChunk[] neighbours) {
+        byte[][] neighbourhood = new byte[neighbours.length][];
+        for (int i = 0; i < neighbours.length; i++) neighbourhood[i] = neighbours[i].biomes;
+        proto.chunk.setTints(BiomeTints.blend(neighbourhood));
+    }
+
+    // Arbre dont le tronc part de (x, y, z) dans son chunk d'origine ; leafMask décide des coins de feuillage
+    private record Tree(int x, int y, int z, int trunk, int leafMask) {}
+
+    private List<Tree> plannedTrees(ProtoChunk proto) {
+        List<Tree> trees = proto.trees;
+        if (trees != null) return trees;
+        FastRandom rand = new FastRandom(Seeds.forChunk(seed, proto.cx, proto.cz, TREE_SALT));
+        // Colonne échantillonnée d'un chunk LoD : seule la première de chaque cellule a une hauteur
+        int cellMask = -proto.lod;
+        trees = new ArrayList<>();
+        for (int i = 0; i < TREE_ATTEMPTS; i++) {
+            // Tirages faits à chaque essai, retenu ou non : la suite ne dépend que de la graine
+            int x = rand.nextInt(Chunk.CHUNK_X);
+            int z = rand.nextInt(Chunk.CHUNK_Z);
+            double roll = rand.nextDouble();
+            int trunk = 4 + rand.nextInt(3);
+            int leafMask = rand.nextInt(1 << 16);
+            int column = (x & cellMask) + Chunk.CHUNK_X * (z & cellMask);
+            if (roll >= BIOMES[proto.biomes[column]].treeChance) continue;
+            int h = proto.heights[column];
+            if (h + trunk + 2 >= Chunk.CHUNK_Y || isNearTree(trees, x, z)) continue;
+            // Pas d'arbre au-dessus d'une cave qui ouvre la surface (un chunk LoD ne creuse pas)
+            if (proto.lod == 1 && surfaceCarved(proto, x, z, h)) continue;
+            trees.add(new Tree(x, h + 1, z, trunk, leafMask));
+        }
+        proto.trees = trees;
+        return trees;
+    }
+
+    private static boolean isNearTree(List<Tree> trees, int x, int z) {
+        for (Tree tree : trees) {
+            if (Math.abs(tree.x() - x) < TREE_SPACING && Math.abs(tree.z() - z) < TREE_SPACING) return true;
+        }
+        return false;
+    }
+
+    // Deux couches de rayon 2 sous le sommet du tronc, puis deux de rayon 1 ; coins selon leafMask, sauf tout en haut
+    private static void placeLeaves(BaseChunk chunk, ProtoChunk origin, Tree tree) {
+        int top = tree.y() + tree.trunk() - 1;
+        int bit = 0;
+        for (int y = top - 1; y <= top + 2; y++) {
+            int radius = y <= top ? TREE_RADIUS : 1;
+            for (int dz = -radius; dz <= radius; dz++) {
+                for (int dx = -radius; dx <= radius; dx++) {
+                    if (Math.abs(dx) == radius && Math.abs(dz) == radius) {
+                        boolean keep = y < top + 2 && (tree.leafMask() >> (bit++ & 15) & 1) != 0;
+                        if (!keep) continue;
+                    }
+                    int x = origin.baseX + tree.x() + dx - chunk.getOriginX();
+                    int z = origin.baseZ + tree.z() + dz - chunk.getOriginZ();
+                    if (!inChunk(x, z) || chunk.getBlockId(x, y, z) != 0) continue;
+                    chunk.setBlock(x, y, z, Blocks.LEAVES);
+                }
+            }
+        }
+    }
+
+    private static void placeTrunk(BaseChunk chunk, ProtoChunk origin, Tree tree) {
+        int x = origin.baseX + tree.x() - chunk.getOriginX();
+        int z = origin.baseZ + tree.z() - chunk.getOriginZ();
+        if (!inChunk(x, z)) return;
+        if (chunk.getBlockId(x, tree.y() - 1, z) == Blocks.GRASS_BLOCK.getId()) chunk.setBlock(x, tree.y() - 1, z, Blocks.DIRT);
+        for (int y = tree.y(); y < tree.y() + tree.trunk(); y++) {
+            byte id = chunk.getBlockId(x, y, z);
+            if (id == 0 || id == Blocks.LEAVES.getId()) chunk.setBlock(x, y, z, Blocks.LOG);
+        }
+    }
+
+    private static boolean inChunk(int x, int z) {
+        return x >= 0 && x < Chunk.CHUNK_X && z >= 0 && z < Chunk.CHUNK_Z;
+    }
+
+    private void finish(ProtoChunk proto) {
+        BaseChunk chunk = proto.chunk;
+        // Les sections entièrement en air ou en roche redeviennent uniformes (sans tableau d'indices)
+        chunk.compactStorage();
+        chunk.bumpVersion();
+        if (proto.detached) world.getLightEngine().propagateSkyLightNow(chunk);
+        else chunk.bakeLight();
+    }
+
+    // --- Temps par étape ---
+
+    // Temps total passé dans une étape, tous threads confondus, en nanosecondes
+    public long getStageNanos(ChunkStatus stage) {
+        return stageNanos[stage.ordinal()].sum();
+    }
+
+    // Nombre de chunks passés par une étape (les voisins lus par d'autres chunks comptent pour NOISE)
+    public long getStageRuns(ChunkStatus stage) {
+        return stageRuns[stage.ordinal()].sum();
+    }
+
+    /**
+     * Temps moyen par chunk de chaque étape, sur une ligne (ex. "NOISE 0.41 ms, SURFACE 1.20 ms, ...")
+     */
+    public String describeStageTimes() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < STATUSES.length; i++) {
+            long runs = stageRuns[i].sum();
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(STATUSES[i]).append(' ')
+                    .append(String.format("%.2f ms", runs == 0 ? 0.0 : stageNanos[i].sum() / 1e6 / runs));
+        }
+        return sb.toString();
+    }
+
+    public void resetStageTimes() {
+        for (int i = 0; i < STATUSES.length; i++) {
+            stageNanos[i].reset();
+            stageRuns[i].reset();
+        }
+    }
+
+    // --- Biomes ---
+
+    /**
+     * Biome d'une colonne du monde, sans passer par un chunk
+     */
+    Biome biomeAt(int x, int z) {
+        // Même grille que les chunks, interpolée pour cette seule colonne
+        return classifyBiome(BiomeLattice.sampleColumn(biomeNoise, x, z, BIOME_FREQUENCY, 0, 0),
+                BiomeLattice.sampleColumn(biomeNoise, x, z, BIOME_BLEND_FREQUENCY, 1000, -1000),
+                BiomeLattice.sampleColumn(biomeNoise, x, z, BIOME_BLEND_FREQUENCY, -1000, 1000));
+    }
+
+    // Biomes des colonnes d'un chunk (ordinaux, index x + CHUNK_X * z), pour BaseChunk.getBiome
+    byte[] computeBiomes(int baseX, int baseZ) {
+        return computeBiomes(baseX, baseZ, BiomeLattice.sampleChunk(biomeNoise, baseX, baseZ, BIOME_FREQUENCY, 0, 0));
+    }
+
+    // Teintes lissées d'un chunk (voir BiomeTints), biomes des voisins recalculés, pour BaseChunk.getTint
+    int[] computeTints(int baseX, int baseZ) {
+        byte[][] neighbourhood = new byte[9][];
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                neighbourhood[(dz + 1) * 3 + dx + 1] = computeBiomes(baseX + dx * BaseChunk.CHUNK_X, baseZ + dz * BaseChunk.CHUNK_Z);
+            }
+        }
+        return BiomeTints.blend(neighbourhood);
+    }
+
+    private byte[] computeBiomes(int baseX, int baseZ, double[] biomeValues) {
+        // Bruits secondaires des zones de transition, sur la même grille
+        double[] towardMountains = BiomeLattice.sampleChunk(biomeNoise, baseX, baseZ, BIOME_BLEND_FREQUENCY, 1000, -1000);
+        double[] towardPlains = BiomeLattice.sampleChunk(biomeNoise, baseX, baseZ, BIOME_BLEND_FREQUENCY, -1000, 1000);
+        byte[] out = new byte[biomeValues.length];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) classifyBiome(biomeValues[i], towardMountains[i], towardPlains[i]).ordinal();
+        }
+        return out;
+    }
+    private static Biome classifyBiome(double b, double towardMountains, double towardPlains) {
+        // Utilisation d'un blend lissé pour la transition
+        if (b > 0.35) return Biome.MOUNTAINS;
+        if (b < -0.35) return Biome.PLAINS;
+        // Zone de transition lissée
+        if (b > 0.15 && b <= 0.35) {
+            double t = (b - 0.15) / (0.35 - 0.15); // t de 0 à 1
+            // Mélange progressif, bruit secondaire pour la cohérence spatiale
+            double blend = (towardMountains + 1) * 0.5;
+            return blend < t ? Biome.MOUNTAINS : Biome.NORMAL;
+        }
+        if (b < -0.15 && b >= -0.35) {
+            double t = (-0.15 - b) / (0.35 - 0.15); // t de 0 à 1
+            double blend = (towardPlains + 1) * 0.5;
+            return blend < t ? Biome.PLAINS : Biome.NORMAL;
+        }
+        return Biome.NORMAL;
+    }
+
+    // Paramètres de terrain pour une valeur de bruit de biome : biome pur aux extrêmes, mélange entre les deux
+    private static BiomeParams biomeParams(double b) {
+        if (b <= -0.35) {
+            return new BiomeParams(
+                Biome.PLAINS.relief, Biome.PLAINS.baseHeight, Biome.PLAINS.heightScale, Biome.PLAINS.octaves, Biome.PLAINS.terrainFrequency);
+        } else if (b >= 0.35) {
+            return new BiomeParams(
+                Biome.MOUNTAINS.relief, Biome.MOUNTAINS.baseHeight, Biome.MOUNTAINS.heightScale, Biome.MOUNTAINS.octaves, Biome.MOUNTAINS.terrainFrequency);
+        } else if (b < 0) {
+            double t = (b + 0.35) / 0.35;
+            return interpolateBiome(Biome.PLAINS, Biome.NORMAL, t);
+        } else {
+            double t = b / 0.35;
+            return interpolateBiome(Biome.NORMAL, Biome.MOUNTAINS, t);
+        }
+    }
+
+    /**
+     * Bruit de cave aux sommets d'une grille de cellXZ x cellY x cellXZ blocs couvrant le chunk (bords x = 32 et
+     * z = 32 compris) et la tranche des caves, rangé en {@code [(gz * pointsXZ + gx) * pointsY + gy]}.
+     * Chaque sommet prend la fréquence et l'amplitude des caves de sa propre colonne, comme le faisait chaque bloc.
+     */
+    private double[] sampleCaveGrid(PerlinNoise noise, double scale, int cellXZ, int cellY, int baseX, int baseZ,
+                                    double[] biomeValues) {
+        int pointsXZ = Chunk.CHUNK_X / cellXZ + 1;
+        int pointsY = cavePointsY(cellY);
+        double[] grid = new double[pointsXZ * pointsXZ * pointsY];
+        double[] column = new double[pointsY];
+        for (int gz = 0; gz < pointsXZ; gz++) {
+            for (int gx = 0; gx < pointsXZ; gx++) {
+                sampleCaveColumn(noise, scale, cellY, baseX, baseZ, gx * cellXZ, gz * cellXZ, biomeValues, column);
+                System.arraycopy(column, 0, grid, (gz * pointsXZ + gx) * pointsY, pointsY);
+            }
+        }
+        return grid;
+    }
+
+    // Colonne de sommets (lx, lz) du chunk d'origine (baseX, baseZ), bords x = 32 et z = 32 compris
+    private void sampleCaveColumn(PerlinNoise noise, double scale, int cellY, int baseX, int baseZ, int lx, int lz,
+                                  double[] biomeValues, double[] column) {
+        // Les sommets des bords x = 32 et z = 32 appartiennent au chunk voisin : même valeur de biome que lui
+        double b = lx < Chunk.CHUNK_X && lz < Chunk.CHUNK_Z ? biomeValues[lx + Chunk.CHUNK_X * lz]
+                : BiomeLattice.sampleColumn(biomeNoise, baseX + lx, baseZ + lz, BIOME_FREQUENCY, 0, 0);
+        BiomeParams params = biomeParams(b);
+        double caveFreq = 1.0 / (0.7 + params.terrainFrequency * 0.6);
+        double caveAmp = 1.0 + params.relief * 0.2;
+        noise.fill3D(column, (baseX + lx) * scale * caveFreq, Values.MIN_CAVE_HEIGHT * scale * caveAmp,
+                (baseZ + lz) * scale * caveFreq, 0, cellY * scale * caveAmp, 0, 1, column.length, 1);
+    }
+
+    private static int cavePointsY(int cellY) {
+        return (Values.MAX_CAVE_HEIGHT - Values.MIN_CAVE_HEIGHT + cellY - 1) / cellY + 1;
+    }
+
+    /**
+     * Colonne verticale (x, z) d'une grille de colonnes de sommets (pointsXZ de côté, rangée comme dans
+     * sampleCaveGrid), interpolée entre la colonne g, sommet bas-gauche de sa cellule, et ses trois voisines
+     */
+    private static void bilerpColumns(double[] grid, int pointsXZ, int g, int cellXZ, int x, int z, double[] out) {
+        int pointsY = out.length;
+        double fx = (x % cellXZ) / (double) cellXZ;
+        double fz = (z % cellXZ) / (double) cellXZ;
+        int c00 = g * pointsY;
+        int c10 = (g + 1) * pointsY;
+        int c01 = (g + pointsXZ) * pointsY;
+        int c11 = (g + pointsXZ + 1) * pointsY;
+        for (int j = 0; j < pointsY; j++) {
+            double top = grid[c00 + j] + fx * (grid[c10 + j] - grid[c00 + j]);
+            double bottom = grid[c01 + j] + fx * (grid[c11 + j] - grid[c01 + j]);
+            out[j] = top + fz * (bottom - top);
+        }
+    }
+
+    private static double lerpColumn(double[] column, int dy, int cellY) {
+        int j = dy / cellY;
+        double t = (dy % cellY) / (double) cellY;
+        return column[j] + t * (column[j + 1] - column[j]);
+    }
+
+    // Interpolation linéaire entre deux biomes
+    private static BiomeParams interpolateBiome(Biome a, Biome b, double t) {
+        return new BiomeParams(
+            lerp(a.relief, b.relief, t),
+            lerp(a.baseHeight, b.baseHeight, t),
+            lerp(a.heightScale, b.heightScale, t),
+            lerp(a.octaves, b.octaves, t),
+            lerp(a.terrainFrequency, b.terrainFrequency, t)
+        );
+    }
+    private static double lerp(double a, double b, double t) {
+        return a * (1 - t) + b * t;
+    }
+
+    private record BiomeParams(double relief, double baseHeight, double heightScale, double octaves,
+                               double terrainFrequency) {
+    }
+}
@@ -1,12 +1,18 @@
 package ovh.paulem.mc.world;
 
 import ovh.paulem.mc.Dirs;
+import ovh.paulem.mc.engine.render.texture.TintType;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.Map;
 
 /**
@@ -17,6 +23,10 @@ public class ChunkIO {
     private final World world;
     private final ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
     private final Map<Long, Object> chunkLocks = new ConcurrentHashMap<>();
+    // Dernière sauvegarde en file par chunk : un chargement l'attend pour ne pas relire un fichier périmé
+    private final Map<Long, Future<?>> pendingSaves = new ConcurrentHashMap<>();
+    // Octets écrits dans les fichiers de chunks depuis l'ouverture du monde
+    private final LongAdder bytesWritten = new LongAdder();
 
     public ChunkIO(World world, String worldName) {
         this.world = world;
@@ -43,7 +53,13 @@ public class ChunkIO {
             try {
                 Files.createDirectories(regionDir);
                 Path chunkFile = getChunkFile(chunkX, chunkZ);
+                // Une version LoD n'écrase jamais une sauvegarde à pleine résolution : le chunk pourra
+                // retrouver tout son détail quand le joueur s'en rapprochera
+                if (chunk instanceof GreedyChunk && isFullResolution(readSavedType(chunkFile))) {
+                    return;
+                }
                 Path tempFile = chunkFile.resolveSibling(chunkFile.getFileName() + ".tmp");
+                int size;
 
                 try (FileOutputStream fos = new FileOutputStream(tempFile.toFile());
                      BufferedOutputStream bos = new BufferedOutputStream(fos);
@@ -54,47 +70,23 @@ public class ChunkIO {
                     dos.writeInt(chunk.getOriginZ());
                     dos.writeInt(chunk.getVersion());
 
-                    // Type de chunk : 0 = Chunk, 1 = GreedyChunk
-                    if (chunk instanceof GreedyChunk) {
-                        dos.writeByte(1);
-                        GreedyChunk gChunk = (GreedyChunk) chunk;
+                    // Type de chunk : 0 = Chunk à plat, 1 = GreedyChunk de facteur 2, 2 = Chunk par sections,
+                    // 3 = GreedyChunk avec son facteur de LoD (anciens formats, lecture seule) ; 4 et 5 = comme 2 et 3,
+                    // suivis des biomes et des teintes du chunk
+                    if (chunk instanceof GreedyChunk gChunk) {
+                        dos.writeByte(5);
+                        dos.writeByte(gChunk.getLodFactor());
                         byte[] rleBlocks = gChunk.getRleBlocks();
-                        byte[] rleLight = gChunk.getRleLightLevels();
                         dos.writeInt(rleBlocks.length);
                         dos.write(rleBlocks);
-                        dos.writeInt(rleLight.length);
-                        dos.write(rleLight);
-                    } else {
-                        dos.writeByte(0);
-                        // Sauvegarde des blocs compressés RLE (byte)
-                        byte[] blocks = new byte[BaseChunk.CHUNK_X * BaseChunk.CHUNK_Y * BaseChunk.CHUNK_Z];
-                        int idx = 0;
-                        for (int x = 0; x < BaseChunk.CHUNK_X; x++)
-                            for (int y = 0; y < BaseChunk.CHUNK_Y; y++)
-                                for (int z = 0; z < BaseChunk.CHUNK_Z; z++)
-                                    blocks[idx++] = chunk.getBlockId(x, y, z);
-                        writeRLEByteArray(dos, blocks);
-                        // Sauvegarde de la lumière compressée RLE
-                        byte[] light = new byte[(BaseChunk.CHUNK_X * BaseChunk.CHUNK_Y * BaseChunk.CHUNK_Z + 1) / 2];
-                        idx = 0;
-                        for (int x = 0; x < BaseChunk.CHUNK_X; x++)
-                            for (int y = 0; y < BaseChunk.CHUNK_Y; y++)
-                                for (int z = 0; z < BaseChunk.CHUNK_Z; z++) {
-                                    int index = chunk.getIndex(x, y, z);
-                                    int byteIndex = index / 2;
-                                    boolean highNibble = (index % 2) == 0;
-                                    byte b = light[byteIndex];
-                                    byte level = chunk.getLightLevel(x, y, z);
-                                    if (highNibble) {
-                                        b = (byte) ((b & 0x0F) | ((level & 0xF) << 4));
-                                    } else {
-                                        b = (byte) ((b & 0xF0) | (level & 0xF));
-                                    }
-                                    light[byteIndex] = b;
-                                }
-                        writeRLEByteArray(dos, light);
+                        writeBiomes(dos, chunk);
+                    } else if (chunk instanceof Chunk fullChunk) {
+                        dos.writeByte(4);
+                        writeSections(dos, fullChunk);
+                        writeBiomes(dos, chunk);
                     }
                     dos.flush();
+                    size = dos.size();
                 }
                 try {
                     Files.move(tempFile, chunkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
@@ -106,6 +98,7 @@ public class ChunkIO {
                         throw ex;
                     }
                 }
+                bytesWritten.add(size);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -118,6 +111,7 @@ public class ChunkIO {
      */
     public BaseChunk loadChunk(int chunkX, int chunkZ) {
         long chunkKey = (((long)chunkX) << 32) ^ (chunkZ & 0xffffffffL);
+        awaitPendingSave(chunkKey);
         Object lock = chunkLocks.computeIfAbsent(chunkKey, k -> new Object());
         synchronized (lock) {
             Path chunkFile = getChunkFile(chunkX, chunkZ);
@@ -134,17 +128,26 @@ public class ChunkIO {
                 int version = dis.readInt();
                 int type = dis.readByte();
 
-                if (type == 1) { // GreedyChunk
+                if (type == 1 || type == 3 || type == 5) { // GreedyChunk
+                    int lod = type == 1 ? 2 : dis.readByte();
                     int rleBlocksLen = dis.readInt();
                     byte[] rleBlocks = new byte[rleBlocksLen];
                     dis.readFully(rleBlocks);
-                    int rleLightLen = dis.readInt();
-                    byte[] rleLight = new byte[rleLightLen];
-                    dis.readFully(rleLight);
-                    GreedyChunk gChunk = new GreedyChunk(world, originX, originZ, rleBlocks, rleLight);
+                    if (type == 1) {
+                        // Lumière RLE de l'ancien format, jamais utilisée par les chunks LoD
+                        dis.skipNBytes(dis.readInt());
+                    }
+                    GreedyChunk gChunk = new GreedyChunk(world, originX, originZ, lod, rleBlocks);
+                    if (type == 5) readBiomes(dis, gChunk);
                     gChunk.setVersion(version);
                     return gChunk;
-                } else { // Chunk classique
+                } else if (type == 2 || type == 4) { // Chunk par sections
+                    Chunk chunk = new Chunk(world, originX, originZ);
+                    readSections(dis, chunk);
+                    if (type == 4) readBiomes(dis, chunk);
+                    chunk.setVersion(version);
+                    return chunk;
+                } else { // Chunk classique (ancien format à plat)
                     Chunk chunk = new Chunk(world, originX, originZ);
                     // Chargement des blocs compressés RLE (byte)
                     byte[] blocks = new byte[BaseChunk.CHUNK_X * BaseChunk.CHUNK_Y * BaseChunk.CHUNK_Z];
@@ -168,6 +171,7 @@ public class ChunkIO {
                                 byte level = (byte) (highNibble ? (b >> 4) & 0xF : b & 0xF);
                                 chunk.setLightLevel(x, y, z, level);
                             }
+                    chunk.compactStorage();
                     chunk.setVersion(version);
                     return chunk;
                 }
@@ -178,6 +182,21 @@ public class ChunkIO {
         }
     }
 
+    // Type du chunk sauvegardé (voir saveChunk), -1 s'il n'y a pas de sauvegarde lisible
+    private static int readSavedType(Path chunkFile) {
+        if (!Files.exists(chunkFile)) return -1;
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(chunkFile.toFile()), 16))) {
+            dis.skipNBytes(3 * Integer.BYTES); // origine X, origine Z, version
+            return dis.readByte();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isFullResolution(int type) {
+        return type == 0 || type == 2 || type == 4;
+    }
+
     /**
      * Vérifie si un chunk existe sur le disque
      */
@@ -185,6 +204,20 @@ public class ChunkIO {
         return Files.exists(getChunkFile(chunkX, chunkZ));
     }
 
+    /**
+     * Vérifie si une sauvegarde à pleine résolution du chunk existe (une version LoD ne compte pas)
+     */
+    public boolean hasFullResolutionSave(int chunkX, int chunkZ) {
+        return isFullResolution(readSavedType(getChunkFile(chunkX, chunkZ)));
+    }
+
+    /**
+     * Octets écrits dans les fichiers de chunks depuis l'ouverture du monde
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
     /**
      * Sauvegarde la seed du monde dans world.dat
      */
@@ -215,14 +248,57 @@ public class ChunkIO {
      * Sauvegarde un chunk de façon asynchrone
      */
     public void saveChunkAsync(BaseChunk chunk) {
-        saveExecutor.submit(() -> saveChunk(chunk));
+        int chunkX = chunk.getOriginX() / BaseChunk.CHUNK_X;
+        int chunkZ = chunk.getOriginZ() / BaseChunk.CHUNK_Z;
+        long chunkKey = (((long)chunkX) << 32) ^ (chunkZ & 0xffffffffL);
+        CompletableFuture<Void> save = CompletableFuture.runAsync(() -> {
+            try {
+                saveChunk(chunk);
+            } finally {
+                // Un instantané rend ses slabs hors tas une fois écrit
+                if (chunk.isSnapshot()) chunk.release();
+            }
+        }, saveExecutor);
+        pendingSaves.put(chunkKey, save);
+        save.whenComplete((ignored, error) -> pendingSaves.remove(chunkKey, save));
     }
 
     /**
-     * Arrête proprement l'executor de sauvegarde
+     * Sauvegarde un chunk sur le thread appelant, après les sauvegardes asynchrones déjà en file pour lui.
+     * Pour les outils hors jeu : plusieurs threads peuvent écrire des chunks différents en parallèle.
+     */
+    public void saveChunkNow(BaseChunk chunk) {
+        int chunkX = chunk.getOriginX() / BaseChunk.CHUNK_X;
+        int chunkZ = chunk.getOriginZ() / BaseChunk.CHUNK_Z;
+        awaitPendingSave((((long)chunkX) << 32) ^ (chunkZ & 0xffffffffL));
+        saveChunk(chunk);
+    }
+
+    // Les sauvegardes d'un même chunk s'exécutent dans l'ordre : attendre la dernière suffit
+    private void awaitPendingSave(long chunkKey) {
+        Future<?> save = pendingSaves.get(chunkKey);
+        if (save == null) return;
+        try {
+            save.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Arrête proprement l'executor de sauvegarde, après les sauvegardes encore en file
      */
     public void shutdown() {
         saveExecutor.shutdown();
+        try {
+            if (!saveExecutor.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS)) {
+                System.err.println("Sauvegardes de chunks non terminées à l'arrêt");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private Path getRegionDirectory(int chunkX, int chunkZ) {
@@ -237,14 +313,119 @@ public class ChunkIO {
         return regionDir.resolve("chunk_" + chunkX + "_" + chunkZ + ".dat");
     }
 
+    // --- Format par sections ---
+    // Pour chaque section : un marqueur de blocs (vide / uniforme + id / RLE des ids) puis un marqueur
+    // de lumière (uniforme + niveau / RLE des nibbles). Les sections vides ou uniformes tiennent en 1 à 2 octets.
+    private static final byte SECTION_EMPTY = 0;
+    private static final byte SECTION_UNIFORM = 1;
+    private static final byte SECTION_PALETTED = 2;
+    private static final byte LIGHT_UNIFORM = 0;
+    private static final byte LIGHT_NIBBLES = 1;
+
+    private void writeSections(DataOutputStream dos, Chunk chunk) throws IOException {
+        byte[] ids = null;
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            ChunkSection section = chunk.getSection(sy);
+            if (section.isEmpty()) {
+                dos.writeByte(SECTION_EMPTY);
+            } else if (section.isUniform()) {
+                dos.writeByte(SECTION_UNIFORM);
+                dos.writeByte(section.getUniformId());
+            } else {
+                if (ids == null) ids = new byte[ChunkSection.VOLUME];
+                section.copyBlockIds(ids);
+                dos.writeByte(SECTION_PALETTED);
+                writeRLEByteArray(dos, ByteBuffer.wrap(ids));
+            }
+            // Nibbles lus directement dans le stockage de la section (tas ou slab), sans copie
+            ByteBuffer light = section.lightView();
+            if (light == null) {
+                dos.writeByte(LIGHT_UNIFORM);
+                dos.writeByte(section.getUniformLight());
+            } else {
+                dos.writeByte(LIGHT_NIBBLES);
+                writeRLEByteArray(dos, light);
+            }
+        }
+    }
+
+    private void readSections(DataInputStream dis, Chunk chunk) throws IOException {
+        byte[] ids = null;
+        byte[] light = null;
+        for (int sy = 0; sy < BaseChunk.SECTION_COUNT; sy++) {
+            ChunkSection section;
+            byte kind = dis.readByte();
+            if (kind == SECTION_EMPTY) {
+                section = new ChunkSection();
+            } else if (kind == SECTION_UNIFORM) {
+                section = ChunkSection.uniform(dis.readByte());
+            } else {
+                if (ids == null) ids = new byte[ChunkSection.VOLUME];
+                readRLEByteArray(dis, ids);
+                section = ChunkSection.fromBlockIds(ids);
+            }
+            if (dis.readByte() == LIGHT_UNIFORM) {
+                section.fillLight(dis.readByte());
+            } else {
+                if (light == null) light = new byte[ChunkSection.VOLUME / 2];
+                readRLEByteArray(dis, light);
+                section.setLight(light);
+            }
+            chunk.setSection(sy, section);
+        }
+        chunk.recomputeHeightmaps();
+    }
+
+    // --- Biomes et teintes (types 4 et 5) ---
+    // Biomes de chaque colonne en RLE, puis les teintes par plan de composante (rouge, vert puis bleu de chaque
+    // type de teinte), chaque valeur en écart à la colonne précédente : les écarts sont nuls hors des transitions
+    // entre biomes, les runs restent longs.
+    private static final int TINT_PLANES = TintType.values().length * 3;
+
+    private void writeBiomes(DataOutputStream dos, BaseChunk chunk) throws IOException {
+        writeRLEByteArray(dos, ByteBuffer.wrap(chunk.getBiomeIds()));
+        int[] tints = chunk.getTints();
+        byte[] plane = new byte[BiomeTints.COLUMNS];
+        for (int p = 0; p < TINT_PLANES; p++) {
+            int base = p / 3 * BiomeTints.COLUMNS;
+            int shift = 16 - 8 * (p % 3);
+            int previous = 0;
+            for (int i = 0; i < plane.length; i++) {
+                int value = (tints[base + i] >> shift) & 0xFF;
+                plane[i] = (byte) (value - previous);
+                previous = value;
+            }
+            writeRLEByteArray(dos, ByteBuffer.wrap(plane));
+        }
+    }
+
+    private void readBiomes(DataInputStream dis, BaseChunk chunk) throws IOException {
+        byte[] biomes = new byte[BiomeTints.COLUMNS];
+        readRLEByteArray(dis, biomes);
+        int[] tints = new int[TintType.values().length * BiomeTints.COLUMNS];
+        byte[] plane = new byte[BiomeTints.COLUMNS];
+        for (int p = 0; p < TINT_PLANES; p++) {
+            readRLEByteArray(dis, plane);
+            int base = p / 3 * BiomeTints.COLUMNS;
+            int shift = 16 - 8 * (p % 3);
+            int value = 0;
+            for (int i = 0; i < plane.length; i++) {
+                value = (value + plane[i]) & 0xFF;
+                tints[base + i] |= value << shift;
+            }
+        }
+        chunk.setBiomes(biomes);
+        chunk.setTints(tints);
+    }
+
     // --- Compression RLE simple pour les blockIds ---
-    private void writeRLEByteArray(DataOutputStream dos, byte[] data) throws IOException {
-        final int n = data.length;
+    private void writeRLEByteArray(DataOutputStream dos, ByteBuffer data) throws IOException {
+        final int n = data.limit();
         int i = 0;
         while (i < n) {
-            final byte value = data[i];
+            final byte value = data.get(i);
             int runLength = 1;
-            for (; i + runLength < n && data[i + runLength] == value && runLength < 0x7FFF; runLength++);
+            for (; i + runLength < n && data.get(i + runLength) == value && runLength < 0x7FFF; runLength++);
             dos.writeByte(value);
             dos.writeShort(runLength); // 2 octets pour la taille du run
             i += runLength;
@@ -255,13 +436,12 @@ public class ChunkIO {
 
     private void readRLEByteArray(DataInputStream dis, byte[] data) throws IOException {
         int i = 0;
-        while (i < data.length) {
+        // Lecture jusqu'au marqueur de fin (run de longueur 0), même tableau rempli : plusieurs tableaux se
+        // suivent dans le format par sections. La valeur seule ne suffit pas, un octet de lumière peut valoir -128
+        while (true) {
             final byte value = dis.readByte();
-            if (value == Byte.MIN_VALUE) {
-                dis.readShort(); // consomme le short de fin
-                break;
-            }
             final int runLength = dis.readShort() & 0xFFFF;
+            if (runLength == 0) break;
             final int max = Math.min(runLength, data.length - i);
             for (int j = 0; j < max; j++) {
                 data[i++] = value;
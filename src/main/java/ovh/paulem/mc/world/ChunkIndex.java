@@ -0,0 +1,185 @@
+package ovh.paulem.mc.world;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Index des chunks chargés, découpé en régions fixes de 32x32 chunks.
+ * Une recherche se résume à quelques décalages et deux lectures de tableau, sans boxing ni verrou :
+ * les régions sont rangées dans une petite grille torique de 4x4 cases indexée par
+ * les bits bas des coordonnées de région, et chaque région garde un tableau plat de références.
+ * Les tableaux atomiques donnent aux lectures et écritures une sémantique volatile : un chunk publié par
+ * un thread de génération est vu entièrement construit par le thread de rendu ou de physique.
+ * Si deux régions tombent sur la même case de la grille (joueur très loin de son point de départ pendant
+ * qu'un ancien chunk reste chargé), la région en trop va dans une table de débordement.
+ */
+public class ChunkIndex {
+    public static final int REGION_SHIFT = 5;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int REGION_MASK = REGION_SIZE - 1;
+    // 4x4 régions = 128x128 chunks, largement plus que le rayon de rendu
+    private static final int SLOT_SHIFT = 2;
+    private static final int SLOT_MASK = (1 << SLOT_SHIFT) - 1;
+
+    private static final class Region {
+        final int rx;
+        final int rz;
+        final AtomicReferenceArray<BaseChunk> chunks = new AtomicReferenceArray<>(REGION_SIZE * REGION_SIZE);
+        // Nombre de chunks présents, modifié sous le verrou de l'index
+        int count;
+
+        Region(int rx, int rz) {
+            this.rx = rx;
+            this.rz = rz;
+        }
+    }
+
+    private final AtomicReferenceArray<Region> slots = new AtomicReferenceArray<>(1 << (SLOT_SHIFT * 2));
+    private final Map<Long, Region> overflow = new ConcurrentHashMap<>();
+    private volatile int size;
+    // Incrémenté à chaque retrait ou remplacement : invalide les caches des WorldCursor
+    private volatile int epoch;
+
+    private static int slotIndex(int rx, int rz) {
+        return ((rz & SLOT_MASK) << SLOT_SHIFT) | (rx & SLOT_MASK);
+    }
+
+    private static int chunkIndex(int cx, int cz) {
+        return ((cz & REGION_MASK) << REGION_SHIFT) | (cx & REGION_MASK);
+    }
+
+    private static long regionKey(int rx, int rz) {
+        return (((long) rx) << 32) ^ (rz & 0xffffffffL);
+    }
+
+    private Region region(int rx, int rz) {
+        Region r = slots.get(slotIndex(rx, rz));
+        if (r != null && r.rx == rx && r.rz == rz) return r;
+        if (overflow.isEmpty()) return null;
+        return overflow.get(regionKey(rx, rz));
+    }
+
+    /**
+     * Chunk chargé aux coordonnées de chunk (cx, cz), ou null. Ne bloque jamais.
+     */
+    public BaseChunk get(int cx, int cz) {
+        Region r = region(cx >> REGION_SHIFT, cz >> REGION_SHIFT);
+        if (r == null) return null;
+        return r.chunks.get(chunkIndex(cx, cz));
+    }
+
+    /**
+     * Publie un chunk entièrement construit ; remplace l'éventuel chunk déjà présent
+     */
+    public synchronized void put(int cx, int cz, BaseChunk chunk) {
+        int rx = cx >> REGION_SHIFT;
+        int rz = cz >> REGION_SHIFT;
+        Region r = region(rx, rz);
+        if (r == null) {
+            r = new Region(rx, rz);
+            int slot = slotIndex(rx, rz);
+            if (slots.get(slot) == null) {
+                slots.set(slot, r);
+            } else {
+                overflow.put(regionKey(rx, rz), r);
+            }
+        }
+        if (r.chunks.getAndSet(chunkIndex(cx, cz), chunk) == null) {
+            r.count++;
+            size++;
+        } else {
+            epoch++;
+        }
+    }
+
+    /**
+     * Retire le chunk (cx, cz) s'il s'agit bien de {@code expected} (null pour retirer quoi qu'il y ait)
+     * @return true si un chunk a été retiré
+     */
+    public synchronized boolean remove(int cx, int cz, BaseChunk expected) {
+        int rx = cx >> REGION_SHIFT;
+        int rz = cz >> REGION_SHIFT;
+        Region r = region(rx, rz);
+        if (r == null) return false;
+        int i = chunkIndex(cx, cz);
+        BaseChunk current = r.chunks.get(i);
+        if (current == null || (expected != null && current != expected)) return false;
+        r.chunks.set(i, null);
+        epoch++;
+        r.count--;
+        size--;
+        if (r.count == 0) {
+            int slot = slotIndex(rx, rz);
+            if (slots.get(slot) == r) {
+                // Une région en débordement peut reprendre la case libérée ; elle est posée dans la case
+                // avant d'être retirée du débordement pour rester visible des lecteurs à tout instant
+                Region moved = null;
+                for (Region o : overflow.values()) {
+                    if (slotIndex(o.rx, o.rz) == slot) {
+                        moved = o;
+                        break;
+                    }
+                }
+                slots.set(slot, moved);
+                if (moved != null) overflow.remove(regionKey(moved.rx, moved.rz));
+            } else {
+                overflow.remove(regionKey(rx, rz));
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Copie les chunks présents dans un nouveau tableau
+     */
+    public synchronized BaseChunk[] toArray() {
+        BaseChunk[] out = new BaseChunk[size];
+        int n = 0;
+        for (int s = 0; s < slots.length(); s++) {
+            n = copyInto(slots.get(s), out, n);
+        }
+        for (Region r : overflow.values()) {
+            n = copyInto(r, out, n);
+        }
+        return out;
+    }
+
+    private static int copyInto(Region r, BaseChunk[] out, int n) {
+        if (r == null) return n;
+        for (int i = 0; i < r.chunks.length(); i++) {
+            BaseChunk c = r.chunks.get(i);
+            if (c != null) out[n++] = c;
+        }
+        return n;
+    }
+
+    /**
+     * Parcourt les chunks présents (vue faiblement cohérente, comme les itérateurs concurrents)
+     */
+    public void forEach(Consumer<BaseChunk> action) {
+        for (int s = 0; s < slots.length(); s++) {
+            forEachIn(slots.get(s), action);
+        }
+        for (Region r : overflow.values()) {
+            forEachIn(r, action);
+        }
+    }
+
+    private static void forEachIn(Region r, Consumer<BaseChunk> action) {
+        if (r == null) return;
+        for (int i = 0; i < r.chunks.length(); i++) {
+            BaseChunk c = r.chunks.get(i);
+            if (c != null) action.accept(c);
+        }
+    }
+}
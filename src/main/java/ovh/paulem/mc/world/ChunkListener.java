@@ -0,0 +1,23 @@
+package ovh.paulem.mc.world;
+
+/**
+ * Notifications de cycle de vie des chunks prêts du {@link World}.
+ * Les appels arrivent depuis n'importe quel thread (génération, thread principal) :
+ * une implémentation liée à OpenGL doit les mettre en file et les traiter sur son propre thread.
+ */
+public interface ChunkListener {
+    // Le chunk vient d'être publié (généré ou chargé depuis le disque)
+    default void onChunkLoaded(BaseChunk chunk) {}
+
+    // Le chunk a été retiré du monde, il ne sera plus modifié (sauf s'il est republié depuis le cache)
+    default void onChunkUnloaded(BaseChunk chunk) {}
+
+    // Des blocs du chunk (ou de sa bordure) ont changé
+    default void onChunkChanged(BaseChunk chunk) {}
+
+    // Le chunk publié a été remplacé par une autre version du même emplacement (changement de niveau de LoD)
+    default void onChunkReplaced(BaseChunk previous, BaseChunk chunk) {
+        onChunkUnloaded(previous);
+        onChunkLoaded(chunk);
+    }
+}
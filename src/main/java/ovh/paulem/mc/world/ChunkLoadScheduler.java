@@ -0,0 +1,217 @@
+package ovh.paulem.mc.world;
+
+import lombok.Getter;
+import ovh.paulem.mc.Values;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordonnanceur du chargement / de la génération des chunks.
+ * Au lieu d'une file FIFO remplie ligne par ligne, les tâches en attente sont triées par distance au joueur,
+ * pondérée par l'angle avec la direction du regard : le chunk sous le joueur puis ceux devant lui passent
+ * en premier, ceux de derrière en dernier. Quand le joueur change de chunk ou tourne nettement la tête,
+ * la file est re-triée avec le nouveau point de vue.
+ * La file est bornée : au-delà de {@link #MAX_PENDING} tâches, les nouvelles demandes sont refusées
+ * (le monde les redemandera à la frame suivante). Les tâches de chunks sortis du rayon de conservation
+ * sont abandonnées avant de démarrer, ou marquées périmées pendant leur exécution pour que la génération
+ * s'interrompe d'elle-même ({@link #isCurrentTaskStale()}).
+ */
+public class ChunkLoadScheduler {
+    // Poids d'un chunk situé derrière le joueur par rapport au même chunk devant lui
+    private static final double BEHIND_WEIGHT = 2.0;
+    // Re-tri quand la direction du regard tourne de plus de ~30°
+    private static final double LOOK_RESORT_COS = Math.cos(Math.toRadians(30));
+    // Profondeur maximale de la file : un disque de rayon RENDER_RADIUS y tient entier (~3200 chunks à 32), les
+    // demandes étant soumises ligne par ligne, une file plus courte refuserait des chunks proches
+    public static final int MAX_PENDING = Math.max(512, (2 * Values.RENDER_RADIUS + 1) * (2 * Values.RENDER_RADIUS + 1));
+
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    // Tâche exécutée par chaque thread de génération, pour les vérifications coopératives
+    private final ThreadLocal<LoadTask> currentTask = new ThreadLocal<>();
+    // Tâches démarrées et pas encore terminées
+    private final Set<LoadTask> running = ConcurrentHashMap.newKeySet();
+
+    // Métriques
+    @Getter
+    private volatile int peakQueueDepth;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Point de vue courant, en coordonnées de chunk (modifié sous le verrou de l'ordonnanceur)
+    private double focusX;
+    private double focusZ;
+    private double lookX;
+    private double lookZ;
+    private int focusCx = Integer.MIN_VALUE;
+    private int focusCz = Integer.MIN_VALUE;
+
+    public ChunkLoadScheduler(int threads) {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue);
+        // Threads démarrés d'avance : toutes les tâches passent par la file triée
+        executor.prestartAllCoreThreads();
+    }
+
+    private final class LoadTask extends FutureTask<BaseChunk> implements Comparable<LoadTask> {
+        final int cx;
+        final int cz;
+        final long seq = sequence.getAndIncrement();
+        double priority;
+        volatile boolean stale;
+
+        LoadTask(int cx, int cz, Callable<BaseChunk> work) {
+            super(work);
+            this.cx = cx;
+            this.cz = cz;
+        }
+
+        @Override
+        public void run() {
+            running.add(this);
+            currentTask.set(this);
+            try {
+                super.run();
+            } finally {
+                currentTask.remove();
+                running.remove(this);
+            }
+        }
+
+        @Override
+        public int compareTo(LoadTask o) {
+            int c = Double.compare(priority, o.priority);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    /**
+     * Met en file le chargement du chunk (cx, cz) selon sa priorité actuelle
+     * @return la tâche, ou null si la file est pleine
+     */
+    public synchronized Future<BaseChunk> submit(int cx, int cz, Callable<BaseChunk> work) {
+        int depth = queue.size();
+        if (depth >= MAX_PENDING) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        LoadTask task = new LoadTask(cx, cz, work);
+        task.priority = priority(cx, cz);
+        executor.execute(task);
+        if (depth + 1 > peakQueueDepth) peakQueueDepth = depth + 1;
+        return task;
+    }
+
+    /**
+     * Abandonne les chargements de chunks à plus de {@code radius} chunks de (centerCx, centerCz) :
+     * annulés s'ils attendent encore, marqués périmés s'ils tournent déjà.
+     * @return nombre de tâches en attente annulées
+     */
+    public synchronized int dropOutside(int centerCx, int centerCz, int radius) {
+        int radiusSq = radius * radius;
+        int count = 0;
+        for (Runnable r : queue) {
+            LoadTask task = (LoadTask) r;
+            if (isOutside(task, centerCx, centerCz, radiusSq) && queue.remove(task)) {
+                task.cancel(false);
+                count++;
+            }
+        }
+        for (LoadTask task : running) {
+            if (isOutside(task, centerCx, centerCz, radiusSq)) task.stale = true;
+        }
+        dropped.addAndGet(count);
+        return count;
+    }
+
+    private static boolean isOutside(LoadTask task, int centerCx, int centerCz, int radiusSq) {
+        int dx = task.cx - centerCx;
+        int dz = task.cz - centerCz;
+        return dx * dx + dz * dz > radiusSq;
+    }
+
+    /**
+     * À appeler depuis le travail d'une tâche : true si son chunk est sorti du rayon de conservation
+     * et qu'il vaut mieux abandonner la génération.
+     */
+    public boolean isCurrentTaskStale() {
+        LoadTask task = currentTask.get();
+        return task != null && task.stale;
+    }
+
+    /**
+     * Met à jour le point de vue (coordonnées monde du joueur, direction horizontale du regard,
+     * (0, 0) si inconnue) et re-trie la file si le joueur a changé de chunk ou tourné la tête.
+     */
+    public synchronized void setFocus(float playerX, float playerZ, float lookDirX, float lookDirZ) {
+        focusX = playerX / BaseChunk.CHUNK_X;
+        focusZ = playerZ / BaseChunk.CHUNK_Z;
+        int cx = (int) Math.floor(focusX);
+        int cz = (int) Math.floor(focusZ);
+        double len = Math.sqrt(lookDirX * lookDirX + lookDirZ * lookDirZ);
+        double nx = len > 1e-6 ? lookDirX / len : 0;
+        double nz = len > 1e-6 ? lookDirZ / len : 0;
+        boolean moved = cx != focusCx || cz != focusCz;
+        boolean turned = nx * lookX + nz * lookZ < LOOK_RESORT_COS && (nx != 0 || nz != 0 || lookX != 0 || lookZ != 0);
+        if (!moved && !turned) return;
+        focusCx = cx;
+        focusCz = cz;
+        lookX = nx;
+        lookZ = nz;
+        reprioritize();
+    }
+
+    // Les priorités ne changent que hors de la file : on la vide, recalcule, puis la remplit à nouveau
+    private void reprioritize() {
+        List<Runnable> pending = new ArrayList<>(queue.size());
+        queue.drainTo(pending);
+        for (Runnable r : pending) {
+            LoadTask task = (LoadTask) r;
+            task.priority = priority(task.cx, task.cz);
+        }
+        queue.addAll(pending);
+    }
+
+    // Distance au carré au centre du chunk, multipliée par 1 devant le joueur jusqu'à BEHIND_WEIGHT derrière
+    private double priority(int cx, int cz) {
+        double dx = cx + 0.5 - focusX;
+        double dz = cz + 0.5 - focusZ;
+        double d2 = dx * dx + dz * dz;
+        if (d2 < 1e-9 || (lookX == 0 && lookZ == 0)) return d2;
+        double cos = (dx * lookX + dz * lookZ) / Math.sqrt(d2);
+        return d2 * (1.0 + (BEHIND_WEIGHT - 1.0) * (1.0 - cos) * 0.5);
+    }
+
+    /**
+     * Nombre de chargements en attente (hors tâches déjà en cours d'exécution)
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Tâches abandonnées avant de démarrer
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Demandes refusées faute de place dans la file
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+}
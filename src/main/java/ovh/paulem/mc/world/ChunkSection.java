@@ -0,0 +1,561 @@
+package ovh.paulem.mc.world;
+
+import ovh.paulem.mc.Values;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Tranche de 32x16x32 blocs d'un {@link Chunk}.
+ * Les blocs sont stockés via une palette locale (ids présents dans la section) et des indices
+ * compactés dans des longs sur 1, 2, 4 ou 8 bits ; la largeur grandit avec la palette.
+ * Une section dont tous les blocs sont identiques est « uniforme » et n'a aucun tableau d'indices
+ * (une section uniforme d'air est dite vide). La lumière suit le même principe : un niveau unique
+ * tant qu'aucun bloc ne diffère, puis un tableau de nibbles (4 bits par bloc).
+ * <p>
+ * {@link #snapshot()} donne une copie figée en O(1) pour les threads de fond : palette, indices et lumière
+ * sont partagés, et c'est la section vivante qui les recopie avant sa prochaine écriture (copy-on-write).
+ * <p>
+ * Avec {@link #OFF_HEAP}, indices et lumière vivent dans des slabs hors tas d'un {@link SlabPool}, rendues
+ * par {@link #release()} (déchargement du chunk, fin d'un instantané).
+ */
+public class ChunkSection {
+    public static final int SECTION_SHIFT = 4;
+    public static final int SECTION_HEIGHT = 1 << SECTION_SHIFT;
+    public static final int VOLUME = BaseChunk.CHUNK_X * SECTION_HEIGHT * BaseChunk.CHUNK_Z;
+    public static final boolean OFF_HEAP = Values.OFF_HEAP_CHUNKS;
+
+    // Palette : au plus 256 ids distincts (un id tient sur un byte), donc 8 bits suffisent toujours
+    private byte[] palette = new byte[256];
+    private int paletteSize;
+    // Indices compactés, null tant que la section est uniforme (palette[0] partout).
+    // Remplacés d'un bloc lors d'un changement de largeur pour ne jamais exposer
+    // un tableau et une largeur incohérents aux lecteurs concurrents (mesh, lumière)
+    private volatile Storage storage;
+
+    // Lumière : null tant que toute la section a le niveau uniformLight
+    private volatile Nibbles lightLevels;
+    private byte uniformLight;
+
+    // Tableaux partagés avec un instantané : à recopier avant d'écrire dedans
+    private boolean blocksShared;
+    private boolean lightShared;
+    // Instantané : aucune écriture permise
+    private final boolean frozen;
+
+    public ChunkSection() {
+        this((byte) 0);
+    }
+
+    private ChunkSection(byte uniformId) {
+        palette[0] = uniformId;
+        paletteSize = 1;
+        frozen = false;
+    }
+
+    // Instantané : la lumière (volatile) est lue en premier, elle publie le niveau uniforme écrit avant elle.
+    // Elle est relue si le thread de lumière l'a remplacée et rendue entre la lecture et la prise de référence.
+    private ChunkSection(ChunkSection source) {
+        Nibbles light;
+        do {
+            light = source.lightLevels;
+        } while (light != null && !light.retain());
+        lightLevels = light;
+        uniformLight = source.uniformLight;
+        palette = source.palette;
+        paletteSize = source.paletteSize;
+        Storage s = source.storage;
+        // Les indices ne changent que sur ce thread : la référence lue est vivante
+        if (s != null) s.retain();
+        storage = s;
+        frozen = true;
+    }
+
+    /**
+     * Copie figée de la section, sans recopie des tableaux. À prendre sur le thread qui écrit les blocs ;
+     * la lumière d'une section publiée n'est remplacée que d'un bloc ({@link #setLight}, {@link #fillLight}).
+     */
+    public ChunkSection snapshot() {
+        if (frozen) return this;
+        blocksShared = true;
+        lightShared = true;
+        return new ChunkSection(this);
+    }
+
+    public boolean isSnapshot() {
+        return frozen;
+    }
+
+    /**
+     * Rend le stockage hors tas de la section (section déchargée ou instantané dont on n'a plus besoin).
+     * La section lit ensuite comme uniforme ; sans effet avec le stockage sur le tas.
+     */
+    public void release() {
+        Storage s = storage;
+        if (s != null && s.isOffHeap()) {
+            storage = null;
+            s.release();
+        }
+        Nibbles light = lightLevels;
+        if (light != null && light.isOffHeap()) {
+            lightLevels = null;
+            light.release();
+        }
+    }
+
+    private void checkMutable() {
+        if (frozen) throw new IllegalStateException("Instantané de section en lecture seule");
+    }
+
+    // Reprend la propriété de la palette et des indices avant une écriture
+    private void unshareBlocks() {
+        if (!blocksShared) return;
+        palette = palette.clone();
+        Storage s = storage;
+        if (s != null) {
+            storage = s.copy();
+            s.release();
+        }
+        blocksShared = false;
+    }
+
+    /**
+     * Section uniforme remplie d'un seul bloc, sans tableau d'indices
+     */
+    public static ChunkSection uniform(byte id) {
+        return new ChunkSection(id);
+    }
+
+    /**
+     * Construit une section à partir d'ids rangés dans l'ordre de {@link #index(int, int, int)}
+     */
+    public static ChunkSection fromBlockIds(byte[] ids) {
+        ChunkSection section = new ChunkSection(ids[0]);
+        for (int i = 1; i < VOLUME; i++) {
+            if (ids[i] != ids[0]) {
+                section.setBlockIdAt(i, ids[i]);
+            }
+        }
+        return section;
+    }
+
+    // Indices compactés : tableau de longs sur le tas, ou slab hors tas
+    private abstract static class Storage {
+        final int bits;
+        final int mask;
+        // log2 du nombre d'indices par long (64 / bits)
+        final int perLongShift;
+
+        Storage(int bits) {
+            this.bits = bits;
+            this.mask = (1 << bits) - 1;
+            this.perLongShift = 6 - Integer.numberOfTrailingZeros(bits);
+        }
+
+        static Storage create(int bits) {
+            return OFF_HEAP ? new SlabStorage(bits) : new HeapStorage(bits);
+        }
+
+        int words() {
+            return VOLUME >> perLongShift;
+        }
+
+        final int get(int index) {
+            int shift = (index & ((1 << perLongShift) - 1)) * bits;
+            return (int) (word(index >> perLongShift) >>> shift) & mask;
+        }
+
+        final void set(int index, int value) {
+            int slot = index >> perLongShift;
+            int shift = (index & ((1 << perLongShift) - 1)) * bits;
+            word(slot, (word(slot) & ~((long) mask << shift)) | ((long) value << shift));
+        }
+
+        abstract long word(int slot);
+        abstract void word(int slot, long value);
+        abstract Storage copy();
+
+        boolean isOffHeap() { return false; }
+        boolean retain() { return true; }
+        void release() {}
+    }
+
+    private static final class HeapStorage extends Storage {
+        final long[] data;
+
+        HeapStorage(int bits) {
+            super(bits);
+            this.data = new long[words()];
+        }
+
+        private HeapStorage(HeapStorage source) {
+            super(source.bits);
+            this.data = source.data.clone();
+        }
+
+        @Override long word(int slot) { return data[slot]; }
+        @Override void word(int slot, long value) { data[slot] = value; }
+        @Override Storage copy() { return new HeapStorage(this); }
+    }
+
+    private static final class SlabStorage extends Storage {
+        final SlabPool.Slab slab;
+        final ByteBuffer data;
+
+        SlabStorage(int bits) {
+            super(bits);
+            this.slab = SlabPool.SHARED.acquire(words() * Long.BYTES);
+            this.data = slab.getBuffer();
+            data.put(0, ZEROS, 0, data.capacity());
+        }
+
+        private SlabStorage(SlabStorage source) {
+            super(source.bits);
+            this.slab = SlabPool.SHARED.acquire(source.data.capacity());
+            this.data = slab.getBuffer();
+            data.put(0, source.data, 0, data.capacity());
+        }
+
+        @Override long word(int slot) { return data.getLong(slot << 3); }
+        @Override void word(int slot, long value) { data.putLong(slot << 3, value); }
+        @Override Storage copy() { return new SlabStorage(this); }
+        @Override boolean isOffHeap() { return true; }
+        @Override boolean retain() { return slab.retain(); }
+        @Override void release() { slab.release(); }
+    }
+
+    // Nibbles de lumière empaquetés (2 blocs par octet, nibble haut pour l'index pair) : sur le tas ou hors tas
+    private abstract static class Nibbles {
+        static final int BYTES = VOLUME / 2;
+
+        static Nibbles create() {
+            return OFF_HEAP ? new SlabNibbles() : new HeapNibbles(new byte[BYTES]);
+        }
+
+        abstract byte get(int byteIndex);
+        abstract void set(int byteIndex, byte value);
+        abstract void fill(byte packed);
+        abstract void load(byte[] packed);
+        abstract void copyTo(byte[] out);
+        abstract boolean rangeEquals(byte[] packed, int from, int to);
+        abstract Nibbles copy();
+        // Vue en lecture seule, sans copie
+        abstract ByteBuffer view();
+
+        boolean isOffHeap() { return false; }
+        boolean retain() { return true; }
+        void release() {}
+    }
+
+    private static final class HeapNibbles extends Nibbles {
+        final byte[] data;
+
+        HeapNibbles(byte[] data) {
+            this.data = data;
+        }
+
+        @Override byte get(int byteIndex) { return data[byteIndex]; }
+        @Override void set(int byteIndex, byte value) { data[byteIndex] = value; }
+        @Override void fill(byte packed) { Arrays.fill(data, packed); }
+        @Override void load(byte[] packed) { System.arraycopy(packed, 0, data, 0, BYTES); }
+        @Override void copyTo(byte[] out) { System.arraycopy(data, 0, out, 0, BYTES); }
+        @Override boolean rangeEquals(byte[] packed, int from, int to) { return Arrays.equals(data, from, to, packed, from, to); }
+        @Override Nibbles copy() { return new HeapNibbles(data.clone()); }
+        @Override ByteBuffer view() { return ByteBuffer.wrap(data).asReadOnlyBuffer(); }
+    }
+
+    private static final class SlabNibbles extends Nibbles {
+        final SlabPool.Slab slab = SlabPool.SHARED.acquire(BYTES);
+        final ByteBuffer data = slab.getBuffer();
+
+        @Override byte get(int byteIndex) { return data.get(byteIndex); }
+        @Override void set(int byteIndex, byte value) { data.put(byteIndex, value); }
+        @Override void fill(byte packed) {
+            long word = (packed & 0xFFL) * 0x0101010101010101L;
+            for (int i = 0; i < BYTES; i += Long.BYTES) data.putLong(i, word);
+        }
+        @Override void load(byte[] packed) { data.put(0, packed, 0, BYTES); }
+        @Override void copyTo(byte[] out) { data.get(0, out, 0, BYTES); }
+        @Override boolean rangeEquals(byte[] packed, int from, int to) {
+            return data.slice(from, to - from).mismatch(ByteBuffer.wrap(packed, from, to - from)) == -1;
+        }
+        @Override Nibbles copy() {
+            SlabNibbles copy = new SlabNibbles();
+            copy.data.put(0, data, 0, BYTES);
+            return copy;
+        }
+        @Override ByteBuffer view() { return data.asReadOnlyBuffer(); }
+        @Override boolean isOffHeap() { return true; }
+        @Override boolean retain() { return slab.retain(); }
+        @Override void release() { slab.release(); }
+    }
+
+    // Source de zéros pour initialiser une slab réutilisée
+    private static final byte[] ZEROS = new byte[SlabPool.MAX_SLAB_BYTES];
+
+    static int index(int x, int y, int z) {
+        return x + BaseChunk.CHUNK_X * (z + BaseChunk.CHUNK_Z * y);
+    }
+
+    public byte getBlockId(int x, int y, int z) {
+        Storage s = storage;
+        if (s == null) return palette[0];
+        return palette[s.get(index(x, y, z))];
+    }
+
+    /**
+     * @return true si le bloc a effectivement changé
+     */
+    public boolean setBlockId(int x, int y, int z, byte id) {
+        return setBlockIdAt(index(x, y, z), id);
+    }
+
+    private boolean setBlockIdAt(int index, byte id) {
+        checkMutable();
+        Storage s = storage;
+        int current = s == null ? 0 : s.get(index);
+        if (palette[current] == id) return false;
+        unshareBlocks();
+        s = storage;
+        int p = paletteIndexOf(id);
+        if (p < 0) {
+            p = paletteSize;
+            palette[p] = id;
+            paletteSize++;
+        }
+        if (s == null) {
+            // Sortie de l'état uniforme : les indices à 0 désignent déjà l'ancien bloc
+            s = Storage.create(1);
+            s.set(index, p);
+            storage = s;
+            return true;
+        }
+        if (paletteSize > (1 << s.bits)) {
+            s = resize(s, s.bits << 1);
+        }
+        s.set(index, p);
+        return true;
+    }
+
+    private int paletteIndexOf(byte id) {
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == id) return i;
+        }
+        return -1;
+    }
+
+    // Recopie les indices dans un stockage plus large (1 -> 2 -> 4 -> 8 bits)
+    private Storage resize(Storage old, int newBits) {
+        Storage grown = Storage.create(newBits);
+        for (int i = 0; i < VOLUME; i++) {
+            grown.set(i, old.get(i));
+        }
+        storage = grown;
+        old.release();
+        return grown;
+    }
+
+    /**
+     * Repasse la section en mode uniforme si un seul bloc y est encore présent
+     * (typiquement après la génération, qui remplit la roche bloc par bloc).
+     */
+    public void compact() {
+        checkMutable();
+        Storage s = storage;
+        if (s == null) return;
+        int first = s.get(0);
+        for (int i = 1; i < VOLUME; i++) {
+            if (s.get(i) != first) return;
+        }
+        // Seule la palette est réécrite : les indices partagés restent à l'instantané
+        if (blocksShared) {
+            palette = palette.clone();
+            blocksShared = false;
+        }
+        palette[0] = palette[first];
+        paletteSize = 1;
+        storage = null;
+        s.release();
+    }
+
+    public boolean isUniform() {
+        return storage == null;
+    }
+
+    /**
+     * Section ne contenant que de l'air
+     */
+    public boolean isEmpty() {
+        return storage == null && palette[0] == 0;
+    }
+
+    public byte getUniformId() {
+        return palette[0];
+    }
+
+    /**
+     * Nombre de blocs de la section portant cet id
+     */
+    public int count(byte id) {
+        int p = paletteIndexOf(id);
+        if (p < 0) return 0;
+        Storage s = storage;
+        if (s == null) return VOLUME;
+        int n = 0;
+        for (int i = 0; i < VOLUME; i++) {
+            if (s.get(i) == p) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Copie la lumière d'une autre section (niveau uniforme ou tableau de nibbles)
+     */
+    public void copyLightFrom(ChunkSection other) {
+        checkMutable();
+        Nibbles light = other.lightLevels;
+        if (light == null) {
+            fillLight(other.uniformLight);
+        } else {
+            replaceLight(light.copy());
+        }
+    }
+
+    public void copyBlockIds(byte[] out) {
+        Storage s = storage;
+        if (s == null) {
+            Arrays.fill(out, 0, VOLUME, palette[0]);
+            return;
+        }
+        for (int i = 0; i < VOLUME; i++) {
+            out[i] = palette[s.get(i)];
+        }
+    }
+
+    public int getBitsPerBlock() {
+        Storage s = storage;
+        return s == null ? 0 : s.bits;
+    }
+
+    public int getPaletteSize() {
+        return paletteSize;
+    }
+
+    public byte getLightLevel(int x, int y, int z) {
+        Nibbles light = lightLevels;
+        if (light == null) return uniformLight;
+        int index = index(x, y, z);
+        byte b = light.get(index >> 1);
+        return (byte) ((index & 1) == 0 ? (b >> 4) & 0xF : b & 0xF);
+    }
+
+    public void setLightLevel(int x, int y, int z, byte level) {
+        checkMutable();
+        Nibbles light = lightLevels;
+        if (light == null) {
+            if (level == uniformLight) return;
+            light = Nibbles.create();
+            light.fill(packNibbles(uniformLight));
+            lightLevels = light;
+        } else if (lightShared) {
+            Nibbles shared = light;
+            light = shared.copy();
+            lightLevels = light;
+            shared.release();
+        }
+        lightShared = false;
+        int index = index(x, y, z);
+        int byteIndex = index >> 1;
+        byte b = light.get(byteIndex);
+        if ((index & 1) == 0) {
+            b = (byte) ((b & 0x0F) | ((level & 0xF) << 4));
+        } else {
+            b = (byte) ((b & 0xF0) | (level & 0xF));
+        }
+        light.set(byteIndex, b);
+    }
+
+    /**
+     * Donne le même niveau de lumière à toute la section et libère le tableau de nibbles
+     */
+    public void fillLight(byte level) {
+        checkMutable();
+        uniformLight = level;
+        replaceLight(null);
+    }
+
+    // Publie la nouvelle lumière d'un bloc puis rend l'ancienne (un instantané garde sa propre référence)
+    private void replaceLight(Nibbles light) {
+        Nibbles old = lightLevels;
+        lightLevels = light;
+        lightShared = false;
+        if (old != null) old.release();
+    }
+
+    public boolean isLightUniform() {
+        return lightLevels == null;
+    }
+
+    public byte getUniformLight() {
+        return uniformLight;
+    }
+
+    /**
+     * Copie la lumière empaquetée (2 blocs par octet, nibble haut pour l'index pair)
+     */
+    public void copyLight(byte[] out) {
+        Nibbles light = lightLevels;
+        if (light == null) {
+            Arrays.fill(out, 0, VOLUME / 2, packNibbles(uniformLight));
+        } else {
+            light.copyTo(out);
+        }
+    }
+
+    /**
+     * Lumière empaquetée en lecture seule, sans copie (null si uniforme). Sur un instantané, valable
+     * jusqu'à son {@link #release()} : c'est ce que ChunkIO écrit directement sur le disque.
+     */
+    public ByteBuffer lightView() {
+        Nibbles light = lightLevels;
+        return light == null ? null : light.view();
+    }
+
+    /**
+     * Compare la lumière des couches locales [fromY, toY] à une copie faite par {@link #copyLight(byte[])}
+     */
+    public boolean lightEquals(byte[] packed, int fromY, int toY) {
+        int layerBytes = BaseChunk.CHUNK_X * BaseChunk.CHUNK_Z / 2;
+        int from = fromY * layerBytes;
+        int to = (toY + 1) * layerBytes;
+        Nibbles light = lightLevels;
+        if (light != null) return light.rangeEquals(packed, from, to);
+        byte packedUniform = packNibbles(uniformLight);
+        for (int i = from; i < to; i++) {
+            if (packed[i] != packedUniform) return false;
+        }
+        return true;
+    }
+
+    public void setLight(byte[] packed) {
+        checkMutable();
+        Nibbles light = Nibbles.create();
+        light.load(packed);
+        replaceLight(light);
+    }
+
+    private static byte packNibbles(byte level) {
+        return (byte) (((level & 0xF) << 4) | (level & 0xF));
+    }
+
+    /**
+     * Estimation de l'occupation mémoire (tableaux uniquement, hors en-têtes d'objets), tas et hors tas
+     */
+    public long estimateMemoryBytes() {
+        Storage s = storage;
+        Nibbles light = lightLevels;
+        return palette.length
+                + (s != null ? (long) s.words() * Long.BYTES : 0)
+                + (light != null ? Nibbles.BYTES : 0);
+    }
+}
@@ -0,0 +1,38 @@
+package ovh.paulem.mc.world;
+
+/**
+ * Étapes de la génération d'un chunk ({@link ChunkGenerator}), dans l'ordre ; le statut d'un chunk est la
+ * dernière étape terminée. Une étape ne démarre qu'une fois les chunks à moins de {@code neighbourRadius}
+ * chunks (carré autour du chunk) parvenus au moins à {@code neighbourStatus}, toujours une étape antérieure :
+ * elle peut alors lire leurs données, jamais les modifier.
+ */
+public enum ChunkStatus {
+    EMPTY(0, null),
+    // Biomes, paramètres de terrain et hauteur de chaque colonne ; aucun bloc encore écrit
+    NOISE(0, null),
+    // Roche, terre et herbe jusqu'à la hauteur de chaque colonne
+    SURFACE(0, null),
+    // Caves
+    CARVERS(0, null),
+    // Arbres : ceux du chunk et les parties de ceux des voisins qui débordent dessus
+    FEATURES(1, NOISE),
+    // Teintes d'herbe et de feuillage lissées entre biomes, celles des voisins comprises
+    TINTS(1, NOISE),
+    // Stockage compacté et lumière du ciel : le chunk est complet
+    LIGHT(0, null);
+
+    // Chunk prêt à être publié
+    public static final ChunkStatus FULL = LIGHT;
+
+    public final int neighbourRadius;
+    public final ChunkStatus neighbourStatus;
+
+    ChunkStatus(int neighbourRadius, ChunkStatus neighbourStatus) {
+        this.neighbourRadius = neighbourRadius;
+        this.neighbourStatus = neighbourStatus;
+    }
+
+    public boolean isAtLeast(ChunkStatus other) {
+        return ordinal() >= other.ordinal();
+    }
+}
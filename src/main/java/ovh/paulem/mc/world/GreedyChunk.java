@@ -9,46 +9,81 @@ import java.util.Arrays;
  * GreedyChunk sert désormais de Chunk LoD pour les chunks lointains.
  * Il stocke une grille de macro-voxels plus grossière afin de réduire l'utilisation mémoire,
  * et renvoie, pour toute requête (x,y,z), l'ID du bloc de la cellule LoD correspondante.
+ * Le facteur de LoD (taille d'une cellule sur chaque axe : 2, 4, 8 ou 16) dépend de l'anneau où se trouve
+ * le chunk ; un niveau grossier s'obtient par {@link #downsample()} du niveau plus fin.
  */
 public class GreedyChunk extends BaseChunk {
-    // Facteurs de LOD (récupérés depuis Values pour cohérence globale)
-    private static final int LOD_XZ = Math.max(1, Values.LOD_FACTOR_XZ);
-    private static final int LOD_Y  = Math.max(1, Values.LOD_FACTOR_Y);
+    // Facteur de LoD (puissance de 2) et son log2
+    private final int lod;
+    private final int lodShift;
 
     // Dimensions de la grille LoD
-    private static final int SX = CHUNK_X / LOD_XZ;
-    private static final int SY = CHUNK_Y / LOD_Y;
-    private static final int SZ = CHUNK_Z / LOD_XZ;
+    private final int sx;
+    private final int sy;
+    private final int sz;
 
     // Données LoD: 1 octet par macro-voxel (block id déjà palettisé sur un byte)
-    private byte[] cells; // taille SX*SY*SZ
+    private byte[] cells; // taille sx*sy*sz
 
     // RLE pour la sérialisation (paresseux)
     private byte[] rleBlocks;
+    // Cellules partagées avec un instantané : recopiées avant la prochaine écriture
+    private boolean cellsShared;
 
-    public GreedyChunk(World world, int originX, int originZ, byte[] rleBlocks, byte[] ignoredLight) {
-        super(world, originX, originZ);
+    public GreedyChunk(World world, int originX, int originZ, int lod, byte[] rleBlocks) {
+        this(world, originX, originZ, lod);
         // Décoder directement dans la grille LoD
-        this.cells = decodeRLE(rleBlocks, SX * SY * SZ);
+        this.cells = decodeRLE(rleBlocks, cells.length);
         this.rleBlocks = rleBlocks; // garder tel quel pour sauvegarde ultérieure
+        recomputeHeightmaps();
     }
 
     // Constructeur pour chunk vide (toutes cellules à air)
-    public GreedyChunk(World world, int originX, int originZ) {
-        super(world, originX, originZ);
-        this.cells = new byte[SX * SY * SZ]; // 0 = air
+    public GreedyChunk(World world, int originX, int originZ, int lod) {
+        super(world, originX, originZ, checkLod(lod));
+        this.lod = lod;
+        this.lodShift = Integer.numberOfTrailingZeros(lod);
+        this.sx = CHUNK_X / lod;
+        this.sy = CHUNK_Y / lod;
+        this.sz = CHUNK_Z / lod;
+        this.cells = new byte[sx * sy * sz]; // 0 = air
         this.rleBlocks = null; // sera créé à la demande
     }
 
+    private GreedyChunk(GreedyChunk source) {
+        super(source);
+        this.lod = source.lod;
+        this.lodShift = source.lodShift;
+        this.sx = source.sx;
+        this.sy = source.sy;
+        this.sz = source.sz;
+        this.cells = source.cells;
+        this.rleBlocks = source.rleBlocks;
+    }
+
+    @Override
+    public GreedyChunk snapshot() {
+        if (isSnapshot()) return this;
+        cellsShared = true;
+        return new GreedyChunk(this);
+    }
+
+    private static int checkLod(int lod) {
+        if (Integer.bitCount(lod) != 1 || lod < 2 || lod > Values.LOD_LEVELS[Values.LOD_LEVELS.length - 1]) {
+            throw new IllegalArgumentException("Facteur de LoD invalide : " + lod);
+        }
+        return lod;
+    }
+
     private int idxLOD(int cx, int cy, int cz) {
-        return cx + SX * (cz + SZ * cy);
+        return cx + sx * (cz + sz * cy);
     }
 
     private int clamp(int v, int max) { return (v < 0) ? 0 : (v >= max ? max - 1 : v); }
 
-    private int toCx(int x) { return clamp(x / LOD_XZ, SX); }
-    private int toCy(int y) { return clamp(y / LOD_Y,  SY); }
-    private int toCz(int z) { return clamp(z / LOD_XZ, SZ); }
+    private int toCx(int x) { return clamp(x >> lodShift, sx); }
+    private int toCy(int y) { return clamp(y >> lodShift, sy); }
+    private int toCz(int z) { return clamp(z >> lodShift, sz); }
 
     @Override
     public byte getBlockId(int x, int y, int z) {
@@ -58,7 +93,7 @@ public class GreedyChunk extends BaseChunk {
 
     @Override
     public Block getBlock(int x, int y, int z) {
-        return Blocks.blocks.get(getBlockId(x, y, z));
+        return Blocks.get(getBlockId(x, y, z));
     }
 
     @Override
@@ -67,9 +102,16 @@ public class GreedyChunk extends BaseChunk {
         int idx = idxLOD(cx, cy, cz);
         // Règle simple LoD: on privilégie les blocs non-air. Les écritures d'air ne suppriment pas la cellule.
         // Comme la génération remonte en Y, la dernière écriture non-air reflètera la « couche supérieure » du macro-voxel.
+        if (isSnapshot()) throw new IllegalStateException("Instantané de chunk en lecture seule");
         if (id != 0) {
+            if (cellsShared) {
+                cells = cells.clone();
+                cellsShared = false;
+            }
             cells[idx] = id;
             rleBlocks = null; // invalider cache RLE
+            // Heightmap à la résolution des cellules : le macro-voxel compte jusqu'au sommet de sa cellule
+            updateHeightmaps(x, cy * lod + lod - 1, z, id);
         }
     }
 
@@ -94,6 +136,76 @@ public class GreedyChunk extends BaseChunk {
         // Ignoré pour LoD (le rendu greedy lointain utilise un niveau de lumière constant)
     }
 
+    /**
+     * Niveau deux fois plus grossier construit à partir de celui-ci (sans repasser par la génération)
+     */
+    public GreedyChunk downsample() {
+        return downsample(this);
+    }
+
+    /**
+     * Chunk LoD deux fois plus grossier que {@code source} (un Chunk à pleine résolution donne le facteur 2).
+     * Chaque cellule prend le bloc majoritaire parmi les 4 cellules supérieures non vides de ses 8 enfants,
+     * sinon parmi les 4 inférieures : la surface (herbe) reste visible de loin.
+     */
+    public static GreedyChunk downsample(BaseChunk source) {
+        int child = source.getLodFactor();
+        GreedyChunk coarse = new GreedyChunk(source.getWorld(), source.getOriginX(), source.getOriginZ(), child * 2);
+        for (int cy = 0; cy < coarse.sy; cy++) {
+            for (int cz = 0; cz < coarse.sz; cz++) {
+                for (int cx = 0; cx < coarse.sx; cx++) {
+                    int x0 = 2 * cx * child, x1 = x0 + child;
+                    int z0 = 2 * cz * child, z1 = z0 + child;
+                    byte id = 0;
+                    for (int dy = 1; dy >= 0 && id == 0; dy--) {
+                        int y = (2 * cy + dy) * child;
+                        id = majorityNonAir(
+                                source.getBlockId(x0, y, z0), source.getBlockId(x1, y, z0),
+                                source.getBlockId(x0, y, z1), source.getBlockId(x1, y, z1));
+                    }
+                    coarse.cells[coarse.idxLOD(cx, cy, cz)] = id;
+                }
+            }
+        }
+        coarse.recomputeHeightmaps();
+        coarse.copyBiomesFrom(source);
+        coarse.version = source.version;
+        // Un chunk détaillé garde ses propres données sur disque : seule une copie LoD pas encore
+        // sauvegardée (tout juste générée) reste à écrire
+        coarse.dirty = source instanceof GreedyChunk && source.dirty;
+        return coarse;
+    }
+
+    /**
+     * Sous-échantillonne jusqu'au facteur de LoD demandé (ce chunk s'il est déjà à ce niveau ou plus grossier)
+     */
+    public GreedyChunk downsampleTo(int targetLod) {
+        GreedyChunk chunk = this;
+        while (chunk.lod < targetLod) chunk = chunk.downsample();
+        return chunk;
+    }
+
+    // Bloc non-air le plus fréquent parmi 4 (le premier rencontré en cas d'égalité), air s'il n'y en a pas
+    private static byte majorityNonAir(byte a, byte b, byte c, byte d) {
+        byte best = 0;
+        int bestCount = 0;
+        byte[] candidates = {a, b, c, d};
+        for (byte candidate : candidates) {
+            if (candidate == 0) continue;
+            int count = (a == candidate ? 1 : 0) + (b == candidate ? 1 : 0) + (c == candidate ? 1 : 0) + (d == candidate ? 1 : 0);
+            if (count > bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        return cells.length + (rleBlocks != null ? rleBlocks.length : 0);
+    }
+
     // --- Méthodes RLE ---
     public static byte[] encodeRLE(byte[] data) {
         int n = data.length;
@@ -137,5 +249,4 @@ public class GreedyChunk extends BaseChunk {
         if (rleBlocks == null) rleBlocks = encodeRLE(cells);
         return rleBlocks;
     }
-    public byte[] getRleLightLevels() { return new byte[0]; }
 }
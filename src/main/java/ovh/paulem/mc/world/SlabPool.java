@@ -0,0 +1,136 @@
+package ovh.paulem.mc.world;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réserve de slabs hors tas (ByteBuffer directs) pour le stockage des sections quand
+ * {@link ChunkSection#OFF_HEAP} est actif : les indices de blocs et la lumière des chunks ne passent plus
+ * par le GC, et une slab rendue au déchargement sert au prochain chunk chargé.
+ * <p>
+ * Tailles par puissances de 2 de {@link #MIN_SLAB_BYTES} à {@link #MAX_SLAB_BYTES}. Une slab rendue reste en
+ * quarantaine {@link #QUARANTINE_NANOS} avant d'être réutilisée : un lecteur qui vient de lire la référence
+ * (mesh d'un voisin, thread de lumière) finit sa lecture sur des données encore intactes.
+ */
+public final class SlabPool {
+    public static final int MIN_SLAB_BYTES = 2048;
+    public static final int MAX_SLAB_BYTES = 16384;
+    private static final long QUARANTINE_NANOS = 250_000_000L;
+    // Au-delà, les slabs rendues sont abandonnées au GC (qui libère la mémoire directe)
+    private static final long MAX_POOLED_BYTES = 64L << 20;
+
+    public static final SlabPool SHARED = new SlabPool();
+
+    private record Pooled(ByteBuffer buffer, long releasedAt) {}
+
+    // Une file FIFO par taille : la tête est la slab rendue depuis le plus longtemps
+    private final ArrayDeque<Pooled>[] free;
+    private long pooledBytes;
+
+    private final AtomicLong allocatedSlabs = new AtomicLong();
+    private final AtomicLong reusedSlabs = new AtomicLong();
+    // Octets actuellement prêtés aux sections (et instantanés)
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    private SlabPool() {
+        int classes = Integer.numberOfTrailingZeros(MAX_SLAB_BYTES) - Integer.numberOfTrailingZeros(MIN_SLAB_BYTES) + 1;
+        free = new ArrayDeque[classes];
+        for (int i = 0; i < classes; i++) free[i] = new ArrayDeque<>();
+    }
+
+    /**
+     * Slab d'exactement {@code bytes} octets (puissance de 2), au contenu indéterminé
+     */
+    public Slab acquire(int bytes) {
+        int sizeClass = sizeClass(bytes);
+        ByteBuffer buffer = null;
+        synchronized (this) {
+            Pooled head = free[sizeClass].peekFirst();
+            if (head != null && System.nanoTime() - head.releasedAt() >= QUARANTINE_NANOS) {
+                free[sizeClass].pollFirst();
+                pooledBytes -= bytes;
+                buffer = head.buffer();
+            }
+        }
+        if (buffer != null) {
+            reusedSlabs.incrementAndGet();
+        } else {
+            buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+            allocatedSlabs.incrementAndGet();
+        }
+        liveBytes.addAndGet(bytes);
+        return new Slab(this, buffer);
+    }
+
+    private void recycle(ByteBuffer buffer) {
+        int bytes = buffer.capacity();
+        liveBytes.addAndGet(-bytes);
+        synchronized (this) {
+            if (pooledBytes + bytes > MAX_POOLED_BYTES) return;
+            free[sizeClass(bytes)].addLast(new Pooled(buffer, System.nanoTime()));
+            pooledBytes += bytes;
+        }
+    }
+
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    // Slabs allouées (mémoire directe neuve) et slabs reprises dans la réserve
+    public long getAllocatedSlabs() {
+        return allocatedSlabs.get();
+    }
+
+    public long getReusedSlabs() {
+        return reusedSlabs.get();
+    }
+
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    private static int sizeClass(int bytes) {
+        if (Integer.bitCount(bytes) != 1 || bytes < MIN_SLAB_BYTES || bytes > MAX_SLAB_BYTES) {
+            throw new IllegalArgumentException("Taille de slab invalide : " + bytes);
+        }
+        return Integer.numberOfTrailingZeros(bytes) - Integer.numberOfTrailingZeros(MIN_SLAB_BYTES);
+    }
+
+    /**
+     * Slab prêtée par la réserve, à compteur de références : la section propriétaire en tient une, chaque
+     * instantané qui la partage une autre. Rendue à la réserve quand la dernière est libérée ; une slab jamais
+     * libérée (instantané abandonné) n'est pas perdue, le GC libère sa mémoire directe.
+     */
+    public static final class Slab {
+        private final SlabPool pool;
+        private final ByteBuffer buffer;
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private Slab(SlabPool pool, ByteBuffer buffer) {
+            this.pool = pool;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Prend une référence de plus, sauf si la slab a déjà été rendue (false)
+         */
+        public boolean retain() {
+            for (int n = refs.get(); n > 0; n = refs.get()) {
+                if (refs.compareAndSet(n, n + 1)) return true;
+            }
+            return false;
+        }
+
+        public void release() {
+            if (refs.decrementAndGet() == 0) pool.recycle(buffer);
+        }
+
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package ovh.paulem.mc.world;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.jetbrains.annotations.Nullable;
 import ovh.paulem.mc.Values;
 import ovh.paulem.mc.engine.render.light.LightEngine;
-import ovh.paulem.mc.math.PerlinNoise;
+import ovh.paulem.mc.engine.render.texture.TintType;
 import ovh.paulem.mc.math.Seeds;
 import ovh.paulem.mc.world.block.types.Block;
 import ovh.paulem.mc.world.block.Blocks;
@@ -14,34 +15,142 @@ import java.util.concurrent.*;
 
 public class World {
 
-    // Remplace Map<Long, Chunk> par Map<Long, Future<BaseChunk>> pour éviter les chargements multiples
+    // Map<Long, Future<BaseChunk>> pour éviter les chargements multiples (chunks en cours et chargés)
     private final Map<Long, Future<BaseChunk>> chunkFutures = new ConcurrentHashMap<>();
+    // Chunks prêts, publiés à la fin de leur génération : c'est lui que lisent les requêtes de blocs
+    @Getter(AccessLevel.PACKAGE)
+    private final ChunkIndex chunkIndex = new ChunkIndex();
+    // Un curseur par thread pour les appelants qui ne gardent pas le leur
+    private final ThreadLocal<WorldCursor> cursors = ThreadLocal.withInitial(() -> new WorldCursor(this));
+
+    /**
+     * Curseur d'accès rapide aux blocs propre au thread appelant
+     */
+    public WorldCursor getCursor() {
+        return cursors.get();
+    }
+
+    // Instantané des chunks prêts, recopié seulement quand un chunk arrive ou part
+    private volatile BaseChunk[] readyChunks = new BaseChunk[0];
+    private final Object readyLock = new Object();
+    private final List<ChunkListener> chunkListeners = new CopyOnWriteArrayList<>();
 
     public Collection<BaseChunk> getChunks() {
-        List<BaseChunk> result = new ArrayList<>();
-        for (Future<BaseChunk> f : chunkFutures.values()) {
-            try {
-                BaseChunk c = f.get();
-                if (c != null) result.add(c);
-            } catch (Exception ignored) {}
+        return Collections.unmodifiableList(Arrays.asList(readyChunks));
+    }
+
+    /**
+     * Chunks prêts sous forme de tableau stable : ne pas le modifier. Lecture sans allocation ni attente,
+     * faite pour la boucle de rendu.
+     */
+    public BaseChunk[] getReadyChunks() {
+        return readyChunks;
+    }
+
+    // Profondeur actuelle de la file de chargement (bornée à ChunkLoadScheduler.MAX_PENDING)
+    public int getPendingChunkLoads() {
+        return chunkScheduler.getQueueDepth();
+    }
+
+    public ChunkLoadScheduler getChunkScheduler() {
+        return chunkScheduler;
+    }
+
+    public void addChunkListener(ChunkListener listener) {
+        chunkListeners.add(listener);
+    }
+
+    public void removeChunkListener(ChunkListener listener) {
+        chunkListeners.remove(listener);
+    }
+
+    // Publication d'un chunk complet : index, instantané puis notifications
+    private void publishChunk(int cx, int cz, BaseChunk chunk) {
+        synchronized (readyLock) {
+            chunkIndex.put(cx, cz, chunk);
+            readyChunks = chunkIndex.toArray();
+        }
+        for (ChunkListener listener : chunkListeners) {
+            listener.onChunkLoaded(chunk);
+        }
+    }
+
+    // Échange un chunk publié contre une autre version du même emplacement, si c'est toujours lui qui est publié
+    private boolean replaceChunk(int cx, int cz, BaseChunk previous, BaseChunk chunk) {
+        synchronized (readyLock) {
+            if (chunkIndex.get(cx, cz) != previous) return false;
+            chunkIndex.put(cx, cz, chunk);
+            readyChunks = chunkIndex.toArray();
+        }
+        for (ChunkListener listener : chunkListeners) {
+            listener.onChunkReplaced(previous, chunk);
+        }
+        // Version plus détaillée gardée en cache : un retour du joueur la republie sans relecture
+        if (previous.getLodFactor() < chunk.getLodFactor()) {
+            chunkCache.park(cx, cz, previous);
+        } else {
+            previous.release();
+        }
+        return true;
+    }
+
+    // Retire un chunk publié ; il part ensuite dans le cache, qui le sauvegarde et le libère à l'éviction
+    private boolean retireChunk(int cx, int cz, BaseChunk chunk) {
+        synchronized (readyLock) {
+            if (!chunkIndex.remove(cx, cz, chunk)) return false;
+            readyChunks = chunkIndex.toArray();
+        }
+        for (ChunkListener listener : chunkListeners) {
+            listener.onChunkUnloaded(chunk);
+        }
+        return true;
+    }
+
+    private void fireChunkChanged(BaseChunk chunk) {
+        for (ChunkListener listener : chunkListeners) {
+            listener.onChunkChanged(chunk);
         }
-        return result;
     }
 
     @Getter
     private final long seed;
-    private final PerlinNoise noise;
-    private final PerlinNoise caveNoise;
-    private final PerlinNoise caveSizeNoise;
-    private final PerlinNoise caveFloorNoise;
-    private final PerlinNoise biomeNoise; // Nouveau bruit de Perlin pour la carte des biomes
-    // Background executor for async chunk generation
-    private final ExecutorService chunkExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+    // Étapes de génération des chunks (bruits, surface, caves...), exécutées par les threads de chunkScheduler
+    @Getter
+    private final ChunkGenerator generator;
+    // Background executor for async chunk generation, ordonné par distance et direction du regard
+    private final ChunkLoadScheduler chunkScheduler = new ChunkLoadScheduler(Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    // Métrique : temps pour que tous les chunks à moins de 2 chunks soient prêts après une téléportation
+    private static final int TELEPORT_READY_RADIUS = 2;
+    // Rayon des chunks chargés autour de l'origine au démarrage du jeu
+    private static final int SPAWN_RADIUS = 2;
+    private int lastPlayerCx = Integer.MIN_VALUE;
+    private int lastPlayerCz = Integer.MIN_VALUE;
+    private long teleportStartNanos = 0;
+    @Getter
+    private volatile long lastTeleportReadyMillis = -1;
 
     // Système de sauvegarde et chargement de chunks
+    @Getter
     private final ChunkIO chunkIO;
     // Rayon supplémentaire pour ne pas décharger immédiatement les chunks
     private final int unloadBuffer = 2;
+    // Chunks déchargés gardés en mémoire dans la limite du budget (chunks publiés compris)
+    @Getter
+    private final ChunkCache chunkCache = new ChunkCache(Values.CHUNK_CACHE_BUDGET_BYTES, this::evictChunk);
+    // Marge (en chunks) avant de réduire le niveau de détail d'un chunk qui s'éloigne
+    private static final double LOD_HYSTERESIS = 1.0;
+    // Changements de niveau de détail en préparation, par clé de chunk
+    private final Map<Long, LodTransition> lodTransitions = new HashMap<>();
+    // Changements de niveau de détail de chunks retirés du monde avant la fin de leur préparation : jamais
+    // appliqués, leur remplaçant est écarté dès qu'il est prêt
+    private final List<Map.Entry<Long, LodTransition>> abandonedLodTransitions = new ArrayList<>();
+    // Nombre de changements de niveau de détail appliqués
+    @Getter
+    private long lodTransitionCount;
+    // Passage de chargement / déchargement hors changement de chunk
+    private static final long SWEEP_INTERVAL_NANOS = 500_000_000L;
+    private long lastSweepNanos;
 
     @Getter
     private final LightEngine lightEngine = new LightEngine();
@@ -59,13 +168,15 @@ public class World {
             chunkIO.saveWorldSeed(this.seed);
         }
         System.out.println("Seed: " + this.seed);
-        noise = new PerlinNoise(this.seed);
-        caveNoise = new PerlinNoise(this.seed);
-        caveSizeNoise = new PerlinNoise(this.seed);
-        caveFloorNoise = new PerlinNoise(this.seed);
-        biomeNoise = new PerlinNoise(this.seed + 42L); // bruit indépendant pour la carte des biomes
-        // schedule initial chunks around origin asynchronously
-        ensureChunksAround(0, 0, 2);
+        generator = new ChunkGenerator(this, this.seed, chunkScheduler::isCurrentTaskStale);
+    }
+
+    /**
+     * Programme le chargement des chunks autour de l'origine, avant la première frame (le jeu attend ensuite le
+     * chunk d'apparition). Les outils hors jeu, qui génèrent leurs chunks eux-mêmes, ne l'appellent pas.
+     */
+    public void loadSpawnArea() {
+        ensureChunksAround(0, 0, SPAWN_RADIUS);
     }
 
     private BaseChunk createChunk(int cx, int cz) {
@@ -77,221 +188,280 @@ public class World {
 
     public boolean isOccluding(int x, int y, int z) {
         if (y < Chunk.MIN_CHUNK_Y || y >= Chunk.CHUNK_Y) return false;
-        int cx = Math.floorDiv(x, Chunk.CHUNK_X);
-        int cz = Math.floorDiv(z, Chunk.CHUNK_Z);
-        int lx = Math.floorMod(x, Chunk.CHUNK_X);
-        int lz = Math.floorMod(z, Chunk.CHUNK_Z);
-        Future<BaseChunk> f = chunkFutures.get(key(cx, cz));
-        if (f == null || !f.isDone()) return false;
-        try {
-            BaseChunk c = f.get();
-            if (c == null) return false;
-            byte id = c.getBlockId(lx, y, lz);
-            Block block = Blocks.blocks.get(id);
-            return block != null && block.isBlock() && !block.isTransparent();
-        } catch (Exception e) {
-            return false;
-        }
+        BaseChunk c = chunkIndex.get(x >> Chunk.CHUNK_SHIFT, z >> Chunk.CHUNK_SHIFT);
+        if (c == null) return false;
+        return Blocks.isOpaque(c.getBlockId(x & (Chunk.CHUNK_X - 1), y, z & (Chunk.CHUNK_Z - 1)));
     }
 
     public boolean isPassable(int x, int y, int z) {
         if (y < Chunk.MIN_CHUNK_Y || y >= Chunk.CHUNK_Y) return false;
-        int cx = Math.floorDiv(x, Chunk.CHUNK_X);
-        int cz = Math.floorDiv(z, Chunk.CHUNK_Z);
-        int lx = Math.floorMod(x, Chunk.CHUNK_X);
-        int lz = Math.floorMod(z, Chunk.CHUNK_Z);
-        Future<BaseChunk> f = chunkFutures.get(key(cx, cz));
-        if (f == null || !f.isDone()) return false;
-        try {
-            BaseChunk c = f.get();
-            if (c == null) return false;
-            byte id = c.getBlockId(lx, y, lz);
-            Block block = Blocks.blocks.get(id);
-            return block != null && !block.isBlock();
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    // Nouvelle méthode pour la génération synchrone (extrait de scheduleGeneration)
-    private void generateChunk(BaseChunk chunk, int cx, int cz) {
-        final int baseX = chunk.getOriginX();
-        final int baseZ = chunk.getOriginZ();
-        // Optimisation : pré-calcule le bruit de biome et les paramètres pour chaque (x, z)
-        final int sizeX = Chunk.CHUNK_X;
-        final int sizeZ = Chunk.CHUNK_Z;
-        BiomeParams[][] biomeParamsCache = new BiomeParams[sizeX][sizeZ];
-        for (int x = 0; x < sizeX; x++) {
-            for (int z = 0; z < sizeZ; z++) {
-                int wxInt = baseX + x;
-                int wzInt = baseZ + z;
-                double bSum = 0.0;
-                int bCount = 0;
-                for (int dx = -1; dx <= 1; dx++) {
-                    for (int dz = -1; dz <= 1; dz++) {
-                        bSum += biomeNoise.noise((wxInt + dx) * 0.003, (wzInt + dz) * 0.003);
-                        bCount++;
-                    }
-                }
-                double b = bSum / bCount;
-                if (b <= -0.35) {
-                    biomeParamsCache[x][z] = new BiomeParams(
-                        Biome.PLAINS.relief, Biome.PLAINS.baseHeight, Biome.PLAINS.heightScale, Biome.PLAINS.octaves, Biome.PLAINS.terrainFrequency);
-                } else if (b >= 0.35) {
-                    biomeParamsCache[x][z] = new BiomeParams(
-                        Biome.MOUNTAINS.relief, Biome.MOUNTAINS.baseHeight, Biome.MOUNTAINS.heightScale, Biome.MOUNTAINS.octaves, Biome.MOUNTAINS.terrainFrequency);
-                } else if (b < 0) {
-                    double t = (b + 0.35) / 0.35;
-                    biomeParamsCache[x][z] = interpolateBiome(Biome.PLAINS, Biome.NORMAL, t);
-                } else {
-                    double t = b / 0.35;
-                    biomeParamsCache[x][z] = interpolateBiome(Biome.NORMAL, Biome.MOUNTAINS, t);
-                }
-            }
-        }
-        // Génération de la surface
-        for (int x = 0; x < sizeX; x++) {
-            for (int z = 0; z < sizeZ; z++) {
-                int wxInt = baseX + x;
-                int wzInt = baseZ + z;
-                BiomeParams params = biomeParamsCache[x][z];
-                double wx = wxInt * 0.05 * params.terrainFrequency;
-                double wz = wzInt * 0.05 * params.terrainFrequency;
-                double amp = 1.0;
-                double freq = 1.0;
-                double sum = 0.0;
-                double ampSum = 0.0;
-                int octaves = (int) params.octaves;
-                for (int o = 0; o < octaves; o++) {
-                    sum += noise.noise(wx * freq, wz * freq) * amp;
-                    ampSum += amp;
-                    amp *= 0.5;
-                    freq *= 2.0;
-                }
-                double n = sum / ampSum;
-                double height = (n * params.relief + 1.0) * 0.5 * params.heightScale + params.baseHeight;
-                int h = (int) height;
-                if (h >= Chunk.CHUNK_Y) h = Chunk.CHUNK_Y - 1;
-                for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-                    if (y <= h) {
-                        if (y == h) chunk.setBlock(x, y, z, Blocks.GRASS_BLOCK);
-                        else if (y > h - 4) chunk.setBlock(x, y, z, Blocks.DIRT);
-                        else chunk.setBlock(x, y, z, Blocks.STONE);
-                    } else {
-                        chunk.setBlock(x, y, z, Blocks.AIR);
-                    }
-                }
-            }
-        }
-        // Génération des caves (réutilise le cache)
-        for (int x = 0; x < sizeX; x++) {
-            for (int z = 0; z < sizeZ; z++) {
-                BiomeParams params = biomeParamsCache[x][z];
-                double caveFreq = 1.0 / (0.7 + params.terrainFrequency * 0.6);
-                double caveAmp = 1.0 + params.relief * 0.2;
-                double wxBase = (baseX + x) * Values.BASE_CAVE_SCALE * caveFreq;
-                double wzBase = (baseZ + z) * Values.BASE_CAVE_SCALE * caveFreq;
-                double wx2Base = (baseX + x) * Values.SIZE_NOISE_SCALE * caveFreq;
-                double wz2Base = (baseZ + z) * Values.SIZE_NOISE_SCALE * caveFreq;
-                double wx3 = (baseX + x) * Values.FLOOR_NOISE_SCALE;
-                double wz3 = (baseZ + z) * Values.FLOOR_NOISE_SCALE;
-                for (int y = Values.MIN_CAVE_HEIGHT; y < Values.MAX_CAVE_HEIGHT; y++) {
-                    if (!chunk.getBlock(x, y, z).isBlock()) {
-                        continue;
-                    }
-                    double wy = y * Values.BASE_CAVE_SCALE * caveAmp;
-                    double wy2 = y * Values.SIZE_NOISE_SCALE * caveAmp;
-                    double caveValue = caveNoise.noise(wxBase, wy, wzBase);
-                    double sizeVariation = caveSizeNoise.noise(wx2Base, wy2, wz2Base) * 0.5 + 0.5;
-                    double floorVariation = caveFloorNoise.noise(wx3, wz3) * Values.FLOOR_VARIATION_AMPLITUDE;
-                    double threshold = Values.CAVE_THRESHOLD;
-                    if (y < Values.MIN_CAVE_HEIGHT + Values.TRANSITION_HEIGHT) {
-                        double factor = (double)(y - Values.MIN_CAVE_HEIGHT) / Values.TRANSITION_HEIGHT;
-                        threshold = Values.CAVE_THRESHOLD + (1.0 - factor) * 0.4;
-                    }
-                    int effectiveMinHeight = Values.MIN_CAVE_HEIGHT;
-                    if (y < Values.MIN_CAVE_HEIGHT + Values.FLOOR_VARIATION_AMPLITUDE) {
-                        int adjustedFloorHeight = Values.MIN_CAVE_HEIGHT + (int)floorVariation;
-                        if (y < adjustedFloorHeight) {
-                            continue;
-                        }
-                    }
-                    double adjustedThreshold = threshold - sizeVariation * Values.SIZE_VARIATION;
-                    if (caveValue > adjustedThreshold) {
-                        chunk.setBlock(x, y, z, Blocks.AIR);
-                        if (sizeVariation > 0.7 && y + 1 < Values.MAX_CAVE_HEIGHT && chunk.getBlock(x, y + 1, z).isBlock()) {
-                            chunk.setBlock(x, y + 1, z, Blocks.AIR);
-                        }
-                    }
-                }
-            }
-        }
-        chunk.bumpVersion();
-        chunk.bakeLight();
+        BaseChunk c = chunkIndex.get(x >> Chunk.CHUNK_SHIFT, z >> Chunk.CHUNK_SHIFT);
+        if (c == null) return false;
+        return !Blocks.isSolid(c.getBlockId(x & (Chunk.CHUNK_X - 1), y, z & (Chunk.CHUNK_Z - 1)));
+    }
+
+    /**
+     * Génère un chunk sans le charger dans le monde (ni index, ni sauvegarde, ni file de lumière), pour les
+     * outils et les mesures : sa lumière du ciel est déjà calculée au retour
+     */
+    public BaseChunk generateDetached(int cx, int cz, int lod) {
+        return generator.generateDetached(cx, cz, lod);
     }
 
     public Block getBlock(int x, int y, int z) {
         if (y < Chunk.MIN_CHUNK_Y || y >= Chunk.CHUNK_Y) return null;
-        int cx = Math.floorDiv(x, Chunk.CHUNK_X);
-        int cz = Math.floorDiv(z, Chunk.CHUNK_Z);
-        long k = key(cx, cz);
-        Future<BaseChunk> f = chunkFutures.get(k);
-        if (f == null) return null;
-        try {
-            BaseChunk c = f.get();
-            if (c == null) return null;
-            int lx = Math.floorMod(x, Chunk.CHUNK_X);
-            int lz = Math.floorMod(z, Chunk.CHUNK_Z);
-            byte id = c.getBlockId(lx, y, lz);
-            return Blocks.blocks.get(id);
-        } catch (Exception e) {
-            return null;
-        }
+        BaseChunk c = chunkIndex.get(x >> Chunk.CHUNK_SHIFT, z >> Chunk.CHUNK_SHIFT);
+        if (c == null) return null;
+        return Blocks.get(c.getBlockId(x & (Chunk.CHUNK_X - 1), y, z & (Chunk.CHUNK_Z - 1)));
     }
 
     public void update(float playerX, float playerZ) {
+        update(playerX, playerZ, 0, 0);
+    }
+
+    /**
+     * @param lookX composante X de la direction horizontale du regard (0 si inconnue)
+     * @param lookZ composante Z de la direction horizontale du regard (0 si inconnue)
+     */
+    public void update(float playerX, float playerZ, float lookX, float lookZ) {
         int pcx = Math.floorDiv((int)Math.floor(playerX), Chunk.CHUNK_X);
         int pcz = Math.floorDiv((int)Math.floor(playerZ), Chunk.CHUNK_Z);
 
+        // Les chargements en attente suivent le joueur et son regard ; ceux qui sortent du rayon de
+        // conservation sont abandonnés dès que le joueur change de chunk
+        chunkScheduler.setFocus(playerX, playerZ, lookX, lookZ);
+        boolean crossedChunk = pcx != lastPlayerCx || pcz != lastPlayerCz;
+        if (crossedChunk) {
+            chunkScheduler.dropOutside(pcx, pcz, Values.RENDER_RADIUS + unloadBuffer);
+        }
+        trackTeleport(pcx, pcz);
+        applyLodTransitions();
+
         getLightEngine().processLightQueue();
 
-        // Assurez-vous que les chunks autour du joueur sont chargés
-        ensureChunksAround(pcx, pcz, Values.RENDER_RADIUS);
+        // Chargement et déchargement seulement au changement de chunk, ou périodiquement pour reprendre
+        // les demandes refusées (file pleine) et les chunks encore en génération au dernier passage
+        long now = System.nanoTime();
+        if (crossedChunk || now - lastSweepNanos >= SWEEP_INTERVAL_NANOS) {
+            lastSweepNanos = now;
+            // Assurez-vous que les chunks autour du joueur sont chargés
+            ensureChunksAround(pcx, pcz, Values.RENDER_RADIUS);
 
-        // Décharge les chunks éloignés et sauvegarde les chunks modifiés
-        unloadDistantChunks(pcx, pcz);
+            // Décharge les chunks éloignés et sauvegarde les chunks modifiés
+            unloadDistantChunks(pcx, pcz);
+        }
 
         getLightEngine().processLightQueue();
     }
 
+    // Un saut de plus d'un chunk en une frame est traité comme une téléportation
+    private void trackTeleport(int pcx, int pcz) {
+        if (lastPlayerCx != Integer.MIN_VALUE
+                && (Math.abs(pcx - lastPlayerCx) > 1 || Math.abs(pcz - lastPlayerCz) > 1)) {
+            teleportStartNanos = System.nanoTime();
+        }
+        lastPlayerCx = pcx;
+        lastPlayerCz = pcz;
+        if (teleportStartNanos == 0) return;
+        for (int dz = -TELEPORT_READY_RADIUS; dz <= TELEPORT_READY_RADIUS; dz++) {
+            for (int dx = -TELEPORT_READY_RADIUS; dx <= TELEPORT_READY_RADIUS; dx++) {
+                if (chunkIndex.get(pcx + dx, pcz + dz) == null) return;
+            }
+        }
+        lastTeleportReadyMillis = (System.nanoTime() - teleportStartNanos) / 1_000_000;
+        teleportStartNanos = 0;
+    }
+
+    // Tâche encore utile : ni annulée, ni terminée sans chunk (génération abandonnée)
+    private static boolean isUsable(@Nullable Future<BaseChunk> future) {
+        if (future == null || future.isCancelled()) return false;
+        return !future.isDone() || doneResult(future) != null;
+    }
+
+    // Résultat d'une tâche terminée, sans attendre ; null si elle n'a rien produit
+    @Nullable
+    private static BaseChunk doneResult(Future<BaseChunk> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Facteur de LoD d'un chunk à (dx, dz) chunks du joueur : 1 (pleine résolution) jusqu'à LOD_NEAR_RADIUS,
+     * puis un niveau de Values.LOD_LEVELS par anneau de Values.LOD_RING_RADII
+     */
+    public static int lodFactorFor(int dx, int dz) {
+        return lodFactorForDistanceSq(dx * dx + dz * dz);
+    }
+
+    private static int lodFactorForDistanceSq(double dsq) {
+        if (dsq <= Values.LOD_NEAR_RADIUS * Values.LOD_NEAR_RADIUS) return 1;
+        for (int i = 0; i < Values.LOD_RING_RADII.length; i++) {
+            int r = Values.LOD_RING_RADII[i];
+            if (dsq <= r * r) return Values.LOD_LEVELS[i];
+        }
+        return Values.LOD_LEVELS[Values.LOD_LEVELS.length - 1];
+    }
+
+    /**
+     * Facteur de LoD visé pour un chunk déjà chargé au facteur {@code current} : plus de détail dès que le
+     * joueur entre dans l'anneau, moins de détail seulement LOD_HYSTERESIS chunks plus loin, pour ne pas
+     * osciller quand il longe une limite d'anneau
+     */
+    private static int targetLodFactor(int current, int dx, int dz) {
+        int wanted = lodFactorFor(dx, dz);
+        if (wanted <= current) return wanted;
+        double d = Math.max(0, Math.sqrt(dx * dx + dz * dz) - LOD_HYSTERESIS);
+        return Math.max(current, lodFactorForDistanceSq(d * d));
+    }
+
+    /**
+     * Charge le chunk depuis le disque ou le génère, au facteur de LoD demandé. Une sauvegarde plus détaillée
+     * est sous-échantillonnée ; une sauvegarde moins détaillée est ignorée au profit de la génération.
+     * @return null si la génération a été abandonnée (tâche périmée)
+     */
+    @Nullable
+    private BaseChunk loadOrGenerate(int cx, int cz, int lod) {
+        // Chunk déchargé récemment, encore en mémoire et au moins aussi détaillé : repris tel quel
+        BaseChunk cached = chunkCache.take(cx, cz, lod);
+        if (cached != null) return cached;
+        BaseChunk chunk = chunkIO.loadChunk(cx, cz);
+        if (chunk != null && chunk.getLodFactor() <= lod) {
+            if (lod == 1) return chunk;
+            GreedyChunk coarse = chunk instanceof GreedyChunk greedy ? greedy : GreedyChunk.downsample(chunk);
+            return coarse.downsampleTo(lod);
+        }
+        // Génération synchrone ici (sinon il faudrait chaîner les futures)
+        return generator.generate(cx, cz, lod);
+    }
+
     private void ensureChunksAround(int centerCx, int centerCz, int radius) {
-        int nearSq = Values.LOD_NEAR_RADIUS * Values.LOD_NEAR_RADIUS;
+        int radiusSq = radius * radius;
         for (int dz = -radius; dz <= radius; dz++) {
             for (int dx = -radius; dx <= radius; dx++) {
+                int dsq = dx * dx + dz * dz;
+                // Disque et non carré : les coins au-delà du rayon de déchargement seraient rechargés puis
+                // déchargés à chaque frame
+                if (dsq > radiusSq) continue;
                 int cx = centerCx + dx;
                 int cz = centerCz + dz;
                 long k = key(cx, cz);
-                int dsq = dx * dx + dz * dz;
-                boolean near = dsq <= nearSq;
-
-                chunkFutures.computeIfAbsent(k, key -> chunkExecutor.submit(() -> {
-                    // Tente de charger depuis le disque
-                    BaseChunk loadedChunk = chunkIO.loadChunk(cx, cz);
-                    if (loadedChunk != null) {
-                        return loadedChunk;
-                    } else {
-                        // Crée un type de chunk en fonction de la distance (près = Chunk, loin = GreedyChunk compressé)
-                        int originX = cx * Chunk.CHUNK_X;
-                        int originZ = cz * Chunk.CHUNK_Z;
-                        BaseChunk chunk = near ? new Chunk(this, originX, originZ) : new GreedyChunk(this, originX, originZ);
-                        if (chunk.getVersion() == 0) {
-                            // Génération synchrone ici (sinon il faudrait chaîner les futures)
-                            generateChunk(chunk, cx, cz);
-                        }
-                        return chunk;
+                int lod = lodFactorFor(dx, dz);
+
+                // L'ordre de soumission importe peu : l'ordonnanceur trie par priorité.
+                // Une tâche annulée ou abandonnée est remplacée ; si la file est pleine, rien n'est
+                // enregistré et le chunk sera redemandé à la frame suivante.
+                Future<BaseChunk> current = chunkFutures.compute(k, (key, existing) -> isUsable(existing) ? existing : chunkScheduler.submit(cx, cz, () -> {
+                    if (chunkScheduler.isCurrentTaskStale()) return null;
+                    BaseChunk chunk = loadOrGenerate(cx, cz, lod);
+                    if (chunk == null) return null;
+                    if (chunkScheduler.isCurrentTaskStale()) {
+                        // Sorti du rayon pendant la génération : gardé pour un éventuel retour
+                        chunkCache.park(cx, cz, chunk);
+                        return null;
                     }
+                    // Publication une fois le chunk complet (écriture volatile dans l'index)
+                    publishChunk(cx, cz, chunk);
+                    return chunk;
                 }));
+                // Chunk déjà chargé à un autre niveau de détail que celui de son anneau
+                if (current != null && current.isDone() && !lodTransitions.containsKey(k)) {
+                    BaseChunk loaded = doneResult(current);
+                    if (loaded != null) {
+                        int target = targetLodFactor(loaded.getLodFactor(), dx, dz);
+                        if (target != loaded.getLodFactor()) scheduleLodTransition(k, cx, cz, loaded, target);
+                    }
+                }
+            }
+        }
+    }
+
+    // Changement de niveau de détail d'un chunk publié, préparé en tâche de fond puis appliqué par update()
+    private record LodTransition(BaseChunk previous, int version, Future<BaseChunk> replacement) {}
+
+    private void scheduleLodTransition(long k, int cx, int cz, BaseChunk previous, int lod) {
+        int version = previous.getVersion();
+        boolean coarser = lod > previous.getLodFactor();
+        // Moins de détail : le sous-échantillonnage lit un instantané, et les modifications sont sauvegardées
+        // d'abord pour retrouver tout le détail plus tard
+        BaseChunk source = coarser ? previous.snapshot() : null;
+        if (coarser && previous.getLodFactor() == 1 && previous.isDirty()) saveChunk(previous);
+        Future<BaseChunk> replacement = chunkScheduler.submit(cx, cz, () -> {
+            try {
+                if (chunkScheduler.isCurrentTaskStale()) return null;
+                if (coarser) {
+                    GreedyChunk coarse = source instanceof GreedyChunk greedy ? greedy : GreedyChunk.downsample(source);
+                    return coarse.downsampleTo(lod);
+                }
+                // Plus de détail : relecture du disque ou nouvelle génération
+                return loadOrGenerate(cx, cz, lod);
+            } finally {
+                if (source != null) source.release();
             }
+        });
+        if (replacement != null) {
+            lodTransitions.put(k, new LodTransition(previous, version, replacement));
+        } else if (source != null) {
+            // File pleine : le changement sera redemandé au prochain passage
+            source.release();
+        }
+    }
+
+    // Applique (thread principal) les changements de niveau de détail terminés : un simple échange dans
+    // l'index, le rendu garde l'ancien mesh jusqu'à ce que le nouveau soit prêt
+    private void applyLodTransitions() {
+        if (!abandonedLodTransitions.isEmpty()) {
+            abandonedLodTransitions.removeIf(entry -> {
+                if (!entry.getValue().replacement().isDone()) return false;
+                discardLodReplacement(entry.getKey(), entry.getValue());
+                return true;
+            });
+        }
+        if (lodTransitions.isEmpty()) return;
+        Iterator<Map.Entry<Long, LodTransition>> it = lodTransitions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, LodTransition> entry = it.next();
+            LodTransition transition = entry.getValue();
+            if (!transition.replacement().isDone()) continue;
+            it.remove();
+            long k = entry.getKey();
+            // Chunk modifié pendant la préparation : on garde l'actuel (nouvel essai plus tard)
+            if (transition.previous().getVersion() != transition.version()) {
+                discardLodReplacement(k, transition);
+                continue;
+            }
+            BaseChunk replacement = lodReplacement(transition);
+            // Abandonnée : rien à écarter
+            if (replacement == null) continue;
+            int cx = (int) (k >> 32);
+            int cz = (int) k;
+            if (replaceChunk(cx, cz, transition.previous(), replacement)) {
+                chunkFutures.put(k, CompletableFuture.completedFuture(replacement));
+                lodTransitionCount++;
+            } else {
+                // Chunk déchargé ou remplacé entre-temps
+                discardLodReplacement(k, transition);
+            }
+        }
+    }
+
+    @Nullable
+    private static BaseChunk lodReplacement(LodTransition transition) {
+        return transition.replacement().isCancelled() ? null : doneResult(transition.replacement());
+    }
+
+    // Remplaçant terminé mais pas publié. Une version plus détaillée vient du cache, du disque ou de la génération
+    // et peut porter des modifications pas encore sauvegardées : elle retourne au cache, qui la sauvegarde et la
+    // libère à son éviction. Une version sous-échantillonnée ne contient rien de plus que l'actuelle : libérée.
+    private void discardLodReplacement(long k, LodTransition transition) {
+        BaseChunk replacement = lodReplacement(transition);
+        if (replacement == null) return;
+        if (replacement.getLodFactor() < transition.previous().getLodFactor()) {
+            chunkCache.park((int) (k >> 32), (int) k, replacement);
+        } else {
+            replacement.release();
         }
     }
 
@@ -301,29 +471,57 @@ public class World {
         List<Long> chunksToUnload = new ArrayList<>();
         for (Map.Entry<Long, Future<BaseChunk>> entry : chunkFutures.entrySet()) {
             long key = entry.getKey();
+            // Distance tirée de la clé : on n'attend jamais un chunk qui reste dans le rayon
+            int cx = (int) (key >> 32);
+            int cz = (int) key;
+            int dx = cx - playerCx;
+            int dz = cz - playerCz;
+            int distSq = dx*dx + dz*dz;
+            if (distSq <= unloadRadiusSq) continue;
+            Future<BaseChunk> future = entry.getValue();
+            // Tâche abandonnée avant de démarrer : rien à attendre
+            if (future.isCancelled()) {
+                chunksToUnload.add(key);
+                continue;
+            }
+            // Jamais d'attente sur le thread principal : un chunk encore en génération (déjà marqué périmé
+            // par l'ordonnanceur) sera retiré à un prochain passage
+            if (!future.isDone()) continue;
             try {
-                BaseChunk chunk = entry.getValue().get();
-                if (chunk == null) continue;
-                int cx = chunk.getOriginX() / Chunk.CHUNK_X;
-                int cz = chunk.getOriginZ() / Chunk.CHUNK_Z;
-                int dx = cx - playerCx;
-                int dz = cz - playerCz;
-                int distSq = dx*dx + dz*dz;
-                if (distSq > unloadRadiusSq) {
-                    if (chunk.isDirty()) {
-                        saveChunk(chunk);
-                    }
+                BaseChunk chunk = future.get();
+                if (chunk == null) {
+                    // Génération interrompue en cours de route (tâche périmée)
                     chunksToUnload.add(key);
+                    continue;
                 }
+                chunksToUnload.add(key);
+                // Sauvegardé seulement à son éviction du cache
+                if (retireChunk(cx, cz, chunk)) chunkCache.park(cx, cz, chunk);
+                // Changement de niveau de détail en cours : jamais appliqué. L'ordonnanceur a déjà annulé sa tâche
+                // si elle attendait encore (même rayon), ou l'a marquée périmée si elle tourne ; son éventuel
+                // résultat est écarté à l'arrivée
+                LodTransition transition = lodTransitions.remove(key);
+                if (transition != null) abandonedLodTransitions.add(Map.entry(key, transition));
             } catch (Exception ignored) {}
         }
         for (Long key : chunksToUnload) {
             chunkFutures.remove(key);
         }
+        long residentBytes = 0;
+        for (BaseChunk chunk : readyChunks) residentBytes += ChunkCache.footprint(chunk);
+        chunkCache.trim(residentBytes, playerCx, playerCz);
+    }
+
+    // Chunk évincé du cache : plus publié donc plus modifié, l'instantané peut être pris depuis n'importe quel thread
+    private void evictChunk(BaseChunk chunk) {
+        if (chunk.isDirty()) saveChunk(chunk);
+        chunk.release();
     }
 
+    // La sérialisation et l'écriture se font sur le thread de sauvegarde de ChunkIO, à partir d'un
+    // instantané pris ici (thread principal) : les éditions suivantes ne se mélangent pas au fichier écrit
     private void saveChunk(BaseChunk chunk) {
-        chunkIO.saveChunkAsync(chunk);
+        chunkIO.saveChunkAsync(chunk.snapshot());
         chunk.markClean();
     }
 
@@ -340,15 +538,17 @@ public class World {
         }
 
         // Fermer le thread pool
-        chunkExecutor.shutdown();
+        chunkScheduler.shutdown();
         try {
-            if (!chunkExecutor.awaitTermination(2, java.util.concurrent.TimeUnit.SECONDS)) {
-                chunkExecutor.shutdownNow();
+            if (!chunkScheduler.awaitTermination(2, java.util.concurrent.TimeUnit.SECONDS)) {
+                chunkScheduler.shutdownNow();
             }
         } catch (InterruptedException e) {
-            chunkExecutor.shutdownNow();
+            chunkScheduler.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        // Chunks du cache modifiés (après l'arrêt des générateurs, qui peuvent encore y en déposer)
+        chunkCache.clear();
 
         chunkIO.shutdown();
 
@@ -364,59 +564,162 @@ public class World {
     }
 
     public void setBlock(int x, int y, int z, Block block) {
-        if (y < Chunk.MIN_CHUNK_Y || y >= Chunk.CHUNK_Y) return; // Vérification des limites en Y
-        // Obtenir le chunk contenant le bloc
-        BaseChunk chunk = getChunkAt(x, z);
-        if (chunk != null) {
-            // Convertir les coordonnées globales en coordonnées locales du chunk
-            int localX = Math.floorMod(x, Chunk.CHUNK_X);
-            int localZ = Math.floorMod(z, Chunk.CHUNK_Z);
-            // Lire l'id du bloc avant modification
-            byte oldId = chunk.getBlockId(localX, y, localZ);
-            byte newId = (byte) block.getId();
-            if (oldId == newId) return; // Ne rien faire si le bloc ne change pas
-            // Modifier le bloc
-            chunk.setBlock(localX, y, localZ, block);
-            // --- Mise à jour dynamique de la lumière ---
-            lightEngine.propagateSkyLight(chunk);
-            chunk.markDirty();
-            // --- Fin lumière dynamique ---
-            // Vérifier si le bloc est à la bordure d'un chunk et mettre à jour les chunks voisins
-            if (localX == 0) {
-                // Bloc à la bordure -X, mettre à jour le chunk à gauche
-                BaseChunk neighbor = getChunk(Math.floorDiv(x, Chunk.CHUNK_X) - 1, Math.floorDiv(z, Chunk.CHUNK_Z));
-                if (neighbor != null) neighbor.bumpVersion();
+        BulkEdit edit = new BulkEdit();
+        if (edit.set(x, y, z, (byte) block.getId())) {
+            edit.commit();
+        }
+    }
+
+    /**
+     * Applique une série de modifications puis planifie un seul éclairage et un seul remaillage
+     * par chunk touché (et un remaillage des voisins dont la bordure a changé).
+     * Les positions hors du monde ou dans un chunk non chargé sont ignorées.
+     * @return nombre de blocs effectivement modifiés
+     */
+    public int setBlocks(Iterator<BlockChange> changes) {
+        BulkEdit edit = new BulkEdit();
+        int changed = 0;
+        while (changes.hasNext()) {
+            BlockChange change = changes.next();
+            if (edit.set(change.x(), change.y(), change.z(), (byte) change.block().getId())) changed++;
+        }
+        edit.commit();
+        return changed;
+    }
+
+    /**
+     * Remplit le pavé [x0..x1] x [y0..y1] x [z0..z1] (bornes incluses, dans n'importe quel ordre)
+     * en écrivant directement dans chaque chunk chargé, avec un seul éclairage et un seul remaillage par chunk.
+     * @return nombre de blocs effectivement modifiés
+     */
+    public int fill(int x0, int y0, int z0, int x1, int y1, int z1, Block block) {
+        int minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+        int minY = Math.max(Math.min(y0, y1), Chunk.MIN_CHUNK_Y), maxY = Math.min(Math.max(y0, y1), Chunk.CHUNK_Y - 1);
+        int minZ = Math.min(z0, z1), maxZ = Math.max(z0, z1);
+        if (minY > maxY) return 0;
+        byte id = (byte) block.getId();
+        BulkEdit edit = new BulkEdit();
+        int changed = 0;
+        for (int cx = minX >> Chunk.CHUNK_SHIFT; cx <= maxX >> Chunk.CHUNK_SHIFT; cx++) {
+            for (int cz = minZ >> Chunk.CHUNK_SHIFT; cz <= maxZ >> Chunk.CHUNK_SHIFT; cz++) {
+                BaseChunk chunk = chunkIndex.get(cx, cz);
+                if (chunk == null) continue;
+                // Intersection du pavé avec le chunk, en coordonnées locales
+                int lx0 = Math.max(minX - chunk.getOriginX(), 0), lx1 = Math.min(maxX - chunk.getOriginX(), Chunk.CHUNK_X - 1);
+                int lz0 = Math.max(minZ - chunk.getOriginZ(), 0), lz1 = Math.min(maxZ - chunk.getOriginZ(), Chunk.CHUNK_Z - 1);
+                boolean fullColumns = lx0 == 0 && lx1 == Chunk.CHUNK_X - 1 && lz0 == 0 && lz1 == Chunk.CHUNK_Z - 1;
+                boolean sectionReplaced = false;
+                int before = changed;
+                for (int y = minY; y <= maxY; y++) {
+                    // Section entièrement couverte : remplacée d'un coup par une section uniforme
+                    if (fullColumns && (y & (ChunkSection.SECTION_HEIGHT - 1)) == 0 && y + ChunkSection.SECTION_HEIGHT - 1 <= maxY) {
+                        int filled = chunk.fillSection(y >> ChunkSection.SECTION_SHIFT, id);
+                        if (filled >= 0) {
+                            changed += filled;
+                            sectionReplaced |= filled > 0;
+                            y += ChunkSection.SECTION_HEIGHT - 1;
+                            continue;
+                        }
+                    }
+                    for (int lz = lz0; lz <= lz1; lz++) {
+                        for (int lx = lx0; lx <= lx1; lx++) {
+                            if (chunk.getBlockId(lx, y, lz) == id) continue;
+                            chunk.setBlockId(lx, y, lz, id);
+                            changed++;
+                        }
+                    }
+                }
+                if (sectionReplaced) chunk.recomputeHeightmaps();
+                if (changed > before) {
+                    edit.touch(chunk, lx0 == 0, lx1 == Chunk.CHUNK_X - 1, lz0 == 0, lz1 == Chunk.CHUNK_Z - 1,
+                            BaseChunk.sectionMask(minY - 1, maxY + 1));
+                }
             }
-            else if (localX == Chunk.CHUNK_X - 1) {
-                // Bloc à la bordure +X, mettre à jour le chunk à droite
-                BaseChunk neighbor = getChunk(Math.floorDiv(x, Chunk.CHUNK_X) + 1, Math.floorDiv(z, Chunk.CHUNK_Z));
-                if (neighbor != null) neighbor.bumpVersion();
+        }
+        edit.commit();
+        return changed;
+    }
+
+    /**
+     * Regroupe les chunks modifiés par une édition : chacun n'est rééclairé, marqué à sauvegarder et
+     * signalé qu'une fois au commit, et les voisins dont la bordure a changé ne remaillent qu'une fois
+     * les sections concernées.
+     */
+    private final class BulkEdit {
+        private final WorldCursor cursor = getCursor();
+        private final List<BaseChunk> touched = new ArrayList<>();
+        // Voisin -> masque des sections dont la bordure a changé
+        private final Map<BaseChunk, Integer> borderNeighbours = new HashMap<>();
+        private BaseChunk lastTouched;
+
+        boolean set(int x, int y, int z, byte id) {
+            if (y < Chunk.MIN_CHUNK_Y || y >= Chunk.CHUNK_Y) return false; // Vérification des limites en Y
+            BaseChunk chunk = cursor.getChunkAt(x, z);
+            if (chunk == null) return false;
+            int localX = x & (Chunk.CHUNK_X - 1);
+            int localZ = z & (Chunk.CHUNK_Z - 1);
+            if (chunk.getBlockId(localX, y, localZ) == id) return false; // Ne rien faire si le bloc ne change pas
+            chunk.setBlockId(localX, y, localZ, id);
+            touch(chunk, localX == 0, localX == Chunk.CHUNK_X - 1, localZ == 0, localZ == Chunk.CHUNK_Z - 1,
+                    BaseChunk.sectionMaskAround(y));
+            return true;
+        }
+
+        // Enregistre un chunk modifié et, selon les bordures touchées, les sections des voisins à remailler
+        void touch(BaseChunk chunk, boolean minX, boolean maxX, boolean minZ, boolean maxZ, int sectionMask) {
+            if (chunk != lastTouched) {
+                if (!touched.contains(chunk)) touched.add(chunk);
+                lastTouched = chunk;
             }
-            if (localZ == 0) {
-                // Bloc à la bordure -Z, mettre à jour le chunk devant
-                BaseChunk neighbor = getChunk(Math.floorDiv(x, Chunk.CHUNK_X), Math.floorDiv(z, Chunk.CHUNK_Z) - 1);
-                if (neighbor != null) neighbor.bumpVersion();
+            int cx = chunk.getOriginX() >> Chunk.CHUNK_SHIFT;
+            int cz = chunk.getOriginZ() >> Chunk.CHUNK_SHIFT;
+            if (minX) addNeighbour(cx - 1, cz, sectionMask);
+            if (maxX) addNeighbour(cx + 1, cz, sectionMask);
+            if (minZ) addNeighbour(cx, cz - 1, sectionMask);
+            if (maxZ) addNeighbour(cx, cz + 1, sectionMask);
+        }
+
+        private void addNeighbour(int cx, int cz, int sectionMask) {
+            BaseChunk neighbour = chunkIndex.get(cx, cz);
+            if (neighbour != null) borderNeighbours.merge(neighbour, sectionMask, (a, b) -> a | b);
+        }
+
+        void commit() {
+            for (BaseChunk chunk : touched) {
+                // --- Mise à jour dynamique de la lumière ---
+                lightEngine.propagateSkyLight(chunk);
+                chunk.markDirty();
+                fireChunkChanged(chunk);
             }
-            else if (localZ == Chunk.CHUNK_Z - 1) {
-                // Bloc à la bordure +Z, mettre à jour le chunk derrière
-                BaseChunk neighbor = getChunk(Math.floorDiv(x, Chunk.CHUNK_X), Math.floorDiv(z, Chunk.CHUNK_Z) + 1);
-                if (neighbor != null) neighbor.bumpVersion();
+            for (Map.Entry<BaseChunk, Integer> entry : borderNeighbours.entrySet()) {
+                BaseChunk neighbour = entry.getKey();
+                // Seul le mesh du voisin change : rien à sauvegarder
+                neighbour.invalidateSections(entry.getValue());
+                if (!touched.contains(neighbour)) fireChunkChanged(neighbour);
             }
         }
     }
 
     @Nullable
     public BaseChunk getChunkAt(int x, int z) {
-        int cx = Math.floorDiv(x, Chunk.CHUNK_X);
-        int cz = Math.floorDiv(z, Chunk.CHUNK_Z);
-        return getChunk(cx, cz);
+        return chunkIndex.get(x >> Chunk.CHUNK_SHIFT, z >> Chunk.CHUNK_SHIFT);
     }
 
+    /**
+     * Chunk prêt aux coordonnées de chunk (cx, cz), null s'il n'est pas (encore) chargé. Ne bloque jamais.
+     */
     @Nullable
     public BaseChunk getChunk(int cx, int cz) {
-        long k = key(cx, cz);
-        Future<BaseChunk> f = chunkFutures.get(k);
-        if (f == null) return null;
+        return chunkIndex.get(cx, cz);
+    }
+
+    /**
+     * Attend la fin du chargement du chunk (cx, cz) s'il est en cours
+     */
+    @Nullable
+    public BaseChunk awaitChunk(int cx, int cz) {
+        Future<BaseChunk> f = chunkFutures.get(key(cx, cz));
+        if (f == null) return chunkIndex.get(cx, cz);
         try {
             return f.get();
         } catch (Exception e) {
@@ -424,44 +727,41 @@ public class World {
         }
     }
 
+    /**
+     * Hauteur du plus haut bloc à une position monde (x, z), -1 si la colonne est vide ou non chargée
+     */
+    public int getSurfaceY(int x, int z) {
+        BaseChunk chunk = getChunkAt(x, z);
+        if (chunk == null) return -1;
+        return chunk.getHighestBlockY(Math.floorMod(x, Chunk.CHUNK_X), Math.floorMod(z, Chunk.CHUNK_Z));
+    }
+
+    /**
+     * Teinte lissée (0xRRGGBB) à une position monde (x, z), lue dans la table du chunk s'il est chargé,
+     * sinon la couleur du biome de la colonne
+     */
+    public int getTintAt(int x, int z, TintType type) {
+        BaseChunk c = chunkIndex.get(x >> Chunk.CHUNK_SHIFT, z >> Chunk.CHUNK_SHIFT);
+        if (c != null) return c.getTint(type, x & (Chunk.CHUNK_X - 1), z & (Chunk.CHUNK_Z - 1));
+        return generator.biomeAt(x, z).getTintRGB(type);
+    }
+
     /**
      * Retourne le biome à une position monde (x, z)
      */
     public Biome getBiomeAt(int x, int z) {
-        double b = biomeNoise.noise(x * 0.003, z * 0.003);
-        // Utilisation d'un blend lissé pour la transition
-        if (b > 0.35) return Biome.MOUNTAINS;
-        if (b < -0.35) return Biome.PLAINS;
-        // Zone de transition lissée
-        if (b > 0.15 && b <= 0.35) {
-            double t = (b - 0.15) / (0.35 - 0.15); // t de 0 à 1
-            // Mélange progressif, bruit secondaire pour la cohérence spatiale
-            double blend = (biomeNoise.noise((x+1000)*0.01, (z-1000)*0.01) + 1) * 0.5;
-            return blend < t ? Biome.MOUNTAINS : Biome.NORMAL;
-        }
-        if (b < -0.15 && b >= -0.35) {
-            double t = (-0.15 - b) / (0.35 - 0.15); // t de 0 à 1
-            double blend = (biomeNoise.noise((x-1000)*0.01, (z+1000)*0.01) + 1) * 0.5;
-            return blend < t ? Biome.PLAINS : Biome.NORMAL;
-        }
-        return Biome.NORMAL;
-    }
-
-    // Interpolation linéaire entre deux biomes
-    private static BiomeParams interpolateBiome(Biome a, Biome b, double t) {
-        return new BiomeParams(
-            lerp(a.relief, b.relief, t),
-            lerp(a.baseHeight, b.baseHeight, t),
-            lerp(a.heightScale, b.heightScale, t),
-            lerp(a.octaves, b.octaves, t),
-            lerp(a.terrainFrequency, b.terrainFrequency, t)
-        );
-    }
-    private static double lerp(double a, double b, double t) {
-        return a * (1 - t) + b * t;
-    }
-
-    private record BiomeParams(double relief, double baseHeight, double heightScale, double octaves,
-                               double terrainFrequency) {
+        BaseChunk c = chunkIndex.get(x >> Chunk.CHUNK_SHIFT, z >> Chunk.CHUNK_SHIFT);
+        if (c != null) return c.getBiome(x & (Chunk.CHUNK_X - 1), z & (Chunk.CHUNK_Z - 1));
+        return generator.biomeAt(x, z);
+    }
+
+    // Biomes des colonnes d'un chunk (ordinaux, index x + CHUNK_X * z), pour BaseChunk.getBiome
+    byte[] computeBiomes(int baseX, int baseZ) {
+        return generator.computeBiomes(baseX, baseZ);
+    }
+
+    // Teintes lissées des colonnes d'un chunk (voir BiomeTints), pour BaseChunk.getTint
+    int[] computeTints(int baseX, int baseZ) {
+        return generator.computeTints(baseX, baseZ);
     }
 }
@@ -0,0 +1,79 @@
+package ovh.paulem.mc.world;
+
+import lombok.Getter;
+import ovh.paulem.mc.world.block.Blocks;
+
+/**
+ * Accès rapide aux blocs du monde pour les boucles chaudes (physique, raycast, maillage).
+ * Le curseur mémorise le dernier chunk résolu : des requêtes successives dans le même chunk,
+ * le cas de loin le plus courant, n'interrogent pas l'index. Le cache est invalidé dès qu'un chunk
+ * est retiré ou remplacé dans l'index (compteur d'époque), jamais un chunk déchargé n'est relu.
+ * Un curseur n'est pas thread-safe : chaque appelant garde le sien ({@link World#getCursor()} en fournit
+ * un par thread).
+ */
+public final class WorldCursor {
+    // Valeur renvoyée par getBlockId quand le chunk n'est pas chargé ou que y sort du monde
+    public static final int UNLOADED = -1;
+
+    @Getter
+    private final World world;
+    private final ChunkIndex index;
+
+    private BaseChunk cached;
+    private int cachedCx;
+    private int cachedCz;
+    private int cachedEpoch;
+
+    public WorldCursor(World world) {
+        this.world = world;
+        this.index = world.getChunkIndex();
+    }
+
+    /**
+     * Chunk contenant la position monde (x, z), ou null s'il n'est pas chargé
+     */
+    public BaseChunk getChunkAt(int x, int z) {
+        int cx = x >> BaseChunk.CHUNK_SHIFT;
+        int cz = z >> BaseChunk.CHUNK_SHIFT;
+        // L'époque est lue avant l'index : un retrait concurrent invalidera le cache au prochain appel
+        int epoch = index.getEpoch();
+        BaseChunk c = cached;
+        if (c != null && cx == cachedCx && cz == cachedCz && epoch == cachedEpoch) return c;
+        c = index.get(cx, cz);
+        if (c != null) {
+            cached = c;
+            cachedCx = cx;
+            cachedCz = cz;
+            cachedEpoch = epoch;
+        }
+        return c;
+    }
+
+    /**
+     * Id brut du bloc à la position monde, ou {@link #UNLOADED} hors du monde / chunk non chargé
+     */
+    public int getBlockId(int x, int y, int z) {
+        if (y < BaseChunk.MIN_CHUNK_Y || y >= BaseChunk.CHUNK_Y) return UNLOADED;
+        BaseChunk c = getChunkAt(x, z);
+        if (c == null) return UNLOADED;
+        return c.getBlockId(x & (BaseChunk.CHUNK_X - 1), y, z & (BaseChunk.CHUNK_Z - 1));
+    }
+
+    /**
+     * Même contrat que {@link World#isPassable(int, int, int)} : un chunk non chargé bloque
+     */
+    public boolean isPassable(int x, int y, int z) {
+        int id = getBlockId(x, y, z);
+        if (id == UNLOADED) return false;
+        return !Blocks.isSolid((byte) id);
+    }
+
+    /**
+     * Même contrat que {@link World#isOccluding(int, int, int)} : un chunk non chargé n'occulte rien
+     */
+    public boolean isOccluding(int x, int y, int z) {
+        int id = getBlockId(x, y, z);
+        if (id == UNLOADED) return false;
+        return Blocks.isOpaque((byte) id);
+    }
+}
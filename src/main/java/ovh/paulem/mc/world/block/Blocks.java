@@ -3,11 +3,38 @@ package ovh.paulem.mc.world.block;
 import ovh.paulem.mc.engine.render.texture.TintType;
 import ovh.paulem.mc.world.block.types.*;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Registre des blocs, indexé directement par id (0 à 255).
+ * Les propriétés lues dans les boucles chaudes (maillage, lumière, collisions, heightmaps) sont recopiées
+ * à l'enregistrement dans des tables plates : une lecture de tableau par id, sans boxing ni appel virtuel.
+ */
 public class Blocks {
-    public static final Map<Byte, Block> blocks = new HashMap<>();
+    private static final int IDS = 256;
+    private static final int FACES = 6;
+
+    private static final Block[] byId = new Block[IDS];
+    private static final List<Block> registered = new ArrayList<>();
+
+    // Bloc plein qui cache ses voisins et arrête la lumière
+    private static final boolean[] opaque = new boolean[IDS];
+    // Bloc qui occupe sa case (tout sauf l'air) : collisions et faces à mailler. Un id inconnu bloque
+    private static final boolean[] solid = new boolean[IDS];
+    private static final boolean[] transparent = new boolean[IDS];
+    private static final boolean[] tintable = new boolean[IDS];
+    private static final TintType[] tintTypes = new TintType[IDS];
+    // Texture de chaque face (id * 6 + face) : indice dense dans textureNames, -1 sans texture
+    private static final int[] faceTextureIds = new int[IDS * FACES];
+    private static String[] textureNames = new String[0];
+
+    static {
+        Arrays.fill(solid, true);
+        Arrays.fill(faceTextureIds, -1);
+    }
 
     public static final AirBlock AIR = register(new AirBlock("air", (byte)0));
     public static final SingleFaceBlock STONE = register(new SingleFaceBlock("stone", (byte)1));
@@ -17,10 +44,94 @@ public class Blocks {
     public static final FoliageBlock LEAVES = register(new FoliageBlock("leaves", (byte)5, true, TintType.FOLIAGE));
 
     public static<T extends Block> T register(T block) {
-        if(blocks.containsKey((byte)block.getId())) {
-            throw new IllegalArgumentException("Block with id " + block.getId() + " is already registered!");
+        int id = block.getId();
+        if (id < 0 || id >= IDS) {
+            throw new IllegalArgumentException("Block id " + id + " is out of range!");
+        }
+        if (byId[id] != null) {
+            throw new IllegalArgumentException("Block with id " + id + " is already registered!");
+        }
+        byId[id] = block;
+        registered.add(block);
+
+        // AIR n'est pas encore affecté quand il s'enregistre : isBlock() ne peut pas servir ici
+        boolean isAir = block instanceof AirBlock;
+        solid[id] = !isAir;
+        transparent[id] = block.isTransparent();
+        opaque[id] = !isAir && !block.isTransparent();
+        if (block instanceof Tintable tint) {
+            tintable[id] = true;
+            tintTypes[id] = tint.getTintType();
+        }
+        if (!isAir) {
+            for (int face = 0; face < FACES; face++) {
+                faceTextureIds[id * FACES + face] = textureId(block.getFaceTextureName(face));
+            }
         }
-        blocks.put((byte)block.getId(), block);
         return block;
     }
-}
\ No newline at end of file
+
+    private static int textureId(String name) {
+        for (int i = 0; i < textureNames.length; i++) {
+            if (textureNames[i].equals(name)) return i;
+        }
+        textureNames = Arrays.copyOf(textureNames, textureNames.length + 1);
+        textureNames[textureNames.length - 1] = name;
+        return textureNames.length - 1;
+    }
+
+    /**
+     * Bloc d'un id, null s'il n'est pas enregistré
+     */
+    public static Block get(byte id) {
+        return byId[id & 0xFF];
+    }
+
+    public static Block get(int id) {
+        return byId[id & 0xFF];
+    }
+
+    // Blocs enregistrés, dans l'ordre d'enregistrement
+    public static List<Block> all() {
+        return Collections.unmodifiableList(registered);
+    }
+
+    public static boolean isOpaque(byte id) {
+        return opaque[id & 0xFF];
+    }
+
+    public static boolean isSolid(byte id) {
+        return solid[id & 0xFF];
+    }
+
+    public static boolean isTransparent(byte id) {
+        return transparent[id & 0xFF];
+    }
+
+    public static boolean isTintable(byte id) {
+        return tintable[id & 0xFF];
+    }
+
+    // Teinte de biome du bloc, null s'il n'est pas teinté
+    public static TintType getTintType(byte id) {
+        return tintTypes[id & 0xFF];
+    }
+
+    /**
+     * Indice de texture de la face (0 à 5, voir {@link Face}), -1 pour l'air ou un id inconnu.
+     * Deux faces de même texture ont le même indice : le mesher greedy les compare sans toucher aux chaînes.
+     */
+    public static int getFaceTextureId(byte id, int face) {
+        return faceTextureIds[(id & 0xFF) * FACES + face];
+    }
+
+    // Chemin de la texture d'un indice renvoyé par getFaceTextureId
+    public static String getTextureName(int textureId) {
+        return textureNames[textureId];
+    }
+
+    public static String getFaceTextureName(byte id, int face) {
+        int texture = getFaceTextureId(id, face);
+        return texture < 0 ? null : textureNames[texture];
+    }
+}